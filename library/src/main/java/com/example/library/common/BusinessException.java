@@ -0,0 +1,30 @@
+package com.example.library.common;
+
+import lombok.Getter;
+
+/**
+ * 业务异常
+ * 携带响应状态码，控制器据此返回明确的错误码
+ * 
+ * @author Library Management System
+ */
+@Getter
+public class BusinessException extends RuntimeException {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * 响应状态码
+   */
+  private final ResultCode resultCode;
+
+  public BusinessException(ResultCode resultCode) {
+    super(resultCode.getMessage());
+    this.resultCode = resultCode;
+  }
+
+  public BusinessException(ResultCode resultCode, String message) {
+    super(message);
+    this.resultCode = resultCode;
+  }
+}
@@ -64,6 +64,9 @@ public enum ResultCode {
   /** 馆藏号已存在 */
   COLLECTION_NUMBER_EXISTS(2004, "馆藏号已存在"),
 
+  /** 图书状态已被并发操作修改 */
+  BOOK_STATUS_CONFLICT(2005, "图书状态已被其他操作修改，请重新扫描"),
+
   // ========== 借阅模块错误码 (3000-3999) ==========
   /** 用户存在超期图书 */
   USER_HAS_OVERDUE(3001, "用户存在超期图书，无法借阅"),
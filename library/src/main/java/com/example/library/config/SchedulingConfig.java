@@ -0,0 +1,15 @@
+package com.example.library.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * 定时任务配置类
+ * 启用统计对账等后台任务
+ * 
+ * @author Library Management System
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
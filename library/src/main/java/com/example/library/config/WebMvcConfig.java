@@ -0,0 +1,43 @@
+package com.example.library.config;
+
+import com.example.library.security.AuthInterceptor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Web MVC 配置类
+ * 注册认证拦截器：/api/** 需携带 Token，公开接口按路径模式排除（启动时预编译为 PathPattern）
+ * 
+ * @author Library Management System
+ */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+  private final AuthInterceptor authInterceptor;
+
+  private final boolean authEnabled;
+
+  private final List<String> publicPaths;
+
+  public WebMvcConfig(AuthInterceptor authInterceptor,
+      @Value("${system.auth.enabled:true}") boolean authEnabled,
+      @Value("${system.auth.public-paths:/api/auth/login,/api/auth/logout}") List<String> publicPaths) {
+    this.authInterceptor = authInterceptor;
+    this.authEnabled = authEnabled;
+    this.publicPaths = publicPaths;
+  }
+
+  @Override
+  public void addInterceptors(InterceptorRegistry registry) {
+    if (!authEnabled) {
+      return;
+    }
+    registry.addInterceptor(authInterceptor)
+        .addPathPatterns("/api/**")
+        .excludePathPatterns(publicPaths);
+  }
+}
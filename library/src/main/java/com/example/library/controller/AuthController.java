@@ -2,9 +2,11 @@ package com.example.library.controller;
 
 import com.example.library.common.Result;
 import com.example.library.dto.LoginRequest;
+import com.example.library.security.AuthInterceptor;
 import com.example.library.service.AuthService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
@@ -35,10 +37,14 @@ public class AuthController {
   }
 
   /**
-   * 用户登出
+   * 用户登出（吊销请求携带的 Token）
    */
   @PostMapping("/logout")
-  public Result<Void> logout() {
+  public Result<Void> logout(@RequestHeader(value = HttpHeaders.AUTHORIZATION, required = false) String authorization) {
+    String token = AuthInterceptor.bearerToken(authorization);
+    if (token != null) {
+      authService.logout(token);
+    }
     return Result.success("退出成功", null);
   }
 }
@@ -1,8 +1,13 @@
 package com.example.library.controller;
 
+import com.example.library.common.BusinessException;
 import com.example.library.common.Result;
 import com.example.library.dto.BookAddRequest;
+import com.example.library.security.AuthContext;
+import com.example.library.service.BookImportService;
 import com.example.library.service.BookService;
+import com.example.library.service.BookStatusHistoryService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.*;
@@ -23,6 +28,8 @@ import com.example.library.entity.Book;
 public class BookController {
 
   private final BookService bookService;
+  private final BookImportService bookImportService;
+  private final BookStatusHistoryService bookStatusHistoryService;
 
   /**
    * 图书入库
@@ -37,6 +44,32 @@ public class BookController {
     }
   }
 
+  /**
+   * 批量导入图书
+   * 请求体为 CSV（首行列名：isbn,title,author,publisher,location）或 NDJSON（每行一个入库请求），逐行流式处理
+   */
+  @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+  public Result<Map<String, Object>> importBooks(HttpServletRequest request) {
+    try {
+      Map<String, Object> data = bookImportService.importBooks(request.getInputStream(), request.getContentType());
+      return Result.success("导入完成", data);
+    } catch (Exception e) {
+      return Result.error(e.getMessage());
+    }
+  }
+
+  /**
+   * 查询进行中的批量导入进度
+   */
+  @GetMapping("/import")
+  public Result<List<Map<String, Object>>> getImportProgress() {
+    try {
+      return Result.success("查询成功", bookImportService.getRunningImports());
+    } catch (Exception e) {
+      return Result.error(e.getMessage());
+    }
+  }
+
   /**
    * 分页查询图书
    */
@@ -67,6 +100,23 @@ public class BookController {
     }
   }
 
+  /**
+   * 键集分页查询图书状态历史
+   * 首页不传 cursor，后续页传上一页返回的 nextCursor
+   */
+  @GetMapping("/{collectionNumber}/history")
+  public Result<Map<String, Object>> getStatusHistory(
+      @PathVariable String collectionNumber,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false, defaultValue = "20") Integer size) {
+    try {
+      Map<String, Object> data = bookStatusHistoryService.seekStatusHistory(collectionNumber, cursor, size);
+      return Result.success("查询成功", data);
+    } catch (Exception e) {
+      return Result.error(e.getMessage());
+    }
+  }
+
   /**
    * 更新图书状态
    */
@@ -76,9 +126,11 @@ public class BookController {
       @RequestBody Map<String, String> request) {
     try {
       String status = request.get("status");
-      String operator = request.get("operator");
+      String operator = AuthContext.operatorOr(request.get("operator"));
       Map<String, Object> data = bookService.updateBookStatus(collectionNumber, status, operator);
       return Result.success("状态修改成功", data);
+    } catch (BusinessException e) {
+      return Result.error(e.getResultCode(), e.getMessage());
     } catch (Exception e) {
       return Result.error(e.getMessage());
     }
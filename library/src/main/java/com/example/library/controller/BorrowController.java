@@ -1,7 +1,10 @@
 package com.example.library.controller;
 
+import com.example.library.common.BusinessException;
 import com.example.library.common.Result;
+import com.example.library.dto.BatchReturnRequest;
 import com.example.library.dto.BorrowRequest;
+import com.example.library.security.AuthContext;
 import com.example.library.service.BorrowService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
@@ -33,6 +36,8 @@ public class BorrowController {
     try {
       Map<String, Object> data = borrowService.validateBorrow(request.getCardNumber(), request.getCollectionNumbers());
       return Result.success("验证通过", data);
+    } catch (BusinessException e) {
+      return Result.error(e.getResultCode(), e.getMessage());
     } catch (Exception e) {
       return Result.error(e.getMessage());
     }
@@ -44,8 +49,11 @@ public class BorrowController {
   @PostMapping
   public Result<Map<String, Object>> borrowBooks(@Valid @RequestBody BorrowRequest request) {
     try {
+      request.setOperator(AuthContext.operatorOr(request.getOperator()));
       Map<String, Object> data = borrowService.borrowBooks(request);
       return Result.success("借阅成功", data);
+    } catch (BusinessException e) {
+      return Result.error(e.getResultCode(), e.getMessage());
     } catch (Exception e) {
       return Result.error(e.getMessage());
     }
@@ -58,12 +66,29 @@ public class BorrowController {
   public Result<Map<String, Object>> returnBook(@RequestBody Map<String, String> request) {
     try {
       String collectionNumber = request.get("collectionNumber");
-      String operator = request.get("operator");
+      String operator = AuthContext.operatorOr(request.get("operator"));
       Map<String, Object> data = borrowService.returnBook(collectionNumber, operator);
 
       int overdueDays = (int) ((Map<String, Object>) data.get("record")).get("overdueDays");
       String message = overdueDays > 0 ? "该图书超期" + overdueDays + "天" : "归还成功";
 
+      return Result.success(message, data);
+    } catch (BusinessException e) {
+      return Result.error(e.getResultCode(), e.getMessage());
+    } catch (Exception e) {
+      return Result.error(e.getMessage());
+    }
+  }
+
+  /**
+   * 批量归还
+   */
+  @PostMapping("/return/batch")
+  public Result<Map<String, Object>> returnBooks(@Valid @RequestBody BatchReturnRequest request) {
+    try {
+      Map<String, Object> data = borrowService.returnBooks(request.getCollectionNumbers(),
+          AuthContext.operatorOr(request.getOperator()));
+      String message = "归还完成，成功" + data.get("successCount") + "本，失败" + data.get("failCount") + "本";
       return Result.success(message, data);
     } catch (Exception e) {
       return Result.error(e.getMessage());
@@ -72,11 +97,15 @@ public class BorrowController {
 
   /**
    * 查询个人借阅记录
+   * 传入 cursor 或 size 时 records 为一页，按 nextCursor 继续翻页；均未传入时返回全部记录
    */
   @GetMapping("/my-records")
-  public Result<Map<String, Object>> getMyRecords(@RequestParam String accountNumber) {
+  public Result<Map<String, Object>> getMyRecords(
+      @RequestParam String accountNumber,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false) Integer size) {
     try {
-      Map<String, Object> data = borrowService.getMyRecords(accountNumber);
+      Map<String, Object> data = borrowService.getMyRecords(accountNumber, cursor, size);
       return Result.success("查询成功", data);
     } catch (Exception e) {
       return Result.error(e.getMessage());
@@ -85,15 +114,20 @@ public class BorrowController {
 
   /**
    * 全量借阅记录查询
+   * 传入 cursor 参数（第一页传空字符串）时使用键集分页，按 nextCursor 翻页
    */
   @GetMapping("/all-records")
   public Result<Map<String, Object>> pageAllRecords(
       @RequestParam(required = false) String accountNumber,
       @RequestParam(required = false) String keyword,
       @RequestParam(required = false, defaultValue = "1") Integer page,
-      @RequestParam(required = false, defaultValue = "10") Integer size) {
+      @RequestParam(required = false, defaultValue = "10") Integer size,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(required = false, defaultValue = "false") Boolean withTotal) {
     try {
-      Map<String, Object> data = borrowService.pageAllRecords(accountNumber, keyword, page, size);
+      Map<String, Object> data = cursor != null
+          ? borrowService.seekAllRecords(accountNumber, keyword, cursor, size, withTotal)
+          : borrowService.pageAllRecords(accountNumber, keyword, page, size);
       return Result.success("查询成功", data);
     } catch (Exception e) {
       return Result.error(e.getMessage());
@@ -1,11 +1,20 @@
 package com.example.library.controller;
 
 import com.example.library.common.Result;
-import com.example.library.mapper.BorrowRecordMapper;
+import com.example.library.service.BookCache;
 import com.example.library.service.BookService;
+import com.example.library.service.CirculationCube;
+import com.example.library.service.CirculationRollup;
+import com.example.library.service.StatisticsCache;
+import com.example.library.service.TopBooksTracker;
+import com.example.library.service.UserCache;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -20,37 +29,80 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class StatisticsController {
 
-  private final BorrowRecordMapper borrowRecordMapper;
+  /**
+   * 各统计结果缓存有效期，过期后先返回旧值并在后台重算
+   */
+  private static final Duration TOP_BOOKS_TTL = Duration.ofSeconds(60);
+  private static final Duration BOOK_STATUS_TTL = Duration.ofSeconds(5);
+  private static final Duration BORROW_TREND_TTL = Duration.ofSeconds(30);
+  private static final Duration CIRCULATION_TTL = Duration.ofSeconds(30);
+
   private final BookService bookService;
+  private final BookCache bookCache;
+  private final CirculationRollup circulationRollup;
+  private final CirculationCube circulationCube;
+  private final TopBooksTracker topBooksTracker;
+  private final StatisticsCache statisticsCache;
+  private final UserCache userCache;
 
   /**
-   * 借阅TOP5统计
+   * 借阅排行统计（读取内存排行）
+   * 
+   * @param dimension 时间维度（week/month），未指定 days 时生效
+   * @param k         返回条数，默认5
+   * @param days      最近天数（含今天），优先于 dimension
    */
   @GetMapping("/top-books")
   public Result<Map<String, Object>> getTopBooks(
-      @RequestParam(required = false, defaultValue = "week") String dimension) {
+      @RequestParam(required = false, defaultValue = "week") String dimension,
+      @RequestParam(required = false, defaultValue = "5") Integer k,
+      @RequestParam(required = false) Integer days) {
     try {
-      List<Map<String, Object>> topBooks = borrowRecordMapper.selectTopBooks(dimension);
-
-      // 计算总数用于百分比
-      long totalCount = topBooks.stream()
-          .mapToLong(book -> ((Number) book.get("borrow_count")).longValue())
-          .sum();
-
-      // 添加百分比
-      topBooks.forEach(book -> {
-        long borrowCount = ((Number) book.get("borrow_count")).longValue();
-        int percentage = totalCount > 0 ? (int) ((borrowCount * 100) / totalCount) : 0;
-        book.put("borrowCount", borrowCount);
-        book.put("percentage", percentage);
-        book.remove("borrow_count");
-      });
+      int window = days != null ? days : "month".equals(dimension) ? 30 : 7;
+      Map<String, Object> result = statisticsCache.get("top-books:" + dimension + ":" + k + ":" + window,
+          TOP_BOOKS_TTL, () -> computeTopBooks(dimension, k, window));
+      return Result.success("统计完成", result);
+    } catch (Exception e) {
+      return Result.error(e.getMessage());
+    }
+  }
 
-      Map<String, Object> result = new HashMap<>();
-      result.put("dimension", dimension);
-      result.put("topBooks", topBooks);
+  /**
+   * 计算借阅排行及百分比
+   */
+  private Map<String, Object> computeTopBooks(String dimension, int k, int window) {
+    List<Map<String, Object>> topBooks = topBooksTracker.top(k, window);
 
-      return Result.success("统计完成", result);
+    // 计算总数用于百分比
+    long totalCount = topBooks.stream()
+        .mapToLong(book -> ((Number) book.get("borrow_count")).longValue())
+        .sum();
+
+    // 添加百分比
+    topBooks.forEach(book -> {
+      long borrowCount = ((Number) book.get("borrow_count")).longValue();
+      int percentage = totalCount > 0 ? (int) ((borrowCount * 100) / totalCount) : 0;
+      book.put("borrowCount", borrowCount);
+      book.put("percentage", percentage);
+      book.remove("borrow_count");
+    });
+
+    Map<String, Object> result = new HashMap<>();
+    result.put("dimension", dimension);
+    result.put("days", window);
+    result.put("topBooks", topBooks);
+    return result;
+  }
+
+  /**
+   * 借阅排行校验：对比内存排行与数据库精确统计
+   */
+  @GetMapping("/top-books/validate")
+  public Result<Map<String, Object>> validateTopBooks(
+      @RequestParam(required = false, defaultValue = "5") Integer k,
+      @RequestParam(required = false, defaultValue = "7") Integer days) {
+    try {
+      return Result.success("校验完成", topBooksTracker.validate(k, days));
     } catch (Exception e) {
       return Result.error(e.getMessage());
     }
@@ -62,9 +114,11 @@ public class StatisticsController {
   @GetMapping("/book-status")
   public Result<Map<String, Object>> getBookStatusStatistics() {
     try {
-      List<Map<String, Object>> statistics = bookService.getStatusStatistics();
-      Map<String, Object> result = new HashMap<>();
-      result.put("statistics", statistics);
+      Map<String, Object> result = statisticsCache.get("book-status", BOOK_STATUS_TTL, () -> {
+        Map<String, Object> statistics = new HashMap<>();
+        statistics.put("statistics", bookService.getStatusStatistics());
+        return statistics;
+      });
       return Result.success("查询成功", result);
     } catch (Exception e) {
       return Result.error(e.getMessage());
@@ -78,7 +132,110 @@ public class StatisticsController {
   public Result<Map<String, Object>> getBorrowTrend(
       @RequestParam(required = false, defaultValue = "7") Integer days) {
     try {
-      return Result.error("功能待实现");
+      Map<String, Object> result = statisticsCache.get("borrow-trend:" + days, BORROW_TREND_TTL,
+          () -> circulationRollup.trend(days));
+      return Result.success("统计完成", result);
+    } catch (Exception e) {
+      return Result.error(e.getMessage());
+    }
+  }
+
+  /**
+   * 回填借阅趋势日汇总（升级后执行一次，可重复执行）
+   */
+  @PostMapping("/borrow-trend/backfill")
+  public Result<Map<String, Object>> backfillBorrowTrend() {
+    try {
+      Map<String, Object> result = circulationRollup.backfill();
+      statisticsCache.invalidate("borrow-trend:");
+      return Result.success("回填完成", result);
+    } catch (Exception e) {
+      return Result.error(e.getMessage());
+    }
+  }
+
+  /**
+   * 借阅流通多维统计（读取预聚合汇总）
+   * 
+   * @param granularity 周期粒度（day/week/month/year），默认 day
+   * @param from        起始日期，默认结束日期前 29 天
+   * @param to          结束日期，默认今天
+   * @param groupBy     分组维度，逗号分隔（identity/zone/operator）
+   * @param identity    读者身份过滤
+   * @param zone        馆藏区域过滤
+   * @param operator    操作员过滤
+   */
+  @GetMapping("/circulation")
+  public Result<Map<String, Object>> getCirculation(
+      @RequestParam(required = false, defaultValue = "day") String granularity,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+      @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+      @RequestParam(required = false, defaultValue = "") String groupBy,
+      @RequestParam(required = false) String identity,
+      @RequestParam(required = false) String zone,
+      @RequestParam(required = false) String operator) {
+    try {
+      LocalDate end = to != null ? to : LocalDate.now();
+      LocalDate start = from != null ? from : end.minusDays(29);
+      List<String> dimensions = Arrays.stream(groupBy.split(","))
+          .map(String::trim)
+          .filter(dimension -> !dimension.isEmpty())
+          .toList();
+      String key = "circulation:" + granularity + ":" + start + ":" + end + ":" + dimensions + ":" + identity
+          + ":" + zone + ":" + operator;
+      Map<String, Object> result = statisticsCache.get(key, CIRCULATION_TTL,
+          () -> circulationCube.slice(granularity, start, end, dimensions, identity, zone, operator));
+      return Result.success("统计完成", result);
+    } catch (Exception e) {
+      return Result.error(e.getMessage());
+    }
+  }
+
+  /**
+   * 回填借阅流通多维汇总（升级后执行一次，可重复执行）
+   */
+  @PostMapping("/circulation/backfill")
+  public Result<Map<String, Object>> backfillCirculation() {
+    try {
+      Map<String, Object> result = circulationCube.backfill();
+      statisticsCache.invalidate("circulation:");
+      return Result.success("回填完成", result);
+    } catch (Exception e) {
+      return Result.error(e.getMessage());
+    }
+  }
+
+  /**
+   * 图书缓存命中统计
+   */
+  @GetMapping("/cache")
+  public Result<Map<String, Object>> getCacheStatistics() {
+    try {
+      return Result.success("查询成功", bookCache.stats());
+    } catch (Exception e) {
+      return Result.error(e.getMessage());
+    }
+  }
+
+  /**
+   * 统计结果缓存命中统计
+   */
+  @GetMapping("/cache/statistics")
+  public Result<Map<String, Object>> getStatisticsCacheStatistics() {
+    try {
+      return Result.success("查询成功", statisticsCache.stats());
+    } catch (Exception e) {
+      return Result.error(e.getMessage());
+    }
+  }
+
+  /**
+   * 用户缓存命中统计（按校园卡号、账号索引分列）
+   */
+  @GetMapping("/cache/users")
+  public Result<Map<String, Object>> getUserCacheStatistics() {
+    try {
+      return Result.success("查询成功", userCache.stats());
     } catch (Exception e) {
       return Result.error(e.getMessage());
     }
@@ -2,12 +2,27 @@ package com.example.library.controller;
 
 import com.example.library.common.Result;
 import com.example.library.dto.UserAddRequest;
+import com.example.library.common.BusinessException;
+import com.example.library.common.ResultCode;
 import com.example.library.entity.User;
+import com.example.library.security.AuthContext;
+import com.example.library.security.AuthPrincipal;
+import com.example.library.service.UserImportService;
 import com.example.library.service.UserService;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.InputStreamResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Map;
 
 /**
@@ -21,6 +36,7 @@ import java.util.Map;
 public class UserController {
 
   private final UserService userService;
+  private final UserImportService userImportService;
 
   /**
    * 用户录入
@@ -35,6 +51,44 @@ public class UserController {
     }
   }
 
+  /**
+   * 批量录入用户
+   * 请求体为 CSV（首行列名：accountNumber,name,identity,cardNumber）或 NDJSON（每行一个录入请求），逐行流式处理
+   */
+  @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+  public Result<Map<String, Object>> importUsers(HttpServletRequest request) {
+    try {
+      AuthPrincipal principal = AuthContext.current();
+      Map<String, Object> data = userImportService.importUsers(request.getInputStream(), request.getContentType(),
+          principal == null ? null : principal.account());
+      return Result.success("录入完成", data);
+    } catch (Exception e) {
+      return Result.error(e.getMessage());
+    }
+  }
+
+  /**
+   * 下载批量录入结果报告（CSV，含初始密码）
+   * 仅上传者或管理员可下载，且只能下载一次
+   */
+  @GetMapping("/import/{reportId}/report")
+  public ResponseEntity<Resource> downloadImportReport(@PathVariable String reportId) throws IOException {
+    AuthPrincipal principal = AuthContext.current();
+    InputStreamResource report;
+    try {
+      report = new InputStreamResource(userImportService.takeReport(reportId,
+          principal == null ? null : principal.account(), principal != null && principal.isAdmin()));
+    } catch (BusinessException e) {
+      return ResponseEntity.status(e.getResultCode() == ResultCode.FORBIDDEN
+          ? HttpStatus.FORBIDDEN : HttpStatus.NOT_FOUND).build();
+    }
+    return ResponseEntity.ok()
+        .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+        .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+            .filename("user-import-report.csv").build().toString())
+        .body(report);
+  }
+
   /**
    * 用户查询
    */
@@ -0,0 +1,28 @@
+package com.example.library.dto;
+
+import lombok.Data;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import java.util.List;
+
+/**
+ * 批量归还请求DTO
+ * 
+ * @author Library Management System
+ */
+@Data
+public class BatchReturnRequest {
+
+  /**
+   * 单次请求最多馆藏号数量（每批 200 本，至多 5 批）
+   */
+  public static final int MAX_COLLECTION_NUMBERS = 1000;
+
+  @NotEmpty(message = "馆藏号列表不能为空")
+  @Size(max = MAX_COLLECTION_NUMBERS, message = "单次最多归还" + MAX_COLLECTION_NUMBERS + "本")
+  private List<@NotBlank(message = "馆藏号不能为空") String> collectionNumbers;
+
+  @NotBlank(message = "操作员账号不能为空")
+  private String operator;
+}
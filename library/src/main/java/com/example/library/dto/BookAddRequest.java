@@ -2,6 +2,7 @@ package com.example.library.dto;
 
 import lombok.Data;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 
 /**
  * 图书入库请求DTO
@@ -12,17 +13,22 @@ import jakarta.validation.constraints.NotBlank;
 public class BookAddRequest {
 
   @NotBlank(message = "ISBN号不能为空")
+  @Size(max = 20, message = "ISBN号不能超过20个字符")
   private String isbn;
 
   @NotBlank(message = "书名不能为空")
+  @Size(max = 200, message = "书名不能超过200个字符")
   private String title;
 
   @NotBlank(message = "作者不能为空")
+  @Size(max = 100, message = "作者不能超过100个字符")
   private String author;
 
   @NotBlank(message = "出版社不能为空")
+  @Size(max = 100, message = "出版社不能超过100个字符")
   private String publisher;
 
   @NotBlank(message = "馆藏位置不能为空")
+  @Size(max = 100, message = "馆藏位置不能超过100个字符")
   private String location;
 }
@@ -24,7 +24,7 @@ public class Book implements Serializable {
   private Long id;
 
   /**
-   * 馆藏号（TS+时间戳+随机数）
+   * 馆藏号（TS+19位有序ID）
    */
   private String collectionNumber;
 
@@ -24,7 +24,7 @@ public class BorrowRecord implements Serializable {
   private Long id;
 
   /**
-   * 借阅记录ID（BR+时间戳）
+   * 借阅记录ID（BR+19位有序ID）
    */
   private String recordId;
 
@@ -0,0 +1,55 @@
+package com.example.library.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 借阅流通多维汇总单元实体类
+ * 对应数据库表 tb_circulation_cube，每行为 日期 × 读者身份 × 馆藏区域 × 操作员 的借还册数
+ * 
+ * @author Library Management System
+ */
+@Data
+@TableName("tb_circulation_cube")
+public class CirculationCubeCell implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * 统计日期
+   */
+  private LocalDate statDate;
+
+  /**
+   * 读者身份（教师/学生）
+   */
+  private String userIdentity;
+
+  /**
+   * 馆藏区域（由馆藏位置解析，如：A区）
+   */
+  private String zone;
+
+  /**
+   * 操作员账号
+   */
+  private String operator;
+
+  /**
+   * 借出册数
+   */
+  private Integer borrowCount;
+
+  /**
+   * 归还册数
+   */
+  private Integer returnCount;
+
+  /**
+   * 更新时间
+   */
+  private LocalDateTime updateTime;
+}
@@ -0,0 +1,41 @@
+package com.example.library.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import java.io.Serializable;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * 借阅流通日汇总实体类
+ * 对应数据库表 tb_circulation_daily
+ * 
+ * @author Library Management System
+ */
+@Data
+@TableName("tb_circulation_daily")
+public class CirculationDaily implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * 统计日期
+   */
+  @TableId(value = "stat_date", type = IdType.INPUT)
+  private LocalDate statDate;
+
+  /**
+   * 当日借出册数
+   */
+  private Integer borrowCount;
+
+  /**
+   * 当日归还册数
+   */
+  private Integer returnCount;
+
+  /**
+   * 更新时间
+   */
+  private LocalDateTime updateTime;
+}
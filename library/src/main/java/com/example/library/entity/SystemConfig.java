@@ -38,6 +38,11 @@ public class SystemConfig implements Serializable {
    */
   private String description;
 
+  /**
+   * 版本号（每次修改加一，各实例据此发现配置变更）
+   */
+  private Long version;
+
   /**
    * 创建时间
    */
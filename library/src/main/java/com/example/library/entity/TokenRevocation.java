@@ -0,0 +1,40 @@
+package com.example.library.entity;
+
+import com.baomidou.mybatisplus.annotation.*;
+import lombok.Data;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Token 吊销记录实体类
+ * 对应数据库表 tb_token_revocation
+ * 
+ * @author Library Management System
+ */
+@Data
+@TableName("tb_token_revocation")
+public class TokenRevocation implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  /**
+   * Token 编号（jti）
+   */
+  @TableId(value = "jti", type = IdType.INPUT)
+  private String jti;
+
+  /**
+   * 账号
+   */
+  private String accountNumber;
+
+  /**
+   * Token 过期时间，过期后记录可删除
+   */
+  private LocalDateTime expireTime;
+
+  /**
+   * 吊销时间
+   */
+  private LocalDateTime revokeTime;
+}
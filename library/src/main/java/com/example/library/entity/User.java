@@ -73,6 +73,12 @@ public class User implements Serializable {
    */
   private Integer loginFailCount;
 
+  /**
+   * 当前在借数量（借阅额度计数器，只由借还时的条件更新原子增减）
+   */
+  @TableField(updateStrategy = FieldStrategy.NEVER)
+  private Integer borrowingCount;
+
   /**
    * 创建时间
    */
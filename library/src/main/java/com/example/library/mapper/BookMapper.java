@@ -2,10 +2,17 @@ package com.example.library.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.library.entity.Book;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -69,4 +76,104 @@ public interface BookMapper extends BaseMapper<Book> {
    */
   @Select("SELECT COUNT(*) FROM tb_book WHERE collection_number = #{collectionNumber} AND deleted = 0")
   int existsByCollectionNumber(@Param("collectionNumber") String collectionNumber);
+
+  /**
+   * 根据馆藏号批量查询图书
+   * 
+   * @param collectionNumbers 馆藏号集合
+   * @return 图书列表
+   */
+  @Select({
+      "<script>",
+      "SELECT * FROM tb_book WHERE deleted = 0 AND collection_number IN ",
+      "<foreach collection='collectionNumbers' item='collectionNumber' open='(' separator=',' close=')'>",
+      "    #{collectionNumber}",
+      "</foreach>",
+      "</script>"
+  })
+  List<Book> selectByCollectionNumbers(@Param("collectionNumbers") Collection<String> collectionNumbers);
+
+  /**
+   * 按预期状态更新图书状态（比较并交换）
+   * 
+   * @param collectionNumber 馆藏号
+   * @param expectedStatus   预期当前状态
+   * @param status           新状态
+   * @param updateTime       更新时间
+   * @return 更新行数，0 表示状态已被其他操作修改
+   */
+  @Update("UPDATE tb_book SET status = #{status}, update_time = #{updateTime} "
+      + "WHERE collection_number = #{collectionNumber} AND status = #{expectedStatus} AND deleted = 0")
+  int compareAndSetStatus(@Param("collectionNumber") String collectionNumber,
+      @Param("expectedStatus") String expectedStatus, @Param("status") String status,
+      @Param("updateTime") LocalDateTime updateTime);
+
+  /**
+   * 按预期状态批量更新图书状态（比较并交换）
+   * 
+   * @param collectionNumbers 馆藏号集合
+   * @param expectedStatus    预期当前状态
+   * @param status            新状态
+   * @param updateTime        更新时间
+   * @return 更新行数，小于馆藏号数量表示部分图书状态已被其他操作修改
+   */
+  @Update({
+      "<script>",
+      "UPDATE tb_book SET status = #{status}, update_time = #{updateTime} ",
+      "WHERE deleted = 0 AND status = #{expectedStatus} AND collection_number IN ",
+      "<foreach collection='collectionNumbers' item='collectionNumber' open='(' separator=',' close=')'>",
+      "    #{collectionNumber}",
+      "</foreach>",
+      "</script>"
+  })
+  int compareAndSetStatusBatch(@Param("collectionNumbers") Collection<String> collectionNumbers,
+      @Param("expectedStatus") String expectedStatus, @Param("status") String status,
+      @Param("updateTime") LocalDateTime updateTime);
+
+  /**
+   * 流式读取馆藏检索字段（用于重建检索索引）
+   * 
+   * @param handler 结果处理器
+   */
+  @Select("SELECT collection_number, isbn, title, status, create_time FROM tb_book WHERE deleted = 0")
+  @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+  void selectCatalog(ResultHandler<Book> handler);
+
+  /**
+   * 流式读取某时间之后变更的馆藏检索字段（含已删除，同步其他实例的入库与状态变更）
+   * 
+   * @param since   起始更新时间（含）
+   * @param handler 结果处理器
+   */
+  @Select("SELECT collection_number, isbn, title, status, create_time, deleted FROM tb_book WHERE update_time >= #{since}")
+  @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+  void selectCatalogChangedSince(@Param("since") LocalDateTime since, ResultHandler<Book> handler);
+
+  /**
+   * 流式读取某时间之后变更的馆藏号（含已删除，失效其他实例修改过的图书缓存）
+   * 
+   * @param since   起始更新时间（含）
+   * @param handler 结果处理器
+   */
+  @Select("SELECT collection_number FROM tb_book WHERE update_time >= #{since}")
+  @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+  void selectChangedSince(@Param("since") LocalDateTime since, ResultHandler<Book> handler);
+
+  /**
+   * 批量插入图书
+   * 
+   * @param books 图书列表
+   * @return 插入行数
+   */
+  @Insert({
+      "<script>",
+      "INSERT INTO tb_book (collection_number, isbn, title, author, publisher, location, status, ",
+      "    create_time, update_time) VALUES ",
+      "<foreach collection='books' item='b' separator=','>",
+      "    (#{b.collectionNumber}, #{b.isbn}, #{b.title}, #{b.author}, #{b.publisher}, #{b.location}, ",
+      "    #{b.status}, #{b.createTime}, #{b.updateTime})",
+      "</foreach>",
+      "</script>"
+  })
+  int insertBatch(@Param("books") List<Book> books);
 }
@@ -2,10 +2,12 @@ package com.example.library.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.library.entity.BookStatusHistory;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 /**
@@ -32,6 +34,43 @@ public interface BookStatusHistoryMapper extends BaseMapper<BookStatusHistory> {
      * @param limit 限制数量
      * @return 状态历史列表
      */
-    @Select("SELECT * FROM tb_book_status_history WHERE collection_number = #{collectionNumber} ORDER BY operate_time DESC LIMIT #{limit}")
+    @Select("SELECT * FROM tb_book_status_history WHERE collection_number = #{collectionNumber} ORDER BY operate_time DESC, id DESC LIMIT #{limit}")
     List<BookStatusHistory> selectRecentByCollectionNumber(@Param("collectionNumber") String collectionNumber, @Param("limit") int limit);
+    
+    /**
+     * 按 (operate_time, id) 倒序键集分页查询状态历史
+     * 
+     * @param collectionNumber 馆藏号
+     * @param operateTime 上一页末条操作时间，为 null 时查询第一页
+     * @param id 上一页末条主键ID
+     * @param limit 限制数量
+     * @return 状态历史列表
+     */
+    @Select({
+        "<script>",
+        "SELECT * FROM tb_book_status_history WHERE collection_number = #{collectionNumber} ",
+        "<if test='operateTime != null'>",
+        "    AND operate_time &lt;= #{operateTime} AND (operate_time &lt; #{operateTime} OR id &lt; #{id}) ",
+        "</if>",
+        "ORDER BY operate_time DESC, id DESC LIMIT #{limit}",
+        "</script>"
+    })
+    List<BookStatusHistory> seekByCollectionNumber(@Param("collectionNumber") String collectionNumber,
+        @Param("operateTime") LocalDateTime operateTime, @Param("id") Long id, @Param("limit") int limit);
+    
+    /**
+     * 批量插入状态历史
+     * 
+     * @param histories 状态历史列表
+     * @return 插入行数
+     */
+    @Insert({
+        "<script>",
+        "INSERT INTO tb_book_status_history (collection_number, status, operator, operate_time) VALUES ",
+        "<foreach collection='histories' item='h' separator=','>",
+        "    (#{h.collectionNumber}, #{h.status}, #{h.operator}, #{h.operateTime})",
+        "</foreach>",
+        "</script>"
+    })
+    int insertBatch(@Param("histories") List<BookStatusHistory> histories);
 }
@@ -2,10 +2,17 @@ package com.example.library.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.library.entity.BorrowRecord;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Map;
 
@@ -20,32 +27,25 @@ import java.time.LocalDateTime;
 public interface BorrowRecordMapper extends BaseMapper<BorrowRecord> {
 
   /**
-   * 统计借阅TOP5图书
+   * 统计借阅排行（精确分组计数，用于校验内存排行）
    * 
-   * @param dimension 时间维度（week/month）
-   * @return TOP5图书列表
+   * @param since 起始借阅时间（含）
+   * @param limit 返回条数
+   * @return 排行图书列表
    */
   @Select({
-      "<script>",
       "SELECT ",
       "    br.collection_number,",
       "    br.book_title,",
       "    br.book_author AS author,",
       "    COUNT(*) AS borrow_count ",
       "FROM tb_borrow_record br ",
-      "WHERE br.borrow_date >= ",
-      "    <if test='dimension == \"week\"'>",
-      "        DATE_SUB(NOW(), INTERVAL 7 DAY)",
-      "    </if>",
-      "    <if test='dimension == \"month\"'>",
-      "        DATE_SUB(NOW(), INTERVAL 30 DAY)",
-      "    </if>",
+      "WHERE br.borrow_date >= #{since} ",
       "GROUP BY br.collection_number, br.book_title, br.book_author ",
-      "ORDER BY borrow_count DESC ",
-      "LIMIT 5",
-      "</script>"
+      "ORDER BY borrow_count DESC, br.collection_number ",
+      "LIMIT #{limit}"
   })
-  List<Map<String, Object>> selectTopBooks(@Param("dimension") String dimension);
+  List<Map<String, Object>> selectTopBooksSince(@Param("since") LocalDateTime since, @Param("limit") int limit);
     
     /**
      * 根据馆藏号查询借阅记录
@@ -74,6 +74,15 @@ public interface BorrowRecordMapper extends BaseMapper<BorrowRecord> {
     @Select("SELECT * FROM tb_borrow_record WHERE card_number = #{cardNumber} AND status = '借阅中' AND due_date < NOW()")
     List<BorrowRecord> selectOverdueByCardNumber(@Param("cardNumber") String cardNumber);
     
+    /**
+     * 统计用户的超期图书数量
+     * 
+     * @param cardNumber 校园卡号
+     * @return 超期数量
+     */
+    @Select("SELECT COUNT(*) FROM tb_borrow_record WHERE card_number = #{cardNumber} AND status = '借阅中' AND due_date < NOW()")
+    int countOverdueByCardNumber(@Param("cardNumber") String cardNumber);
+    
     /**
      * 查询用户的在借图书
      * 
@@ -110,4 +119,171 @@ public interface BorrowRecordMapper extends BaseMapper<BorrowRecord> {
      */
     @Select("SELECT * FROM tb_borrow_record WHERE borrow_date BETWEEN #{startDate} AND #{endDate} ORDER BY borrow_date DESC")
     List<BorrowRecord> selectByDateRange(@Param("startDate") LocalDateTime startDate, @Param("endDate") LocalDateTime endDate);
+    
+    /**
+     * 批量插入借阅记录
+     * 
+     * @param records 借阅记录列表
+     * @return 插入行数
+     */
+    @Insert({
+        "<script>",
+        "INSERT INTO tb_borrow_record (record_id, card_number, user_name, user_identity, account_number, ",
+        "    collection_number, book_title, book_author, borrow_date, due_date, overdue_days, status, ",
+        "    operator, create_time, update_time) VALUES ",
+        "<foreach collection='records' item='r' separator=','>",
+        "    (#{r.recordId}, #{r.cardNumber}, #{r.userName}, #{r.userIdentity}, #{r.accountNumber}, ",
+        "    #{r.collectionNumber}, #{r.bookTitle}, #{r.bookAuthor}, #{r.borrowDate}, #{r.dueDate}, ",
+        "    #{r.overdueDays}, #{r.status}, #{r.operator}, #{r.createTime}, #{r.updateTime})",
+        "</foreach>",
+        "</script>"
+    })
+    int insertBatch(@Param("records") List<BorrowRecord> records);
+    
+    /**
+     * 归还借阅记录（仅当记录仍为借阅中时生效）
+     * 
+     * @param id 主键ID
+     * @param returnDate 归还日期
+     * @param overdueDays 超期天数
+     * @return 更新行数，0 表示记录已被归还
+     */
+    @Update("UPDATE tb_borrow_record SET status = '已归还', return_date = #{returnDate}, overdue_days = #{overdueDays}, "
+        + "update_time = #{returnDate} WHERE id = #{id} AND status = '借阅中'")
+    int markReturned(@Param("id") Long id, @Param("returnDate") LocalDateTime returnDate,
+        @Param("overdueDays") int overdueDays);
+    
+    /**
+     * 根据馆藏号批量查询在借记录
+     * 
+     * @param collectionNumbers 馆藏号集合
+     * @return 在借借阅记录列表
+     */
+    @Select({
+        "<script>",
+        "SELECT * FROM tb_borrow_record WHERE status = '借阅中' AND collection_number IN ",
+        "<foreach collection='collectionNumbers' item='collectionNumber' open='(' separator=',' close=')'>",
+        "    #{collectionNumber}",
+        "</foreach>",
+        "</script>"
+    })
+    List<BorrowRecord> selectBorrowingByCollectionNumbers(@Param("collectionNumbers") Collection<String> collectionNumbers);
+    
+    /**
+     * 批量归还借阅记录（仅对仍为借阅中的记录生效），超期天数按整天在库内统一计算
+     * 
+     * @param ids 主键ID集合
+     * @param returnDate 归还日期
+     * @return 更新行数
+     */
+    @Update({
+        "<script>",
+        "UPDATE tb_borrow_record SET status = '已归还', return_date = #{returnDate}, ",
+        "    overdue_days = GREATEST(TIMESTAMPDIFF(DAY, due_date, #{returnDate}), 0), update_time = #{returnDate} ",
+        "WHERE status = '借阅中' AND id IN ",
+        "<foreach collection='ids' item='id' open='(' separator=',' close=')'>",
+        "    #{id}",
+        "</foreach>",
+        "</script>"
+    })
+    int markReturnedBatch(@Param("ids") Collection<Long> ids, @Param("returnDate") LocalDateTime returnDate);
+    
+    /**
+     * 流式读取全部在借记录的借阅记录ID、校园卡号与应还日期（用于重建在借投影）
+     * 
+     * @param handler 结果处理器
+     */
+    @Select("SELECT record_id, card_number, due_date FROM tb_borrow_record WHERE status = '借阅中'")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    void selectActiveLoans(ResultHandler<BorrowRecord> handler);
+    
+    /**
+     * 流式读取某时间之后借出或归还的记录（同步其他实例的借还到在借投影）
+     * 
+     * @param since   起始更新时间（含）
+     * @param handler 结果处理器
+     */
+    @Select("SELECT record_id, card_number, due_date, status FROM tb_borrow_record WHERE update_time >= #{since}")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    void selectLoansChangedSince(@Param("since") LocalDateTime since, ResultHandler<BorrowRecord> handler);
+    
+    /**
+     * 流式读取借阅记录中出现过的馆藏号与书名（用于重建检索索引）
+     * 
+     * @param handler 结果处理器
+     */
+    @Select("SELECT DISTINCT collection_number, book_title FROM tb_borrow_record")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    void selectDistinctBooks(ResultHandler<BorrowRecord> handler);
+    
+    /**
+     * 流式读取借阅记录中出现过的账号（用于重建检索索引）
+     * 
+     * @param handler 结果处理器
+     */
+    @Select("SELECT DISTINCT account_number FROM tb_borrow_record")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    void selectDistinctAccounts(ResultHandler<BorrowRecord> handler);
+    
+    /**
+     * 流式读取某时间之后借出记录的检索词条（同步其他实例的借阅）
+     * 
+     * @param since   起始借阅时间（含）
+     * @param handler 结果处理器
+     */
+    @Select("SELECT collection_number, book_title, account_number FROM tb_borrow_record WHERE borrow_date >= #{since}")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    void selectBorrowedSince(@Param("since") LocalDateTime since, ResultHandler<BorrowRecord> handler);
+    
+    /**
+     * 流式读取全部借阅记录的借出与归还时间（用于回填流通日汇总）
+     * 
+     * @param handler 结果处理器
+     */
+    @Select("SELECT borrow_date, return_date FROM tb_borrow_record")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    void selectCirculationEvents(ResultHandler<BorrowRecord> handler);
+    
+    /**
+     * 流式读取全部借阅记录的借还时间、读者身份、操作员及图书馆藏位置（用于回填流通多维汇总）
+     * 
+     * @param handler 结果处理器
+     */
+    @Select("SELECT br.borrow_date, br.return_date, br.user_identity, br.operator, b.location "
+        + "FROM tb_borrow_record br LEFT JOIN tb_book b ON b.collection_number = br.collection_number")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    @ResultType(Map.class)
+    void selectCubeEvents(ResultHandler<Map<String, Object>> handler);
+    
+    /**
+     * 流式读取指定时间之后的借阅（用于重建借阅排行与同步其他实例的借阅）
+     * 
+     * @param since   起始借阅时间（含）
+     * @param handler 结果处理器
+     */
+    @Select("SELECT record_id, collection_number, book_title, book_author, borrow_date FROM tb_borrow_record "
+        + "WHERE borrow_date >= #{since}")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    void selectBorrowsSince(@Param("since") LocalDateTime since, ResultHandler<BorrowRecord> handler);
+    
+    /**
+     * 估算借阅记录总数（读取表统计信息，不扫描数据）
+     * 
+     * @return 估算行数
+     */
+    @Select("SELECT TABLE_ROWS FROM information_schema.TABLES "
+        + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'tb_borrow_record'")
+    Long estimateRowCount();
+    
+    /**
+     * 统计用户借阅情况（历史借阅、当前在借、超期数量）
+     * 
+     * @param accountNumber 用户账号
+     * @return totalBorrowed、currentBorrowing、overdueCount
+     */
+    @Select("SELECT COUNT(*) AS totalBorrowed, "
+        + "COALESCE(SUM(status = '借阅中'), 0) AS currentBorrowing, "
+        + "COALESCE(SUM(status = '借阅中' AND due_date < NOW()), 0) AS overdueCount "
+        + "FROM tb_borrow_record WHERE account_number = #{accountNumber}")
+    Map<String, Object> selectStatisticsByAccountNumber(@Param("accountNumber") String accountNumber);
 }
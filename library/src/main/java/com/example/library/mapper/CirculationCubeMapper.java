@@ -0,0 +1,99 @@
+package com.example.library.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.library.entity.CirculationCubeCell;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 借阅流通多维汇总 Mapper 接口
+ * 
+ * @author Library Management System
+ */
+@Mapper
+public interface CirculationCubeMapper extends BaseMapper<CirculationCubeCell> {
+
+  /**
+   * 累加汇总单元借还册数
+   * 
+   * @param deltas 单元增量
+   * @return 影响行数
+   */
+  @Insert({
+      "<script>",
+      "INSERT INTO tb_circulation_cube (stat_date, user_identity, zone, operator, borrow_count, return_count) VALUES ",
+      "<foreach collection='deltas' item='d' separator=','>",
+      "    (#{d.statDate}, #{d.userIdentity}, #{d.zone}, #{d.operator}, #{d.borrowCount}, #{d.returnCount})",
+      "</foreach>",
+      " ON DUPLICATE KEY UPDATE borrow_count = borrow_count + VALUES(borrow_count), ",
+      "    return_count = return_count + VALUES(return_count)",
+      "</script>"
+  })
+  int incrementBatch(@Param("deltas") List<CirculationCubeCell> deltas);
+
+  /**
+   * 合并回填结果：取已有值与回填值的较大者
+   * 
+   * @param totals 单元总量
+   * @return 影响行数
+   */
+  @Insert({
+      "<script>",
+      "INSERT INTO tb_circulation_cube (stat_date, user_identity, zone, operator, borrow_count, return_count) VALUES ",
+      "<foreach collection='totals' item='t' separator=','>",
+      "    (#{t.statDate}, #{t.userIdentity}, #{t.zone}, #{t.operator}, #{t.borrowCount}, #{t.returnCount})",
+      "</foreach>",
+      " ON DUPLICATE KEY UPDATE borrow_count = GREATEST(borrow_count, VALUES(borrow_count)), ",
+      "    return_count = GREATEST(return_count, VALUES(return_count))",
+      "</script>"
+  })
+  int mergeBatch(@Param("totals") List<CirculationCubeCell> totals);
+
+  /**
+   * 切片查询：按周期及所选维度上卷汇总单元
+   * 周期起始日：day 为当天，week 为周一，month 为当月 1 日，year 为当年 1 月 1 日
+   * 
+   * @param granularity 周期粒度（day/week/month/year）
+   * @param from        起始日期（含）
+   * @param to          结束日期（含）
+   * @param dimensions  分组维度（identity/zone/operator 的子集）
+   * @param identity    读者身份过滤（可选）
+   * @param zone        馆藏区域过滤（可选）
+   * @param operator    操作员过滤（可选）
+   * @return period、所选维度列、borrow_count、return_count
+   */
+  @Select({
+      "<script>",
+      "SELECT ",
+      "<choose>",
+      "    <when test='granularity == \"week\"'>DATE_SUB(stat_date, INTERVAL WEEKDAY(stat_date) DAY)</when>",
+      "    <when test='granularity == \"month\"'>DATE_SUB(stat_date, INTERVAL DAYOFMONTH(stat_date) - 1 DAY)</when>",
+      "    <when test='granularity == \"year\"'>MAKEDATE(YEAR(stat_date), 1)</when>",
+      "    <otherwise>stat_date</otherwise>",
+      "</choose> AS period, ",
+      "<if test='dimensions.contains(\"identity\")'>user_identity, </if>",
+      "<if test='dimensions.contains(\"zone\")'>zone, </if>",
+      "<if test='dimensions.contains(\"operator\")'>operator, </if>",
+      "    SUM(borrow_count) AS borrow_count, SUM(return_count) AS return_count ",
+      "FROM tb_circulation_cube ",
+      "WHERE stat_date BETWEEN #{from} AND #{to} ",
+      "<if test='identity != null'>AND user_identity = #{identity} </if>",
+      "<if test='zone != null'>AND zone = #{zone} </if>",
+      "<if test='operator != null'>AND operator = #{operator} </if>",
+      "GROUP BY period",
+      "<if test='dimensions.contains(\"identity\")'>, user_identity</if>",
+      "<if test='dimensions.contains(\"zone\")'>, zone</if>",
+      "<if test='dimensions.contains(\"operator\")'>, operator</if>",
+      " ORDER BY period",
+      "</script>"
+  })
+  List<Map<String, Object>> selectSlice(@Param("granularity") String granularity, @Param("from") LocalDate from,
+      @Param("to") LocalDate to, @Param("dimensions") List<String> dimensions, @Param("identity") String identity,
+      @Param("zone") String zone, @Param("operator") String operator);
+}
@@ -0,0 +1,66 @@
+package com.example.library.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.library.entity.CirculationDaily;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 借阅流通日汇总 Mapper 接口
+ * 
+ * @author Library Management System
+ */
+@Mapper
+public interface CirculationDailyMapper extends BaseMapper<CirculationDaily> {
+
+  /**
+   * 累加每日借还册数
+   * 
+   * @param deltas 每日增量
+   * @return 影响行数
+   */
+  @Insert({
+      "<script>",
+      "INSERT INTO tb_circulation_daily (stat_date, borrow_count, return_count) VALUES ",
+      "<foreach collection='deltas' item='d' separator=','>",
+      "    (#{d.statDate}, #{d.borrowCount}, #{d.returnCount})",
+      "</foreach>",
+      " ON DUPLICATE KEY UPDATE borrow_count = borrow_count + VALUES(borrow_count), ",
+      "    return_count = return_count + VALUES(return_count)",
+      "</script>"
+  })
+  int incrementBatch(@Param("deltas") List<CirculationDaily> deltas);
+
+  /**
+   * 合并回填结果：取已有值与回填值的较大者（已有值只会来自回填开始后的增量，不会超过真实值）
+   * 
+   * @param totals 每日总量
+   * @return 影响行数
+   */
+  @Insert({
+      "<script>",
+      "INSERT INTO tb_circulation_daily (stat_date, borrow_count, return_count) VALUES ",
+      "<foreach collection='totals' item='t' separator=','>",
+      "    (#{t.statDate}, #{t.borrowCount}, #{t.returnCount})",
+      "</foreach>",
+      " ON DUPLICATE KEY UPDATE borrow_count = GREATEST(borrow_count, VALUES(borrow_count)), ",
+      "    return_count = GREATEST(return_count, VALUES(return_count))",
+      "</script>"
+  })
+  int mergeBatch(@Param("totals") List<CirculationDaily> totals);
+
+  /**
+   * 查询日期区间内的汇总
+   * 
+   * @param from 起始日期（含）
+   * @param to   结束日期（含）
+   * @return 汇总列表
+   */
+  @Select("SELECT * FROM tb_circulation_daily WHERE stat_date BETWEEN #{from} AND #{to} ORDER BY stat_date")
+  List<CirculationDaily> selectRange(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
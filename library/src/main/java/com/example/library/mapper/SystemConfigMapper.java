@@ -5,6 +5,7 @@ import com.example.library.entity.SystemConfig;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
 
 /**
  * 系统配置 Mapper 接口
@@ -40,4 +41,23 @@ public interface SystemConfigMapper extends BaseMapper<SystemConfig> {
      */
     @Select("SELECT COUNT(*) FROM tb_system_config WHERE config_key = #{configKey}")
     int existsByKey(@Param("configKey") String configKey);
+    
+    /**
+     * 修改配置值并递增版本号
+     * 
+     * @param configKey 配置键
+     * @param configValue 配置值
+     * @return 更新行数
+     */
+    @Update("UPDATE tb_system_config SET config_value = #{configValue}, version = version + 1 "
+        + "WHERE config_key = #{configKey}")
+    int updateValueByKey(@Param("configKey") String configKey, @Param("configValue") String configValue);
+    
+    /**
+     * 查询配置总版本（各配置版本号之和，任一配置修改后严格增大）
+     * 
+     * @return 配置总版本
+     */
+    @Select("SELECT COALESCE(SUM(version), 0) FROM tb_system_config")
+    long selectVersion();
 }
@@ -0,0 +1,64 @@
+package com.example.library.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.example.library.entity.TokenRevocation;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.time.LocalDateTime;
+
+/**
+ * Token 吊销记录 Mapper 接口
+ * 
+ * @author Library Management System
+ */
+@Mapper
+public interface TokenRevocationMapper extends BaseMapper<TokenRevocation> {
+
+  /**
+   * 记录吊销（重复登出忽略）
+   * 
+   * @param revocation 吊销记录
+   * @return 影响行数
+   */
+  @Insert("INSERT IGNORE INTO tb_token_revocation (jti, account_number, expire_time, revoke_time) "
+      + "VALUES (#{jti}, #{accountNumber}, #{expireTime}, #{revokeTime})")
+  int insertIgnore(TokenRevocation revocation);
+
+  /**
+   * 流式查询未过期的吊销记录（启动时重建吊销表）
+   * 
+   * @param now     当前时间
+   * @param handler 结果处理器
+   */
+  @Select("SELECT jti, expire_time FROM tb_token_revocation WHERE expire_time > #{now}")
+  @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+  void selectActive(@Param("now") LocalDateTime now, ResultHandler<TokenRevocation> handler);
+
+  /**
+   * 查询某时间之后的吊销记录（同步其他实例的登出）
+   * 
+   * @param since   起始吊销时间（含）
+   * @param now     当前时间，只取未过期的记录
+   * @param handler 结果处理器
+   */
+  @Select("SELECT jti, expire_time, revoke_time FROM tb_token_revocation "
+      + "WHERE revoke_time >= #{since} AND expire_time > #{now}")
+  void selectRevokedSince(@Param("since") LocalDateTime since, @Param("now") LocalDateTime now,
+      ResultHandler<TokenRevocation> handler);
+
+  /**
+   * 删除已过期的吊销记录
+   * 
+   * @param now 当前时间
+   * @return 删除行数
+   */
+  @Delete("DELETE FROM tb_token_revocation WHERE expire_time <= #{now}")
+  int deleteExpired(@Param("now") LocalDateTime now);
+}
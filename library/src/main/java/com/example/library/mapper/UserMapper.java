@@ -2,11 +2,17 @@ package com.example.library.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.example.library.entity.User;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
 /**
  * 用户 Mapper 接口
  * 
@@ -69,4 +75,97 @@ public interface UserMapper extends BaseMapper<User> {
      */
     @Update("UPDATE tb_user SET login_fail_count = #{failCount}, update_time = NOW() WHERE account_number = #{accountNumber}")
     void updateLoginFailCount(@Param("accountNumber") String accountNumber, @Param("failCount") int failCount);
+    
+    /**
+     * 锁定账号（仅当账号仍为正常状态时生效）
+     * 
+     * @param accountNumber 账号
+     * @param failCount     锁定时的失败次数
+     * @param lockTime      锁定时间
+     * @return 影响行数
+     */
+    @Update("UPDATE tb_user SET status = '锁定', lock_time = #{lockTime}, login_fail_count = #{failCount}, "
+        + "update_time = NOW() WHERE account_number = #{accountNumber} AND status = '正常' AND deleted = 0")
+    int lockAccount(@Param("accountNumber") String accountNumber, @Param("failCount") int failCount,
+        @Param("lockTime") LocalDateTime lockTime);
+    
+    /**
+     * 解除锁定（仅当账号仍为锁定状态时生效）
+     * 
+     * @param accountNumber 账号
+     * @return 影响行数
+     */
+    @Update("UPDATE tb_user SET status = '正常', lock_time = NULL, login_fail_count = 0, update_time = NOW() "
+        + "WHERE account_number = #{accountNumber} AND status = '锁定' AND deleted = 0")
+    int unlockAccount(@Param("accountNumber") String accountNumber);
+    
+    /**
+     * 预占借阅额度：在借数量加上本次册数不超过最大借阅数量时原子累加
+     * 
+     * @param cardNumber 校园卡号
+     * @param count 本次借阅册数
+     * @param maxBorrowCount 最大借阅数量
+     * @return 更新行数，0 表示超出额度
+     */
+    @Update("UPDATE tb_user SET borrowing_count = borrowing_count + #{count} "
+        + "WHERE card_number = #{cardNumber} AND deleted = 0 AND borrowing_count + #{count} <= #{maxBorrowCount}")
+    int reserveBorrowQuota(@Param("cardNumber") String cardNumber, @Param("count") int count,
+        @Param("maxBorrowCount") int maxBorrowCount);
+    
+    /**
+     * 批量释放借阅额度
+     * 
+     * @param releases 校园卡号 -> 归还册数
+     * @return 更新行数
+     */
+    @Update({
+        "<script>",
+        "UPDATE tb_user SET borrowing_count = GREATEST(borrowing_count - CASE card_number ",
+        "<foreach collection='releases' index='cardNumber' item='count'>",
+        "    WHEN #{cardNumber} THEN #{count}",
+        "</foreach>",
+        "    ELSE 0 END, 0) ",
+        "WHERE card_number IN ",
+        "<foreach collection='releases' index='cardNumber' open='(' separator=',' close=')'>",
+        "    #{cardNumber}",
+        "</foreach>",
+        "</script>"
+    })
+    int releaseBorrowQuota(@Param("releases") Map<String, Integer> releases);
+    
+    /**
+     * 查询已占用的账号与校园卡号（含已删除用户，唯一索引同样约束已删除行）
+     * 
+     * @param accountNumbers 学号/工号
+     * @param cardNumbers 校园卡号
+     * @return 命中任一键的用户（仅账号与卡号）
+     */
+    @Select({
+        "<script>",
+        "SELECT account_number, card_number FROM tb_user WHERE account_number IN ",
+        "<foreach collection='accountNumbers' item='a' open='(' separator=',' close=')'>#{a}</foreach>",
+        " OR card_number IN ",
+        "<foreach collection='cardNumbers' item='c' open='(' separator=',' close=')'>#{c}</foreach>",
+        "</script>"
+    })
+    List<User> selectExistingKeys(@Param("accountNumbers") Collection<String> accountNumbers,
+        @Param("cardNumbers") Collection<String> cardNumbers);
+    
+    /**
+     * 批量插入用户
+     * 
+     * @param users 用户列表
+     * @return 插入行数
+     */
+    @Insert({
+        "<script>",
+        "INSERT INTO tb_user (account_number, name, identity, card_number, password, initial_password, role, ",
+        "    status, login_fail_count, create_time, update_time) VALUES ",
+        "<foreach collection='users' item='u' separator=','>",
+        "    (#{u.accountNumber}, #{u.name}, #{u.identity}, #{u.cardNumber}, #{u.password}, #{u.initialPassword}, ",
+        "    #{u.role}, #{u.status}, #{u.loginFailCount}, #{u.createTime}, #{u.updateTime})",
+        "</foreach>",
+        "</script>"
+    })
+    int insertBatch(@Param("users") List<User> users);
 }
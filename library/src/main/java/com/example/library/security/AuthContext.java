@@ -0,0 +1,44 @@
+package com.example.library.security;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * 请求级认证上下文
+ * 认证主体保存在当前请求的属性中，随请求结束释放；控制器与服务在请求线程内读取
+ * 
+ * @author Library Management System
+ */
+public final class AuthContext {
+
+  /**
+   * 请求属性名
+   */
+  public static final String ATTRIBUTE = AuthContext.class.getName() + ".principal";
+
+  private AuthContext() {
+  }
+
+  /**
+   * 当前认证主体
+   * 
+   * @return 认证主体，非请求线程或未认证（公开接口、认证关闭）时返回 null
+   */
+  public static AuthPrincipal current() {
+    RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+    return attributes == null
+        ? null
+        : (AuthPrincipal) attributes.getAttribute(ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+  }
+
+  /**
+   * 操作员账号：已认证时取认证主体账号，忽略请求中自报的操作员
+   * 
+   * @param supplied 请求中携带的操作员账号
+   * @return 操作员账号
+   */
+  public static String operatorOr(String supplied) {
+    AuthPrincipal principal = current();
+    return principal != null ? principal.account() : supplied;
+  }
+}
@@ -0,0 +1,79 @@
+package com.example.library.security;
+
+import com.example.library.common.Result;
+import com.example.library.common.ResultCode;
+import com.example.library.util.JwtUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * 认证拦截器
+ * 校验 Authorization: Bearer Token（经 JwtUtil 已验签缓存，每个 Token 只验签一次），
+ * 已登出吊销的 Token 视为无效，通过后将不可变的认证主体放入请求上下文；缺失或无效时返回 401。公开接口在注册时按路径模式排除
+ * 
+ * @author Library Management System
+ */
+@Component
+@RequiredArgsConstructor
+public class AuthInterceptor implements HandlerInterceptor {
+
+  private static final String BEARER_PREFIX = "Bearer ";
+
+  private final JwtUtil jwtUtil;
+  private final TokenRevocationList tokenRevocationList;
+  private final ObjectMapper objectMapper;
+
+  @Override
+  public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+      throws IOException {
+    // 跨域预检请求不携带 Token
+    if ("OPTIONS".equals(request.getMethod())) {
+      return true;
+    }
+
+    String token = bearerToken(request.getHeader(HttpHeaders.AUTHORIZATION));
+    if (token == null) {
+      reject(response, ResultCode.UNAUTHORIZED);
+      return false;
+    }
+
+    Claims claims = jwtUtil.getClaimsFromToken(token);
+    String account = claims == null ? null : claims.get("account", String.class);
+    if (account == null || tokenRevocationList.isRevoked(claims)) {
+      reject(response, ResultCode.TOKEN_INVALID);
+      return false;
+    }
+
+    request.setAttribute(AuthContext.ATTRIBUTE, new AuthPrincipal(account, claims.get("role", String.class)));
+    return true;
+  }
+
+  /**
+   * 从 Authorization 请求头取出 Bearer Token
+   * 
+   * @return Token，请求头缺失或不是 Bearer 时返回 null
+   */
+  public static String bearerToken(String header) {
+    if (header == null || !header.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+      return null;
+    }
+    return header.substring(BEARER_PREFIX.length()).trim();
+  }
+
+  private void reject(HttpServletResponse response, ResultCode resultCode) throws IOException {
+    response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+    objectMapper.writeValue(response.getOutputStream(), Result.error(resultCode));
+  }
+}
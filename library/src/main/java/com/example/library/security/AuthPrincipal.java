@@ -0,0 +1,19 @@
+package com.example.library.security;
+
+/**
+ * 当前请求的认证主体（不可变）
+ * 由认证拦截器从 Token 中解析，请求内只解析一次
+ * 
+ * @author Library Management System
+ * @param account 账号
+ * @param role    角色（admin/user）
+ */
+public record AuthPrincipal(String account, String role) {
+
+  /**
+   * 是否管理员
+   */
+  public boolean isAdmin() {
+    return "admin".equals(role);
+  }
+}
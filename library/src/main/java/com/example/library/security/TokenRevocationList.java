@@ -0,0 +1,158 @@
+package com.example.library.security;
+
+import com.example.library.entity.TokenRevocation;
+import com.example.library.mapper.TokenRevocationMapper;
+import com.example.library.util.BloomFilter;
+import io.jsonwebtoken.Claims;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token 吊销表
+ * 登出的 Token 编号（jti）按其过期时间分桶，每桶一个布隆过滤器加一个精确集合：校验时只看 Token 所属的桶，
+ * 布隆过滤器判定不存在即放行（绝大多数请求只读几个位），命中再由精确集合确认，不会误拒。
+ * 桶在其中 Token 全部过期后整体丢弃，内存只与有效期内的登出数有关。吊销同时写入 tb_token_revocation，
+ * 启动时由未过期记录重建，运行中定时拉取其他实例新增的记录
+ * 
+ * @author Library Management System
+ */
+@Slf4j
+@Component
+public class TokenRevocationList {
+
+  /**
+   * 同步其他实例记录时回看的时长，覆盖各实例间的时钟偏差与事务提交延迟
+   */
+  private static final long SYNC_OVERLAP_SECONDS = 30;
+
+  private final TokenRevocationMapper tokenRevocationMapper;
+
+  private final long bucketMillis;
+
+  private final int expectedPerBucket;
+
+  /**
+   * 桶序号（过期时间 / 桶宽） -> 桶
+   */
+  private final Map<Long, Bucket> buckets = new ConcurrentHashMap<>();
+
+  private volatile LocalDateTime syncedUntil;
+
+  public TokenRevocationList(TokenRevocationMapper tokenRevocationMapper,
+      @Value("${system.auth.revocation.bucket-minutes:10}") long bucketMinutes,
+      @Value("${system.auth.revocation.expected-per-bucket:10000}") int expectedPerBucket) {
+    this.tokenRevocationMapper = tokenRevocationMapper;
+    this.bucketMillis = TimeUnit.MINUTES.toMillis(bucketMinutes);
+    this.expectedPerBucket = expectedPerBucket;
+  }
+
+  /**
+   * 启动时由未过期的吊销记录重建
+   */
+  @PostConstruct
+  public void load() {
+    LocalDateTime now = LocalDateTime.now();
+    long[] loaded = new long[1];
+    tokenRevocationMapper.selectActive(now, context -> {
+      add(context.getResultObject());
+      loaded[0]++;
+    });
+    syncedUntil = now;
+    log.info("Token 吊销表重建完成：{} 条记录，{} 个桶", loaded[0], buckets.size());
+  }
+
+  /**
+   * Token 是否已吊销（无 jti 的 Token 不可吊销）
+   */
+  public boolean isRevoked(Claims claims) {
+    String jti = claims.getId();
+    if (jti == null || buckets.isEmpty()) {
+      return false;
+    }
+    Bucket bucket = buckets.get(bucketOf(claims.getExpiration().getTime()));
+    return bucket != null && bucket.bloom.mightContain(jti) && bucket.exact.contains(jti);
+  }
+
+  /**
+   * 吊销 Token：先写吊销记录再加入内存
+   * 
+   * @param jti        Token 编号
+   * @param account    账号
+   * @param expiration Token 过期时间
+   */
+  public void revoke(String jti, String account, Date expiration) {
+    TokenRevocation revocation = new TokenRevocation();
+    revocation.setJti(jti);
+    revocation.setAccountNumber(account);
+    revocation.setExpireTime(LocalDateTime.ofInstant(expiration.toInstant(), ZoneId.systemDefault()));
+    revocation.setRevokeTime(LocalDateTime.now());
+    tokenRevocationMapper.insertIgnore(revocation);
+    add(revocation);
+  }
+
+  /**
+   * 拉取其他实例新增的吊销记录
+   */
+  @Scheduled(fixedDelayString = "${system.auth.revocation.sync-interval-ms:5000}")
+  public void sync() {
+    LocalDateTime now = LocalDateTime.now();
+    LocalDateTime since = syncedUntil == null ? now : syncedUntil.minusSeconds(SYNC_OVERLAP_SECONDS);
+    tokenRevocationMapper.selectRevokedSince(since, now, context -> add(context.getResultObject()));
+    syncedUntil = now;
+  }
+
+  /**
+   * 丢弃已全部过期的桶并清理过期记录
+   */
+  @Scheduled(fixedDelay = 60_000)
+  public void evictExpired() {
+    long current = bucketOf(System.currentTimeMillis());
+    buckets.keySet().removeIf(bucket -> bucket < current);
+    try {
+      tokenRevocationMapper.deleteExpired(LocalDateTime.now());
+    } catch (RuntimeException e) {
+      log.warn("清理过期 Token 吊销记录失败：{}", e.getMessage());
+    }
+  }
+
+  private void add(TokenRevocation revocation) {
+    long expireMillis = revocation.getExpireTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    if (expireMillis <= Instant.now().toEpochMilli()) {
+      return;
+    }
+    Bucket bucket = buckets.computeIfAbsent(bucketOf(expireMillis), key -> new Bucket(expectedPerBucket));
+    // 先入精确集合再置位，布隆命中时集合一定已可见
+    bucket.exact.add(revocation.getJti());
+    bucket.bloom.put(revocation.getJti());
+  }
+
+  private long bucketOf(long epochMillis) {
+    return epochMillis / bucketMillis;
+  }
+
+  /**
+   * 同一过期时段内的吊销 Token
+   */
+  private static final class Bucket {
+
+    private final BloomFilter bloom;
+
+    private final Set<String> exact = ConcurrentHashMap.newKeySet();
+
+    Bucket(int expectedInsertions) {
+      this.bloom = new BloomFilter(expectedInsertions, 0.01);
+    }
+  }
+}
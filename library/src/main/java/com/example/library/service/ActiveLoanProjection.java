@@ -0,0 +1,178 @@
+package com.example.library.service;
+
+import com.example.library.entity.BorrowRecord;
+import com.example.library.mapper.BorrowRecordMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 在借投影
+ * 按校园卡号维护当前在借图书的应还日期，借阅验证、在借数量和超期检查无需查询数据库。
+ * 启动时从 tb_borrow_record 重建，之后由借阅/归还在事务提交后增量维护；
+ * 其他实例的借还按更新时间定时增量拉取（至多滞后一个同步间隔）。
+ * 每笔在借以借阅记录ID标识，登记与注销均幂等
+ * 
+ * @author Library Management System
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ActiveLoanProjection {
+
+  private static final ZoneId ZONE = ZoneId.systemDefault();
+
+  private static final Loan[] EMPTY = new Loan[0];
+
+  /**
+   * 增量同步的时间重叠（秒），覆盖各实例时钟偏差与未提交事务
+   */
+  private static final long SYNC_OVERLAP_SECONDS = 30;
+
+  private final BorrowRecordMapper borrowRecordMapper;
+
+  /**
+   * 校园卡号 -> 在借图书（按应还时间升序）
+   */
+  private final Map<String, Loan[]> loans = new ConcurrentHashMap<>();
+
+  /**
+   * 已同步到的更新时间
+   */
+  private volatile LocalDateTime syncedUntil;
+
+  /**
+   * 一笔在借：借阅记录ID与应还时间（毫秒）
+   */
+  private record Loan(String recordId, long due) {
+  }
+
+  /**
+   * 从数据库重建投影
+   */
+  @PostConstruct
+  public void rebuild() {
+    LocalDateTime now = LocalDateTime.now();
+    Map<String, Loan[]> rebuilt = new ConcurrentHashMap<>();
+    borrowRecordMapper.selectActiveLoans(context -> {
+      BorrowRecord record = context.getResultObject();
+      rebuilt.merge(record.getCardNumber(), new Loan[] {toLoan(record)}, ActiveLoanProjection::merge);
+    });
+    loans.clear();
+    loans.putAll(rebuilt);
+    syncedUntil = now;
+    log.info("在借投影重建完成，{} 位读者有在借图书", rebuilt.size());
+  }
+
+  /**
+   * 借阅提交后登记
+   */
+  public void onBorrowed(Collection<BorrowRecord> records) {
+    records.forEach(this::add);
+  }
+
+  /**
+   * 归还提交后注销
+   */
+  public void onReturned(BorrowRecord record) {
+    loans.computeIfPresent(record.getCardNumber(), (key, current) -> {
+      Loan[] remaining = Arrays.stream(current)
+          .filter(loan -> !loan.recordId().equals(record.getRecordId()))
+          .toArray(Loan[]::new);
+      return remaining.length == 0 ? null : remaining;
+    });
+  }
+
+  /**
+   * 拉取其他实例的借还（借阅中的登记，已归还的注销）
+   */
+  @Scheduled(fixedDelayString = "${system.search.sync-interval-ms:5000}")
+  public void sync() {
+    if (syncedUntil == null) {
+      return;
+    }
+    LocalDateTime now = LocalDateTime.now();
+    borrowRecordMapper.selectLoansChangedSince(syncedUntil.minusSeconds(SYNC_OVERLAP_SECONDS), context -> {
+      BorrowRecord record = context.getResultObject();
+      if ("借阅中".equals(record.getStatus())) {
+        add(record);
+      } else {
+        onReturned(record);
+      }
+    });
+    syncedUntil = now;
+  }
+
+  /**
+   * 当前在借数量
+   */
+  public int countBorrowing(String cardNumber) {
+    return loans.getOrDefault(cardNumber, EMPTY).length;
+  }
+
+  /**
+   * 当前超期数量
+   */
+  public int countOverdue(String cardNumber) {
+    Loan[] current = loans.getOrDefault(cardNumber, EMPTY);
+    long now = System.currentTimeMillis();
+    int count = 0;
+    while (count < current.length && current[count].due() < now) {
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * 是否存在超期图书
+   */
+  public boolean hasOverdue(String cardNumber) {
+    Loan[] current = loans.get(cardNumber);
+    return current != null && current[0].due() < System.currentTimeMillis();
+  }
+
+  /**
+   * 最早应还日期，无在借图书时返回 null
+   */
+  public LocalDateTime earliestDueDate(String cardNumber) {
+    Loan[] current = loans.get(cardNumber);
+    return current == null ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(current[0].due()), ZONE);
+  }
+
+  private void add(BorrowRecord record) {
+    loans.merge(record.getCardNumber(), new Loan[] {toLoan(record)}, ActiveLoanProjection::merge);
+  }
+
+  /**
+   * 合并在借（已登记的借阅记录不重复登记）
+   */
+  private static Loan[] merge(Loan[] current, Loan[] added) {
+    Set<String> known = Arrays.stream(current).map(Loan::recordId).collect(Collectors.toSet());
+    Loan[] merged = Stream.concat(Arrays.stream(current),
+        Arrays.stream(added).filter(loan -> !known.contains(loan.recordId())))
+        .toArray(Loan[]::new);
+    if (merged.length == current.length) {
+      return current;
+    }
+    Arrays.sort(merged, Comparator.comparingLong(Loan::due));
+    return merged;
+  }
+
+  private static Loan toLoan(BorrowRecord record) {
+    return new Loan(record.getRecordId(), record.getDueDate().atZone(ZONE).toInstant().toEpochMilli());
+  }
+}
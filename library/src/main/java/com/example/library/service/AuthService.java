@@ -3,12 +3,14 @@ package com.example.library.service;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.example.library.entity.User;
 import com.example.library.mapper.UserMapper;
+import com.example.library.security.TokenRevocationList;
 import com.example.library.util.JwtUtil;
 import com.example.library.util.PasswordUtil;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
@@ -24,11 +26,19 @@ public class AuthService {
 
   private final UserMapper userMapper;
   private final JwtUtil jwtUtil;
+  private final LoginThrottle loginThrottle;
+  private final TokenRevocationList tokenRevocationList;
+  private final UserCache userCache;
+
+  /**
+   * 账号锁定时长（分钟）
+   */
+  private static final long LOCK_MINUTES = 30;
 
   /**
    * 用户登录
+   * 失败次数只在内存中计数，仅在锁定、解锁时写库；登录成功不写库
    */
-  @Transactional(rollbackFor = Exception.class)
   public Map<String, Object> login(String account, String password) {
     // 查询用户
     LambdaQueryWrapper<User> wrapper = new LambdaQueryWrapper<>();
@@ -43,38 +53,33 @@ public class AuthService {
     if ("锁定".equals(user.getStatus())) {
       // 检查锁定时间是否超过30分钟
       if (user.getLockTime() != null) {
-        long minutes = java.time.Duration.between(user.getLockTime(), LocalDateTime.now()).toMinutes();
-        if (minutes < 30) {
-          throw new RuntimeException("账号已被锁定，剩余" + (30 - minutes) + "分钟");
-        } else {
-          // 解锁账号
-          user.setStatus("正常");
-          user.setLoginFailCount(0);
-          user.setLockTime(null);
-          userMapper.updateById(user);
+        long minutes = Duration.between(user.getLockTime(), LocalDateTime.now()).toMinutes();
+        if (minutes < LOCK_MINUTES) {
+          throw new RuntimeException("账号已被锁定，剩余" + (LOCK_MINUTES - minutes) + "分钟");
         }
+        // 解锁账号
+        userMapper.unlockAccount(account);
+        userCache.evict(account, user.getCardNumber());
+        loginThrottle.reset(account);
       }
     }
 
     // 验证密码（前端已经 SHA256 加密，后端再次加密比对）
     String encryptedPassword = PasswordUtil.sha256(password);
     if (!encryptedPassword.equals(user.getPassword())) {
-      // 密码错误，增加失败次数
-      user.setLoginFailCount(user.getLoginFailCount() + 1);
-      if (user.getLoginFailCount() >= 3) {
-        // 锁定账号
-        user.setStatus("锁定");
-        user.setLockTime(LocalDateTime.now());
-        userMapper.updateById(user);
-        throw new RuntimeException("密码错误次数过多，账号已被锁定30分钟");
+      // 密码错误，窗口内失败次数达到上限时锁定账号
+      int failures = loginThrottle.recordFailure(account);
+      if (loginThrottle.reachedLimit(failures)) {
+        userMapper.lockAccount(account, failures, LocalDateTime.now());
+        userCache.evict(account, user.getCardNumber());
+        loginThrottle.reset(account);
+        throw new RuntimeException("密码错误次数过多，账号已被锁定" + LOCK_MINUTES + "分钟");
       }
-      userMapper.updateById(user);
       throw new RuntimeException("密码错误");
     }
 
-    // 登录成功，重置失败次数
-    user.setLoginFailCount(0);
-    userMapper.updateById(user);
+    // 登录成功，清除失败记录
+    loginThrottle.reset(account);
 
     // 生成 Token
     String token = jwtUtil.generateToken(user.getAccountNumber(), user.getRole());
@@ -91,6 +96,16 @@ public class AuthService {
     return result;
   }
   
+  /**
+   * 用户登出：吊销当前 Token，无效或已过期的 Token 无需处理
+   */
+  public void logout(String token) {
+    Claims claims = jwtUtil.getClaimsFromToken(token);
+    if (claims != null && claims.getId() != null) {
+      tokenRevocationList.revoke(claims.getId(), claims.get("account", String.class), claims.getExpiration());
+    }
+  }
+  
   /**
    * 验证用户账号和密码
    */
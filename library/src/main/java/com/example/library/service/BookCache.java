@@ -0,0 +1,148 @@
+package com.example.library.service;
+
+import com.example.library.entity.Book;
+import com.example.library.mapper.BookMapper;
+import com.example.library.util.TransactionHooks;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 图书缓存
+ * 按馆藏号读穿缓存图书实体（含不存在的馆藏号），按容量淘汰并在写入后过期。
+ * 状态变更与入库时立即失效，事务提交后再失效一次，避免提交前被并发读取回填旧值；
+ * 其他实例修改过的图书按更新时间定时增量拉取并失效（至多滞后一个同步间隔）。
+ * 缓存的实体为共享对象，调用方不得修改
+ * 
+ * @author Library Management System
+ */
+@Component
+public class BookCache {
+
+  /**
+   * 增量同步的时间重叠（秒），覆盖各实例时钟偏差与未提交事务
+   */
+  private static final long SYNC_OVERLAP_SECONDS = 30;
+
+  private final BookMapper bookMapper;
+
+  private final boolean enabled;
+
+  private final Cache<String, Optional<Book>> cache;
+
+  /**
+   * 已同步到的更新时间
+   */
+  private volatile LocalDateTime syncedUntil = LocalDateTime.now();
+
+  public BookCache(BookMapper bookMapper,
+      @Value("${system.cache.book.enabled:true}") boolean enabled,
+      @Value("${system.cache.book.maximum-size:50000}") long maximumSize,
+      @Value("${system.cache.book.ttl-seconds:300}") long ttlSeconds) {
+    this.bookMapper = bookMapper;
+    this.enabled = enabled;
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+        .recordStats()
+        .build();
+  }
+
+  /**
+   * 按馆藏号读取图书
+   * 
+   * @return 图书，不存在时返回 null
+   */
+  public Book get(String collectionNumber) {
+    if (!enabled) {
+      return bookMapper.selectByCollectionNumber(collectionNumber);
+    }
+    return cache.get(collectionNumber, key -> Optional.ofNullable(bookMapper.selectByCollectionNumber(key)))
+        .orElse(null);
+  }
+
+  /**
+   * 按馆藏号批量读取图书，未命中部分一次查询补齐
+   * 
+   * @return 馆藏号 -> 图书，不存在的馆藏号不出现在结果中
+   */
+  public Map<String, Book> getAll(Collection<String> collectionNumbers) {
+    Map<String, Book> books = new LinkedHashMap<>();
+    if (!enabled) {
+      for (Book book : bookMapper.selectByCollectionNumbers(collectionNumbers)) {
+        books.put(book.getCollectionNumber(), book);
+      }
+      return books;
+    }
+
+    Map<String, Optional<Book>> cached = cache.getAll(collectionNumbers, missing -> {
+      Map<String, Optional<Book>> loaded = new HashMap<>();
+      for (String collectionNumber : missing) {
+        loaded.put(collectionNumber, Optional.empty());
+      }
+      for (Book book : bookMapper.selectByCollectionNumbers(new ArrayList<>(missing))) {
+        loaded.put(book.getCollectionNumber(), Optional.of(book));
+      }
+      return loaded;
+    });
+    cached.forEach((collectionNumber, book) -> book.ifPresent(value -> books.put(collectionNumber, value)));
+    return books;
+  }
+
+  /**
+   * 失效缓存：立即失效，并在事务提交后再次失效
+   */
+  public void evict(Collection<String> collectionNumbers) {
+    if (!enabled) {
+      return;
+    }
+    cache.invalidateAll(collectionNumbers);
+    TransactionHooks.afterCommit(() -> cache.invalidateAll(collectionNumbers));
+  }
+
+  /**
+   * 失效其他实例修改过的图书
+   */
+  @Scheduled(fixedDelayString = "${system.search.sync-interval-ms:5000}")
+  public void sync() {
+    if (!enabled) {
+      return;
+    }
+    LocalDateTime now = LocalDateTime.now();
+    List<String> changed = new ArrayList<>();
+    bookMapper.selectChangedSince(syncedUntil.minusSeconds(SYNC_OVERLAP_SECONDS),
+        context -> changed.add(context.getResultObject().getCollectionNumber()));
+    cache.invalidateAll(changed);
+    syncedUntil = now;
+  }
+
+  /**
+   * 缓存统计
+   */
+  public Map<String, Object> stats() {
+    CacheStats stats = cache.stats();
+    Map<String, Object> result = new HashMap<>();
+    result.put("enabled", enabled);
+    result.put("size", cache.estimatedSize());
+    result.put("hitCount", stats.hitCount());
+    result.put("missCount", stats.missCount());
+    result.put("hitRate", stats.hitRate());
+    result.put("loadCount", stats.loadCount());
+    result.put("evictionCount", stats.evictionCount());
+    result.put("averageLoadPenaltyNanos", stats.averageLoadPenalty());
+    return result;
+  }
+}
@@ -0,0 +1,343 @@
+package com.example.library.service;
+
+import com.example.library.dto.BookAddRequest;
+import com.example.library.entity.Book;
+import com.example.library.mapper.BookMapper;
+import com.example.library.util.IdGenerator;
+import com.example.library.util.TransactionHooks;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * 图书批量导入服务
+ * 逐行读取 CSV 或 NDJSON 上传内容，校验后生成馆藏号，按批插入（每批一个事务），不在内存中缓存整个文件。
+ * 批量插入失败时该批逐行重试以定位出错行
+ * 
+ * @author Library Management System
+ */
+@Slf4j
+@Service
+public class BookImportService {
+
+  /**
+   * 返回的最大错误行数
+   */
+  static final int MAX_REPORTED_ERRORS = 1000;
+
+  /**
+   * 进度日志间隔（批）
+   */
+  private static final int PROGRESS_LOG_BATCHES = 10;
+
+  private static final List<String> CSV_COLUMNS = List.of("isbn", "title", "author", "publisher", "location");
+
+  private final BookMapper bookMapper;
+  private final IdGenerator idGenerator;
+  private final TransactionTemplate transactionTemplate;
+  private final CatalogSearchIndex catalogSearchIndex;
+  private final BookStatusCounters bookStatusCounters;
+  private final Validator validator;
+  private final ObjectMapper objectMapper;
+  private final int batchSize;
+
+  /**
+   * 进行中的导入任务
+   */
+  private final Map<String, Progress> running = new ConcurrentHashMap<>();
+
+  public BookImportService(BookMapper bookMapper, IdGenerator idGenerator, TransactionTemplate transactionTemplate,
+      CatalogSearchIndex catalogSearchIndex, BookStatusCounters bookStatusCounters, Validator validator,
+      ObjectMapper objectMapper, @Value("${system.import.batch-size:1000}") int batchSize) {
+    this.bookMapper = bookMapper;
+    this.idGenerator = idGenerator;
+    this.transactionTemplate = transactionTemplate;
+    this.catalogSearchIndex = catalogSearchIndex;
+    this.bookStatusCounters = bookStatusCounters;
+    this.validator = validator;
+    this.objectMapper = objectMapper;
+    this.batchSize = Math.max(1, batchSize);
+  }
+
+  /**
+   * 流式导入图书
+   * 
+   * @param input       上传内容（UTF-8）
+   * @param contentType text/csv（首行为列名）或 application/x-ndjson（每行一个 JSON 对象）
+   * @return 导入结果：importId、total、successCount、failCount、errors（行号与原因）、elapsedMillis
+   */
+  public Map<String, Object> importBooks(InputStream input, String contentType) throws IOException {
+    boolean csv = contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("text/csv");
+    Progress progress = new Progress(idGenerator.nextId("IM"), csv ? "csv" : "ndjson");
+    running.put(progress.importId, progress);
+    List<Map<String, Object>> errors = new ArrayList<>();
+
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+      int[] columns = null;
+      List<Book> batch = new ArrayList<>(batchSize);
+      List<Integer> batchLines = new ArrayList<>(batchSize);
+      int lineNumber = 0;
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lineNumber++;
+        if (lineNumber == 1 && !line.isEmpty() && line.charAt(0) == '\uFEFF') {
+          line = line.substring(1);
+        }
+        if (line.isBlank()) {
+          continue;
+        }
+        if (csv && columns == null) {
+          columns = parseHeader(line);
+          continue;
+        }
+
+        progress.total.incrementAndGet();
+        BookAddRequest request;
+        try {
+          request = csv ? parseCsvRow(line, columns) : parseJsonRow(line);
+        } catch (IllegalArgumentException e) {
+          reject(progress, errors, lineNumber, e.getMessage());
+          continue;
+        }
+        Set<ConstraintViolation<BookAddRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+          reject(progress, errors, lineNumber, violations.stream()
+              .map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("；")));
+          continue;
+        }
+
+        batch.add(toBook(request));
+        batchLines.add(lineNumber);
+        if (batch.size() == batchSize) {
+          flush(batch, batchLines, progress, errors);
+        }
+      }
+      flush(batch, batchLines, progress, errors);
+    } finally {
+      running.remove(progress.importId);
+    }
+
+    long elapsed = System.currentTimeMillis() - progress.startMillis;
+    log.info("图书导入 {} 完成：共 {} 行，成功 {}，失败 {}，耗时 {} ms", progress.importId, progress.total.get(),
+        progress.succeeded.get(), progress.failed.get(), elapsed);
+
+    Map<String, Object> result = progress.snapshot();
+    result.put("errors", errors);
+    result.put("errorsTruncated", progress.failed.get() > errors.size());
+    result.put("elapsedMillis", elapsed);
+    return result;
+  }
+
+  /**
+   * 查询进行中的导入进度
+   */
+  public List<Map<String, Object>> getRunningImports() {
+    List<Map<String, Object>> imports = new ArrayList<>();
+    for (Progress progress : running.values()) {
+      imports.add(progress.snapshot());
+    }
+    return imports;
+  }
+
+  /**
+   * 插入一批图书：整批一个事务，失败时逐行重试
+   */
+  private void flush(List<Book> batch, List<Integer> batchLines, Progress progress,
+      List<Map<String, Object>> errors) {
+    if (batch.isEmpty()) {
+      return;
+    }
+
+    List<Book> books = new ArrayList<>(batch);
+    try {
+      transactionTemplate.executeWithoutResult(status -> {
+        bookMapper.insertBatch(books);
+        bookStatusCounters.onAdded("可借阅", books.size());
+        TransactionHooks.afterCommit(() -> books.forEach(catalogSearchIndex::put));
+      });
+      progress.succeeded.addAndGet(books.size());
+    } catch (RuntimeException e) {
+      log.warn("图书导入 {} 批量插入失败，逐行重试：{}", progress.importId, e.getMessage());
+      for (int i = 0; i < books.size(); i++) {
+        Book book = books.get(i);
+        try {
+          transactionTemplate.executeWithoutResult(status -> {
+            bookMapper.insert(book);
+            bookStatusCounters.onAdded("可借阅", 1);
+            TransactionHooks.afterCommit(() -> catalogSearchIndex.put(book));
+          });
+          progress.succeeded.incrementAndGet();
+        } catch (RuntimeException rowError) {
+          reject(progress, errors, batchLines.get(i), rowError.getMessage());
+        }
+      }
+    }
+
+    batch.clear();
+    batchLines.clear();
+    if (progress.batches.incrementAndGet() % PROGRESS_LOG_BATCHES == 0) {
+      log.info("图书导入 {} 进度：已读取 {} 行，成功 {}，失败 {}", progress.importId, progress.total.get(),
+          progress.succeeded.get(), progress.failed.get());
+    }
+  }
+
+  private static void reject(Progress progress, List<Map<String, Object>> errors, int lineNumber, String message) {
+    progress.failed.incrementAndGet();
+    if (errors.size() < MAX_REPORTED_ERRORS) {
+      Map<String, Object> error = new HashMap<>();
+      error.put("line", lineNumber);
+      error.put("message", message);
+      errors.add(error);
+    }
+  }
+
+  private Book toBook(BookAddRequest request) {
+    LocalDateTime now = LocalDateTime.now();
+    Book book = new Book();
+    book.setCollectionNumber(idGenerator.nextId("TS"));
+    book.setIsbn(request.getIsbn().trim());
+    book.setTitle(request.getTitle().trim());
+    book.setAuthor(request.getAuthor().trim());
+    book.setPublisher(request.getPublisher().trim());
+    book.setLocation(request.getLocation().trim());
+    book.setStatus("可借阅");
+    book.setCreateTime(now);
+    book.setUpdateTime(now);
+    return book;
+  }
+
+  private BookAddRequest parseJsonRow(String line) {
+    try {
+      return objectMapper.readValue(line, BookAddRequest.class);
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("JSON 格式错误：" + e.getOriginalMessage());
+    }
+  }
+
+  /**
+   * 解析 CSV 列名行
+   * 
+   * @return 各导入字段所在列下标
+   */
+  static int[] parseHeader(String line) {
+    List<String> header = parseCsvLine(line);
+    int[] columns = new int[CSV_COLUMNS.size()];
+    List<String> missing = new ArrayList<>();
+    for (int i = 0; i < CSV_COLUMNS.size(); i++) {
+      columns[i] = -1;
+      for (int j = 0; j < header.size(); j++) {
+        if (header.get(j).trim().equalsIgnoreCase(CSV_COLUMNS.get(i))) {
+          columns[i] = j;
+        }
+      }
+      if (columns[i] < 0) {
+        missing.add(CSV_COLUMNS.get(i));
+      }
+    }
+    if (!missing.isEmpty()) {
+      throw new IllegalArgumentException("CSV 首行缺少列：" + String.join(",", missing));
+    }
+    return columns;
+  }
+
+  static BookAddRequest parseCsvRow(String line, int[] columns) {
+    List<String> fields = parseCsvLine(line);
+    BookAddRequest request = new BookAddRequest();
+    request.setIsbn(field(fields, columns[0]));
+    request.setTitle(field(fields, columns[1]));
+    request.setAuthor(field(fields, columns[2]));
+    request.setPublisher(field(fields, columns[3]));
+    request.setLocation(field(fields, columns[4]));
+    return request;
+  }
+
+  private static String field(List<String> fields, int column) {
+    return column < fields.size() ? fields.get(column) : null;
+  }
+
+  /**
+   * 解析一行 CSV（RFC 4180：双引号包裹字段，字段内双引号写作两个双引号；不支持字段内换行）
+   */
+  static List<String> parseCsvLine(String line) {
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean quoted = false;
+    for (int i = 0; i < line.length(); i++) {
+      char c = line.charAt(i);
+      if (quoted) {
+        if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+          field.append('"');
+          i++;
+        } else if (c == '"') {
+          quoted = false;
+        } else {
+          field.append(c);
+        }
+      } else if (c == '"') {
+        quoted = true;
+      } else if (c == ',') {
+        fields.add(field.toString());
+        field.setLength(0);
+      } else {
+        field.append(c);
+      }
+    }
+    if (quoted) {
+      throw new IllegalArgumentException("引号未闭合");
+    }
+    fields.add(field.toString());
+    return fields;
+  }
+
+  /**
+   * 导入进度
+   */
+  private static final class Progress {
+
+    private final String importId;
+
+    private final String format;
+
+    private final long startMillis = System.currentTimeMillis();
+
+    private final AtomicLong total = new AtomicLong();
+
+    private final AtomicLong succeeded = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private final AtomicLong batches = new AtomicLong();
+
+    private Progress(String importId, String format) {
+      this.importId = importId;
+      this.format = format;
+    }
+
+    private Map<String, Object> snapshot() {
+      Map<String, Object> snapshot = new HashMap<>();
+      snapshot.put("importId", importId);
+      snapshot.put("format", format);
+      snapshot.put("total", total.get());
+      snapshot.put("successCount", succeeded.get());
+      snapshot.put("failCount", failed.get());
+      snapshot.put("startTime", startMillis);
+      return snapshot;
+    }
+  }
+}
@@ -2,18 +2,20 @@ package com.example.library.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.example.library.common.BusinessException;
 import com.example.library.common.ResultCode;
 import com.example.library.dto.BookAddRequest;
 import com.example.library.entity.Book;
 import com.example.library.entity.BookStatusHistory;
 import com.example.library.mapper.BookMapper;
 import com.example.library.mapper.BookStatusHistoryMapper;
+import com.example.library.util.IdGenerator;
+import com.example.library.util.TransactionHooks;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.*;
 
 /**
@@ -25,8 +27,18 @@ import java.util.*;
 @RequiredArgsConstructor
 public class BookService {
 
+  /**
+   * 图书详情附带的最近状态历史条数，更早的历史经分页接口查询
+   */
+  private static final int DETAIL_HISTORY_SIZE = 10;
+
   private final BookMapper bookMapper;
   private final BookStatusHistoryMapper bookStatusHistoryMapper;
+  private final IdGenerator idGenerator;
+  private final CatalogSearchIndex catalogSearchIndex;
+  private final BookCache bookCache;
+  private final BookStatusHistoryService bookStatusHistoryService;
+  private final BookStatusCounters bookStatusCounters;
 
   /**
    * 图书入库
@@ -48,6 +60,9 @@ public class BookService {
     book.setUpdateTime(LocalDateTime.now());
 
     bookMapper.insert(book);
+    bookCache.evict(List.of(collectionNumber));
+    bookStatusCounters.onAdded(book.getStatus(), 1);
+    TransactionHooks.afterCommit(() -> catalogSearchIndex.put(book));
 
     Map<String, Object> result = new HashMap<>();
     result.put("collectionNumber", book.getCollectionNumber());
@@ -64,11 +79,30 @@ public class BookService {
 
   /**
    * 分页查询图书
+   * 有检索条件时走馆藏检索索引（ISBN 前缀匹配、书名包含匹配，按匹配程度排序），索引未就绪时回退为数据库模糊查询
    */
   public Map<String, Object> pageBooks(String isbn, String title, Integer page, Integer size) {
     page = page == null || page < 1 ? 1 : page;
     size = size == null || size < 1 ? 10 : size;
 
+    if ((isbn != null && !isbn.isEmpty()) || (title != null && !title.isEmpty())) {
+      int limit = (int) Math.min((long) page * size, Integer.MAX_VALUE);
+      CatalogSearchIndex.Hits hits = catalogSearchIndex.search(isbn, title, limit);
+      if (hits != null) {
+        List<String> ranked = hits.getCollectionNumbers();
+        int from = (int) Math.min((long) (page - 1) * size, ranked.size());
+        int to = Math.min(from + size, ranked.size());
+
+        Map<String, Object> result = new HashMap<>();
+        result.put("total", (long) hits.getTotal());
+        result.put("page", (long) page);
+        result.put("size", (long) size);
+        result.put("list", getBooksInOrder(ranked.subList(from, to)));
+        result.put("truncated", hits.isTruncated());
+        return result;
+      }
+    }
+
     Page<Book> bookPage = new Page<>(page, size);
     LambdaQueryWrapper<Book> wrapper = new LambdaQueryWrapper<>();
 
@@ -95,19 +129,15 @@ public class BookService {
    * 根据馆藏号查询图书
    */
   public Map<String, Object> getBookByCollectionNumber(String collectionNumber) {
-    LambdaQueryWrapper<Book> wrapper = new LambdaQueryWrapper<>();
-    wrapper.eq(Book::getCollectionNumber, collectionNumber);
-    Book book = bookMapper.selectOne(wrapper);
+    Book book = bookCache.get(collectionNumber);
 
     if (book == null) {
       throw new RuntimeException("图书不存在");
     }
 
-    // 查询状态历史
-    LambdaQueryWrapper<BookStatusHistory> historyWrapper = new LambdaQueryWrapper<>();
-    historyWrapper.eq(BookStatusHistory::getCollectionNumber, collectionNumber);
-    historyWrapper.orderByDesc(BookStatusHistory::getOperateTime);
-    List<BookStatusHistory> historyList = bookStatusHistoryMapper.selectList(historyWrapper);
+    // 查询最近的状态历史
+    Map<String, Object> history = bookStatusHistoryService.seekStatusHistory(collectionNumber, null,
+        DETAIL_HISTORY_SIZE);
 
     Map<String, Object> result = new HashMap<>();
     result.put("collectionNumber", book.getCollectionNumber());
@@ -117,7 +147,9 @@ public class BookService {
     result.put("publisher", book.getPublisher());
     result.put("location", book.getLocation());
     result.put("status", book.getStatus());
-    result.put("statusHistory", historyList);
+    result.put("statusHistory", history.get("list"));
+    result.put("statusHistoryHasMore", history.get("hasMore"));
+    result.put("statusHistoryCursor", history.get("nextCursor"));
     result.put("createTime", book.getCreateTime());
     result.put("updateTime", book.getUpdateTime());
 
@@ -126,48 +158,150 @@ public class BookService {
 
   /**
    * 更新图书状态
+   * 以读取到的状态作为预期值更新，期间被其他操作修改则失败
    */
   @Transactional(rollbackFor = Exception.class)
   public Map<String, Object> updateBookStatus(String collectionNumber, String status, String operator) {
-    LambdaQueryWrapper<Book> wrapper = new LambdaQueryWrapper<>();
-    wrapper.eq(Book::getCollectionNumber, collectionNumber);
-    Book book = bookMapper.selectOne(wrapper);
+    Book book = bookCache.get(collectionNumber);
 
     if (book == null) {
       throw new RuntimeException("图书不存在");
     }
 
-    book.setStatus(status);
-    book.setUpdateTime(LocalDateTime.now());
-    bookMapper.updateById(book);
+    LocalDateTime updateTime = transitionStatus(collectionNumber, book.getStatus(), status, operator);
+
+    Map<String, Object> result = new HashMap<>();
+    result.put("collectionNumber", book.getCollectionNumber());
+    result.put("status", status);
+    result.put("updateTime", updateTime);
+
+    return result;
+  }
+
+  /**
+   * 图书状态迁移（比较并交换）
+   * 仅当图书当前仍为预期状态时迁移到目标状态，否则抛出 BOOK_STATUS_CONFLICT。
+   * 并发修改同一册时条件更新仍按行锁排队，后执行的一方读到已变更的状态而失败，不会覆盖先提交的修改
+   * 
+   * @return 更新时间
+   */
+  @Transactional(rollbackFor = Exception.class)
+  public LocalDateTime transitionStatus(String collectionNumber, String expectedStatus, String status,
+      String operator) {
+    LocalDateTime now = LocalDateTime.now();
+    if (!tryTransition(collectionNumber, expectedStatus, status, operator, now)) {
+      throw new BusinessException(ResultCode.BOOK_STATUS_CONFLICT,
+          "图书 " + collectionNumber + " 状态已不是" + expectedStatus + "，请重新扫描");
+    }
+    return now;
+  }
+
+  /**
+   * 归还后复位图书状态
+   * 仍为已借出时迁移为可借阅；借出期间已被改为维修、遗失等状态的保持不变，不影响归还
+   * 
+   * @return 是否已复位
+   */
+  @Transactional(rollbackFor = Exception.class)
+  public boolean releaseReturned(String collectionNumber, String operator) {
+    return tryTransition(collectionNumber, "已借出", "可借阅", operator, LocalDateTime.now());
+  }
+
+  /**
+   * 按预期状态迁移单册图书并记录状态历史
+   * 
+   * @return 是否迁移成功，false 表示图书当前已不是预期状态
+   */
+  private boolean tryTransition(String collectionNumber, String expectedStatus, String status, String operator,
+      LocalDateTime now) {
+    bookCache.evict(List.of(collectionNumber));
+    if (bookMapper.compareAndSetStatus(collectionNumber, expectedStatus, status, now) == 0) {
+      return false;
+    }
 
     // 记录状态历史
     BookStatusHistory history = new BookStatusHistory();
     history.setCollectionNumber(collectionNumber);
     history.setStatus(status);
     history.setOperator(operator);
-    history.setOperateTime(LocalDateTime.now());
+    history.setOperateTime(now);
     bookStatusHistoryMapper.insert(history);
+    bookStatusCounters.onTransition(expectedStatus, status, 1);
+    TransactionHooks.afterCommit(() -> catalogSearchIndex.onStatusChanged(List.of(collectionNumber), status));
 
-    Map<String, Object> result = new HashMap<>();
-    result.put("collectionNumber", book.getCollectionNumber());
-    result.put("status", book.getStatus());
-    result.put("updateTime", book.getUpdateTime());
+    return true;
+  }
 
-    return result;
+  /**
+   * 批量图书状态迁移（比较并交换）
+   * 一条 UPDATE 翻转全部状态，任一图书已不是预期状态则整体失败，状态历史按批插入
+   */
+  @Transactional(rollbackFor = Exception.class)
+  public void transitionStatusBatch(Collection<String> collectionNumbers, String expectedStatus, String status,
+      String operator) {
+    if (collectionNumbers.isEmpty()) {
+      return;
+    }
+
+    LocalDateTime now = LocalDateTime.now();
+    bookCache.evict(collectionNumbers);
+    int updated = bookMapper.compareAndSetStatusBatch(collectionNumbers, expectedStatus, status, now);
+    if (updated != collectionNumbers.size()) {
+      throw new BusinessException(ResultCode.BOOK_STATUS_CONFLICT,
+          (collectionNumbers.size() - updated) + " 本图书状态已不是" + expectedStatus + "，请重新扫描");
+    }
+
+    // 记录状态历史
+    List<BookStatusHistory> histories = new ArrayList<>(collectionNumbers.size());
+    for (String collectionNumber : collectionNumbers) {
+      BookStatusHistory history = new BookStatusHistory();
+      history.setCollectionNumber(collectionNumber);
+      history.setStatus(status);
+      history.setOperator(operator);
+      history.setOperateTime(now);
+      histories.add(history);
+    }
+    bookStatusHistoryMapper.insertBatch(histories);
+    bookStatusCounters.onTransition(expectedStatus, status, collectionNumbers.size());
+    TransactionHooks.afterCommit(() -> catalogSearchIndex.onStatusChanged(collectionNumbers, status));
   }
 
   /**
    * 生成馆藏号
-   * 规则：TS + 年月日时分秒(14位) + 随机3位数
+   * 规则：TS + 19位有序ID
    */
   private String generateCollectionNumber() {
-    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
-    String timestamp = LocalDateTime.now().format(formatter);
-    int random = new Random().nextInt(1000);
-    return String.format("TS%s%03d", timestamp, random);
+    return idGenerator.nextId("TS");
   }
   
+  /**
+   * 根据馆藏号批量查询图书（经图书缓存）
+   */
+  public List<Book> getBooksByCollectionNumbers(Collection<String> collectionNumbers) {
+    if (collectionNumbers.isEmpty()) {
+      return new ArrayList<>();
+    }
+    return new ArrayList<>(bookCache.getAll(collectionNumbers).values());
+  }
+
+  /**
+   * 根据馆藏号批量查询图书，按传入顺序返回
+   */
+  private List<Book> getBooksInOrder(List<String> collectionNumbers) {
+    Map<String, Book> byCollectionNumber = new HashMap<>();
+    for (Book book : getBooksByCollectionNumbers(collectionNumbers)) {
+      byCollectionNumber.put(book.getCollectionNumber(), book);
+    }
+    List<Book> books = new ArrayList<>(collectionNumbers.size());
+    for (String collectionNumber : collectionNumbers) {
+      Book book = byCollectionNumber.get(collectionNumber);
+      if (book != null) {
+        books.add(book);
+      }
+    }
+    return books;
+  }
+
   /**
    * 根据ISBN查询图书
    */
@@ -179,20 +313,24 @@ public class BookService {
    * 根据书名模糊查询图书
    */
   public List<Book> getBooksByTitle(String title) {
-    return bookMapper.selectByTitle(title);
+    CatalogSearchIndex.Hits hits = catalogSearchIndex.search(null, title, CatalogSearchIndex.MAX_CANDIDATES);
+    if (hits == null) {
+      return bookMapper.selectByTitle(title);
+    }
+    return getBooksInOrder(hits.getCollectionNumbers());
   }
   
   /**
-   * 获取图书状态统计
+   * 获取图书状态统计（读取内存计数器）
    */
   public List<Map<String, Object>> getStatusStatistics() {
-    return bookMapper.selectStatusStatistics();
+    return bookStatusCounters.snapshot();
   }
   
   /**
    * 检查馆藏号是否存在
    */
   public boolean existsByCollectionNumber(String collectionNumber) {
-    return bookMapper.existsByCollectionNumber(collectionNumber) > 0;
+    return bookCache.get(collectionNumber) != null;
   }
 }
@@ -0,0 +1,180 @@
+package com.example.library.service;
+
+import com.example.library.mapper.BookMapper;
+import com.example.library.util.TransactionHooks;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 图书状态计数器
+ * 按状态维护未删除图书数量，启动时从 tb_book 加载，之后由入库和状态迁移在事务提交后增量更新，
+ * 状态统计无需 GROUP BY 全表。后台任务定期与数据库对账，发现偏差时记录日志并以数据库为准校正；
+ * 多实例部署时其他实例的入库与状态迁移在对账时计入
+ * 
+ * @author Library Management System
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookStatusCounters {
+
+  /**
+   * 单次对账最多尝试次数（统计查询期间有本实例的在途更新时重试）
+   */
+  private static final int RECONCILE_ATTEMPTS = 3;
+
+  private final BookMapper bookMapper;
+
+  /**
+   * 状态 -> 图书数量
+   */
+  private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+
+  /**
+   * 计数器变更次数，对账期间有变更则跳过本轮校正
+   */
+  private final AtomicLong mutations = new AtomicLong();
+
+  /**
+   * 本实例在途的计数更新（事务未结束，计数回调尚未执行）
+   */
+  private final AtomicInteger inFlight = new AtomicInteger();
+
+  /**
+   * 从数据库加载计数
+   */
+  @PostConstruct
+  public void load() {
+    Map<String, Long> actual = queryCounts();
+    counters.clear();
+    actual.forEach((status, count) -> counter(status).add(count));
+    log.info("图书状态计数器加载完成：{}", actual);
+  }
+
+  /**
+   * 入库提交后计数
+   */
+  public void onAdded(String status, int count) {
+    inFlight.incrementAndGet();
+    TransactionHooks.afterCommit(() -> {
+      mutations.incrementAndGet();
+      counter(status).add(count);
+    });
+    TransactionHooks.afterCompletion(inFlight::decrementAndGet);
+  }
+
+  /**
+   * 状态迁移提交后计数
+   */
+  public void onTransition(String fromStatus, String toStatus, int count) {
+    if (fromStatus.equals(toStatus)) {
+      return;
+    }
+    inFlight.incrementAndGet();
+    TransactionHooks.afterCommit(() -> {
+      mutations.incrementAndGet();
+      counter(fromStatus).add(-count);
+      counter(toStatus).add(count);
+    });
+    TransactionHooks.afterCompletion(inFlight::decrementAndGet);
+  }
+
+  /**
+   * 状态统计，结构与 BookMapper.selectStatusStatistics 一致
+   */
+  public List<Map<String, Object>> snapshot() {
+    List<Map<String, Object>> statistics = new ArrayList<>();
+    counters.forEach((status, counter) -> {
+      long count = counter.sum();
+      if (count > 0) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("status", status);
+        row.put("count", count);
+        statistics.add(row);
+      }
+    });
+    return statistics;
+  }
+
+  /**
+   * 与数据库对账
+   * 统计查询前后本实例均无在途更新、计数器也未变更时，统计结果与计数器对应同一时刻，存在偏差即按其校正
+   * （其他实例的更新计入偏差）；否则无法区分偏差与在途更新，重试至多 RECONCILE_ATTEMPTS 次后跳过本轮
+   * 
+   * @return 是否校正了偏差
+   */
+  @Scheduled(initialDelayString = "${system.statistics.reconcile-interval-ms:300000}",
+      fixedDelayString = "${system.statistics.reconcile-interval-ms:300000}")
+  public boolean reconcile() {
+    for (int attempt = 0; attempt < RECONCILE_ATTEMPTS; attempt++) {
+      long before = mutations.get();
+      if (inFlight.get() > 0) {
+        continue;
+      }
+      Map<String, Long> actual = queryCounts();
+      Map<String, Long> current = new HashMap<>();
+      counters.forEach((status, counter) -> current.put(status, counter.sum()));
+      if (inFlight.get() == 0 && mutations.get() == before) {
+        return correct(actual, current);
+      }
+    }
+    log.debug("图书状态对账期间计数器有在途更新，跳过本轮");
+    return false;
+  }
+
+  /**
+   * 按统计结果校正计数器
+   * 偏差以增量方式抵消，校正时刚到达的计数更新不会被覆盖
+   */
+  private boolean correct(Map<String, Long> actual, Map<String, Long> current) {
+    Map<String, Long> drift = new HashMap<>();
+    for (String status : union(actual, current)) {
+      long expected = actual.getOrDefault(status, 0L);
+      long observed = current.getOrDefault(status, 0L);
+      if (expected != observed) {
+        drift.put(status, observed - expected);
+      }
+    }
+    if (drift.isEmpty()) {
+      return false;
+    }
+
+    drift.forEach((status, delta) -> counter(status).add(-delta));
+    log.warn("图书状态计数器与数据库存在偏差（计数器 - 数据库）：{}，已按数据库校正", drift);
+    return true;
+  }
+
+  private LongAdder counter(String status) {
+    return counters.computeIfAbsent(status, key -> new LongAdder());
+  }
+
+  private Map<String, Long> queryCounts() {
+    Map<String, Long> counts = new HashMap<>();
+    for (Map<String, Object> row : bookMapper.selectStatusStatistics()) {
+      counts.put((String) row.get("status"), ((Number) row.get("count")).longValue());
+    }
+    return counts;
+  }
+
+  private static List<String> union(Map<String, Long> actual, Map<String, Long> current) {
+    List<String> statuses = new ArrayList<>(actual.keySet());
+    for (String status : current.keySet()) {
+      if (!actual.containsKey(status)) {
+        statuses.add(status);
+      }
+    }
+    return statuses;
+  }
+}
@@ -2,10 +2,13 @@ package com.example.library.service;
 
 import com.example.library.entity.BookStatusHistory;
 import com.example.library.mapper.BookStatusHistoryMapper;
+import com.example.library.util.SeekCursor;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 图书状态历史服务类
@@ -16,6 +19,11 @@ import java.util.List;
 @RequiredArgsConstructor
 public class BookStatusHistoryService {
     
+    /**
+     * 单页最大记录数
+     */
+    private static final int MAX_PAGE_SIZE = 100;
+    
     private final BookStatusHistoryMapper bookStatusHistoryMapper;
     
     /**
@@ -31,4 +39,32 @@ public class BookStatusHistoryService {
     public List<BookStatusHistory> getRecentStatusHistoryByCollectionNumber(String collectionNumber, int limit) {
         return bookStatusHistoryMapper.selectRecentByCollectionNumber(collectionNumber, limit);
     }
-}
\ No newline at end of file
+    
+    /**
+     * 键集分页查询状态历史
+     * 按 (operate_time, id) 倒序定位下一页，走 (collection_number, operate_time, id) 索引
+     * 
+     * @return list、size、hasMore、nextCursor
+     */
+    public Map<String, Object> seekStatusHistory(String collectionNumber, String cursor, Integer size) {
+        size = size == null || size < 1 ? 20 : Math.min(size, MAX_PAGE_SIZE);
+        SeekCursor seek = SeekCursor.decode(cursor);
+        
+        List<BookStatusHistory> histories = bookStatusHistoryMapper.seekByCollectionNumber(collectionNumber,
+            seek == null ? null : seek.getTime(), seek == null ? null : seek.getId(), size + 1);
+        
+        boolean hasMore = histories.size() > size;
+        if (hasMore) {
+            histories = histories.subList(0, size);
+        }
+        BookStatusHistory last = histories.isEmpty() ? null : histories.get(histories.size() - 1);
+        
+        Map<String, Object> page = new HashMap<>();
+        page.put("size", size);
+        page.put("list", histories);
+        page.put("hasMore", hasMore);
+        page.put("nextCursor", hasMore ? new SeekCursor(last.getOperateTime(), last.getId()).encode() : null);
+        
+        return page;
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.library.service;
+
+import com.example.library.entity.BorrowRecord;
+import com.example.library.mapper.BorrowRecordMapper;
+import com.example.library.util.NGramIndex;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 借阅记录检索索引
+ * 对借阅记录中出现过的馆藏号、书名和账号建立 N-Gram 倒排索引，把关键字子串匹配转换为等值 IN 条件，
+ * 避免 LIKE '%keyword%' 全表扫描。索引粒度为去重后的词条而非记录行，借阅时增量登记新词条，
+ * 归还不改变词条集合无需维护。其他实例的借阅按借阅时间定时增量拉取（至多滞后一个同步间隔）
+ * 
+ * @author Library Management System
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BorrowRecordSearchIndex {
+
+  /**
+   * 命中词条上限，超过时 IN 列表失去优势，由调用方回退为 LIKE
+   */
+  static final int MAX_MATCHED_TERMS = 1000;
+
+  /**
+   * 增量同步的时间重叠（秒），覆盖各实例时钟偏差与未提交事务
+   */
+  private static final long SYNC_OVERLAP_SECONDS = 30;
+
+  private final BorrowRecordMapper borrowRecordMapper;
+
+  /**
+   * 馆藏号 -> 馆藏号
+   */
+  private final NGramIndex<String> collectionNumbers = new NGramIndex<>();
+
+  /**
+   * 馆藏号 -> 书名
+   */
+  private final NGramIndex<String> titles = new NGramIndex<>();
+
+  /**
+   * 账号 -> 账号
+   */
+  private final NGramIndex<String> accounts = new NGramIndex<>();
+
+  private volatile boolean ready;
+
+  /**
+   * 已同步到的借阅时间
+   */
+  private volatile LocalDateTime syncedUntil;
+
+  /**
+   * 从数据库重建索引
+   */
+  @PostConstruct
+  public void rebuild() {
+    ready = false;
+    LocalDateTime now = LocalDateTime.now();
+    collectionNumbers.clear();
+    titles.clear();
+    accounts.clear();
+    borrowRecordMapper.selectDistinctBooks(context -> addBook(context.getResultObject()));
+    borrowRecordMapper.selectDistinctAccounts(context -> addAccount(context.getResultObject()));
+    syncedUntil = now;
+    ready = true;
+    log.info("借阅记录检索索引重建完成，{} 种图书，{} 个账号", titles.size(), accounts.size());
+  }
+
+  /**
+   * 借阅提交后登记新词条
+   */
+  public void onBorrowed(Collection<BorrowRecord> records) {
+    for (BorrowRecord record : records) {
+      addBook(record);
+      addAccount(record);
+    }
+  }
+
+  /**
+   * 拉取其他实例新增借阅的词条（重复登记的词条不改变索引）
+   */
+  @Scheduled(fixedDelayString = "${system.search.sync-interval-ms:5000}")
+  public void sync() {
+    if (!ready) {
+      return;
+    }
+    LocalDateTime now = LocalDateTime.now();
+    borrowRecordMapper.selectBorrowedSince(syncedUntil.minusSeconds(SYNC_OVERLAP_SECONDS), context -> {
+      addBook(context.getResultObject());
+      addAccount(context.getResultObject());
+    });
+    syncedUntil = now;
+  }
+
+  /**
+   * 按关键字匹配馆藏号（馆藏号或书名包含关键字）
+   * 
+   * @return 命中的馆藏号；索引未就绪或命中过多时返回 null
+   */
+  public List<String> matchCollectionNumbers(String keyword) {
+    if (!ready) {
+      return null;
+    }
+    Set<String> matched = new LinkedHashSet<>(collectionNumbers.search(keyword, MAX_MATCHED_TERMS));
+    if (matched.size() <= MAX_MATCHED_TERMS) {
+      matched.addAll(titles.search(keyword, MAX_MATCHED_TERMS));
+    }
+    return matched.size() > MAX_MATCHED_TERMS ? null : new ArrayList<>(matched);
+  }
+
+  /**
+   * 按片段匹配账号
+   * 
+   * @return 命中的账号；索引未就绪或命中过多时返回 null
+   */
+  public List<String> matchAccountNumbers(String fragment) {
+    if (!ready) {
+      return null;
+    }
+    List<String> matched = accounts.search(fragment, MAX_MATCHED_TERMS);
+    return matched.size() > MAX_MATCHED_TERMS ? null : matched;
+  }
+
+  private void addBook(BorrowRecord record) {
+    if (record.getCollectionNumber() == null) {
+      return;
+    }
+    collectionNumbers.put(record.getCollectionNumber(), record.getCollectionNumber());
+    if (record.getBookTitle() != null) {
+      titles.put(record.getCollectionNumber(), record.getBookTitle());
+    }
+  }
+
+  private void addAccount(BorrowRecord record) {
+    if (record.getAccountNumber() != null) {
+      accounts.put(record.getAccountNumber(), record.getAccountNumber());
+    }
+  }
+}
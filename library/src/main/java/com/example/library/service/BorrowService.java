@@ -1,22 +1,25 @@
 package com.example.library.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.toolkit.support.SFunction;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.example.library.common.BusinessException;
+import com.example.library.common.ResultCode;
 import com.example.library.dto.BorrowRequest;
 import com.example.library.entity.Book;
 import com.example.library.entity.BorrowRecord;
-import com.example.library.entity.SystemConfig;
 import com.example.library.entity.User;
-import com.example.library.mapper.BookMapper;
 import com.example.library.mapper.BorrowRecordMapper;
-import com.example.library.mapper.SystemConfigMapper;
 import com.example.library.mapper.UserMapper;
+import com.example.library.util.IdGenerator;
+import com.example.library.util.SeekCursor;
+import com.example.library.util.TransactionHooks;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
 import java.util.*;
 
@@ -29,51 +32,52 @@ import java.util.*;
 @RequiredArgsConstructor
 public class BorrowService {
 
+  /**
+   * 批量归还每批处理数量
+   */
+  private static final int RETURN_BATCH_SIZE = 200;
+
+  /**
+   * 单页最大记录数（与分页插件上限一致）
+   */
+  private static final int MAX_PAGE_SIZE = 500;
+
+  /**
+   * 个人借阅记录默认每页数量
+   */
+  private static final int DEFAULT_MY_RECORDS_SIZE = 20;
+
   private final BorrowRecordMapper borrowRecordMapper;
   private final UserMapper userMapper;
-  private final BookMapper bookMapper;
-  private final SystemConfigMapper systemConfigMapper;
+  private final UserCache userCache;
+  private final SystemConfigCache systemConfigCache;
   private final BookService bookService;
+  private final IdGenerator idGenerator;
+  private final TransactionTemplate transactionTemplate;
+  private final ActiveLoanProjection activeLoanProjection;
+  private final BorrowRecordSearchIndex borrowRecordSearchIndex;
+  private final CirculationRollup circulationRollup;
+  private final TopBooksTracker topBooksTracker;
+  private final CirculationCube circulationCube;
 
   /**
    * 借阅验证
    */
   public Map<String, Object> validateBorrow(String cardNumber, List<String> collectionNumbers) {
-    // 验证用户
-    LambdaQueryWrapper<User> userWrapper = new LambdaQueryWrapper<>();
-    userWrapper.eq(User::getCardNumber, cardNumber);
-    User user = userMapper.selectOne(userWrapper);
-
-    if (user == null) {
-      throw new RuntimeException("用户不存在");
-    }
-
-    // 检查超期图书
-    LambdaQueryWrapper<BorrowRecord> overdueWrapper = new LambdaQueryWrapper<>();
-    overdueWrapper.eq(BorrowRecord::getCardNumber, cardNumber);
-    overdueWrapper.eq(BorrowRecord::getStatus, "借阅中");
-    overdueWrapper.lt(BorrowRecord::getDueDate, LocalDateTime.now());
-    long overdueCount = borrowRecordMapper.selectCount(overdueWrapper);
-
-    if (overdueCount > 0) {
-      throw new RuntimeException("该用户存在" + overdueCount + "本超期图书，无法借阅");
+    User user = loadBorrower(cardNumber);
+    List<Book> books = loadBorrowableBooks(collectionNumbers);
+
+    // 预检借阅额度（执行借阅时以条件更新为准）
+    SystemConfigCache.Snapshot config = systemConfigCache.current();
+    int maxBorrowCount = config.maxBorrowCount();
+    int borrowingCount = user.getBorrowingCount() == null ? 0 : user.getBorrowingCount();
+    if (borrowingCount + books.size() > maxBorrowCount) {
+      throw new BusinessException(ResultCode.EXCEED_MAX_BORROW_COUNT,
+          "超过最大借阅数量" + maxBorrowCount + "本，当前在借" + borrowingCount + "本");
     }
 
-    // 验证图书状态
     List<Map<String, Object>> bookList = new ArrayList<>();
-    for (String collectionNumber : collectionNumbers) {
-      LambdaQueryWrapper<Book> bookWrapper = new LambdaQueryWrapper<>();
-      bookWrapper.eq(Book::getCollectionNumber, collectionNumber);
-      Book book = bookMapper.selectOne(bookWrapper);
-
-      if (book == null) {
-        throw new RuntimeException("图书 " + collectionNumber + " 不存在");
-      }
-
-      if (!"可借阅".equals(book.getStatus())) {
-        throw new RuntimeException("图书 " + book.getTitle() + " 状态不可借阅");
-      }
-
+    for (Book book : books) {
       Map<String, Object> bookInfo = new HashMap<>();
       bookInfo.put("collectionNumber", book.getCollectionNumber());
       bookInfo.put("title", book.getTitle());
@@ -83,7 +87,7 @@ public class BorrowService {
     }
 
     // 计算应还日期
-    LocalDateTime dueDate = calculateDueDate(user.getIdentity());
+    LocalDateTime dueDate = calculateDueDate(config, user.getIdentity());
 
     Map<String, Object> userInfo = new HashMap<>();
     userInfo.put("accountNumber", user.getAccountNumber());
@@ -101,49 +105,64 @@ public class BorrowService {
 
   /**
    * 执行借阅
+   * 整车图书一次查询、借阅记录与状态历史批量插入、图书状态一条语句翻转，
+   * 数据库往返次数与借阅册数无关；状态翻转为比较并交换，并发抢借同一册时只有一方成功
    */
   @Transactional(rollbackFor = Exception.class)
   public Map<String, Object> borrowBooks(BorrowRequest request) {
     // 先验证
-    Map<String, Object> validation = validateBorrow(request.getCardNumber(), request.getCollectionNumbers());
-
-    Map<String, Object> userInfo = (Map<String, Object>) validation.get("user");
-    List<Map<String, Object>> books = (List<Map<String, Object>>) validation.get("books");
-    LocalDateTime dueDate = (LocalDateTime) validation.get("dueDate");
-
-    List<Map<String, Object>> records = new ArrayList<>();
-
-    for (Map<String, Object> bookInfo : books) {
-      String collectionNumber = (String) bookInfo.get("collectionNumber");
+    User user = loadBorrower(request.getCardNumber());
+    List<Book> books = loadBorrowableBooks(request.getCollectionNumbers());
+
+    // 预占借阅额度（条件更新，并发借阅同一张卡不会超额）
+    SystemConfigCache.Snapshot config = systemConfigCache.current();
+    if (userMapper.reserveBorrowQuota(request.getCardNumber(), books.size(), config.maxBorrowCount()) == 0) {
+      throw new BusinessException(ResultCode.EXCEED_MAX_BORROW_COUNT,
+          "超过最大借阅数量，本次无法借阅" + books.size() + "本");
+    }
+    userCache.evict(user.getAccountNumber(), request.getCardNumber());
 
-      // 查询图书详细信息
-      LambdaQueryWrapper<Book> bookWrapper = new LambdaQueryWrapper<>();
-      bookWrapper.eq(Book::getCollectionNumber, collectionNumber);
-      Book book = bookMapper.selectOne(bookWrapper);
+    LocalDateTime dueDate = calculateDueDate(config, user.getIdentity());
+    LocalDateTime now = LocalDateTime.now();
 
-      // 创建借阅记录
+    // 创建借阅记录
+    List<BorrowRecord> borrowRecords = new ArrayList<>(books.size());
+    List<String> collectionNumbers = new ArrayList<>(books.size());
+    for (Book book : books) {
       BorrowRecord record = new BorrowRecord();
       record.setRecordId(generateRecordId());
       record.setCardNumber(request.getCardNumber());
-      record.setUserName((String) userInfo.get("name"));
-      record.setUserIdentity((String) userInfo.get("identity"));
-      record.setAccountNumber((String) userInfo.get("accountNumber"));
-      record.setCollectionNumber(collectionNumber);
+      record.setUserName(user.getName());
+      record.setUserIdentity(user.getIdentity());
+      record.setAccountNumber(user.getAccountNumber());
+      record.setCollectionNumber(book.getCollectionNumber());
       record.setBookTitle(book.getTitle());
       record.setBookAuthor(book.getAuthor());
-      record.setBorrowDate(LocalDateTime.now());
+      record.setBorrowDate(now);
       record.setDueDate(dueDate);
       record.setOverdueDays(0);
       record.setStatus("借阅中");
       record.setOperator(request.getOperator());
-      record.setCreateTime(LocalDateTime.now());
-      record.setUpdateTime(LocalDateTime.now());
+      record.setCreateTime(now);
+      record.setUpdateTime(now);
+      borrowRecords.add(record);
+      collectionNumbers.add(book.getCollectionNumber());
+    }
 
-      borrowRecordMapper.insert(record);
+    borrowRecordMapper.insertBatch(borrowRecords);
+    TransactionHooks.afterCommit(() -> {
+      activeLoanProjection.onBorrowed(borrowRecords);
+      borrowRecordSearchIndex.onBorrowed(borrowRecords);
+      topBooksTracker.onBorrowed(borrowRecords);
+    });
+    circulationRollup.onBorrowed(now.toLocalDate(), borrowRecords.size());
+    circulationCube.onBorrowed(now.toLocalDate(), request.getOperator(), borrowRecords);
 
-      // 更新图书状态为"已借出"
-      bookService.updateBookStatus(collectionNumber, "已借出", request.getOperator());
+    // 更新图书状态为"已借出"
+    bookService.transitionStatusBatch(collectionNumbers, "可借阅", "已借出", request.getOperator());
 
+    List<Map<String, Object>> records = new ArrayList<>();
+    for (BorrowRecord record : borrowRecords) {
       Map<String, Object> recordInfo = new HashMap<>();
       recordInfo.put("id", record.getRecordId());
       recordInfo.put("cardNumber", record.getCardNumber());
@@ -165,6 +184,57 @@ public class BorrowService {
     return result;
   }
 
+  /**
+   * 查询借阅人并检查超期图书
+   */
+  private User loadBorrower(String cardNumber) {
+    // 验证用户
+    User user = userCache.getByCardNumber(cardNumber);
+
+    if (user == null) {
+      throw new RuntimeException("用户不存在");
+    }
+
+    // 检查超期图书（在借投影无超期时不查库，有超期时以数据库为准，避免其他实例刚归还的图书误判）
+    int overdueCount = activeLoanProjection.hasOverdue(cardNumber)
+        ? borrowRecordMapper.countOverdueByCardNumber(cardNumber) : 0;
+
+    if (overdueCount > 0) {
+      throw new RuntimeException("该用户存在" + overdueCount + "本超期图书，无法借阅");
+    }
+
+    return user;
+  }
+
+  /**
+   * 一次查询加载待借图书并验证状态，按扫描顺序返回（重复扫描只计一次）
+   */
+  private List<Book> loadBorrowableBooks(List<String> collectionNumbers) {
+    Set<String> distinctNumbers = new LinkedHashSet<>(collectionNumbers);
+    Map<String, Book> bookMap = new HashMap<>();
+    for (Book book : bookService.getBooksByCollectionNumbers(distinctNumbers)) {
+      bookMap.put(book.getCollectionNumber(), book);
+    }
+
+    // 验证图书状态
+    List<Book> books = new ArrayList<>(distinctNumbers.size());
+    for (String collectionNumber : distinctNumbers) {
+      Book book = bookMap.get(collectionNumber);
+
+      if (book == null) {
+        throw new RuntimeException("图书 " + collectionNumber + " 不存在");
+      }
+
+      if (!"可借阅".equals(book.getStatus())) {
+        throw new RuntimeException("图书 " + book.getTitle() + " 状态不可借阅");
+      }
+
+      books.add(book);
+    }
+
+    return books;
+  }
+
   /**
    * 图书归还
    */
@@ -182,20 +252,24 @@ public class BorrowService {
 
     // 计算超期天数
     LocalDateTime now = LocalDateTime.now();
-    long overdueDays = ChronoUnit.DAYS.between(record.getDueDate(), now);
-    if (overdueDays < 0) {
-      overdueDays = 0;
-    }
+    int overdueDays = overdueDays(record.getDueDate(), now);
 
-    // 更新借阅记录
+    // 更新借阅记录（并发归还时只有一方生效）
+    if (borrowRecordMapper.markReturned(record.getId(), now, overdueDays) == 0) {
+      throw new BusinessException(ResultCode.BOOK_STATUS_CONFLICT, "该图书已被归还，请勿重复操作");
+    }
     record.setReturnDate(now);
-    record.setOverdueDays((int) overdueDays);
+    record.setOverdueDays(overdueDays);
     record.setStatus("已归还");
     record.setUpdateTime(now);
-    borrowRecordMapper.updateById(record);
+    userMapper.releaseBorrowQuota(Map.of(record.getCardNumber(), 1));
+    userCache.evict(record.getAccountNumber(), record.getCardNumber());
+    TransactionHooks.afterCommit(() -> activeLoanProjection.onReturned(record));
+    circulationRollup.onReturned(now.toLocalDate(), 1);
+    circulationCube.onReturned(now.toLocalDate(), List.of(record));
 
-    // 更新图书状态为"可借阅"
-    bookService.updateBookStatus(collectionNumber, "可借阅", operator);
+    // 更新图书状态为"可借阅"（借出期间被改为维修、遗失等状态的图书保持原状态，借阅记录照常归还）
+    bookService.releaseReturned(collectionNumber, operator);
 
     Map<String, Object> recordInfo = new HashMap<>();
     recordInfo.put("id", record.getRecordId());
@@ -210,29 +284,156 @@ public class BorrowService {
   }
 
   /**
-   * 查询个人借阅记录
+   * 批量归还（还书箱扫描）
+   * 一次查询解析全部在借记录，按批更新借阅记录、翻转图书状态、写入状态历史；
+   * 每批独立事务，某批冲突（含借出期间被改为维修、遗失等状态的图书）时退回逐本归还，单本失败不影响其余图书
    */
-  public Map<String, Object> getMyRecords(String accountNumber) {
-    LambdaQueryWrapper<BorrowRecord> wrapper = new LambdaQueryWrapper<>();
-    wrapper.eq(BorrowRecord::getAccountNumber, accountNumber);
-    wrapper.orderByDesc(BorrowRecord::getBorrowDate);
-    List<BorrowRecord> records = borrowRecordMapper.selectList(wrapper);
+  public Map<String, Object> returnBooks(List<String> collectionNumbers, String operator) {
+    List<String> distinctNumbers = new ArrayList<>(new LinkedHashSet<>(collectionNumbers));
+    Map<String, BorrowRecord> loanMap = new HashMap<>();
+    for (BorrowRecord record : borrowRecordMapper.selectBorrowingByCollectionNumbers(distinctNumbers)) {
+      loanMap.put(record.getCollectionNumber(), record);
+    }
+
+    Map<String, Map<String, Object>> itemResults = new LinkedHashMap<>();
+    List<BorrowRecord> loans = new ArrayList<>();
+    for (String collectionNumber : distinctNumbers) {
+      BorrowRecord record = loanMap.get(collectionNumber);
+      if (record == null) {
+        itemResults.put(collectionNumber, failedReturn(collectionNumber, "该图书未借出，无法归还"));
+      } else {
+        itemResults.put(collectionNumber, null);
+        loans.add(record);
+      }
+    }
+
+    for (int from = 0; from < loans.size(); from += RETURN_BATCH_SIZE) {
+      List<BorrowRecord> chunk = loans.subList(from, Math.min(from + RETURN_BATCH_SIZE, loans.size()));
+      try {
+        LocalDateTime now = LocalDateTime.now();
+        transactionTemplate.executeWithoutResult(status -> returnChunk(chunk, now, operator));
+        for (BorrowRecord record : chunk) {
+          itemResults.put(record.getCollectionNumber(), returnedItem(record, now));
+        }
+      } catch (RuntimeException e) {
+        // 整批回滚后逐本归还，定位失败的图书
+        for (BorrowRecord record : chunk) {
+          String collectionNumber = record.getCollectionNumber();
+          try {
+            Map<String, Object> single = transactionTemplate.execute(status -> returnBook(collectionNumber, operator));
+            Map<String, Object> item = new HashMap<>((Map<String, Object>) single.get("record"));
+            item.put("collectionNumber", collectionNumber);
+            item.put("success", true);
+            itemResults.put(collectionNumber, item);
+          } catch (RuntimeException itemError) {
+            itemResults.put(collectionNumber, failedReturn(collectionNumber, itemError.getMessage()));
+          }
+        }
+      }
+    }
+
+    int successCount = 0;
+    int overdueCount = 0;
+    for (Map<String, Object> item : itemResults.values()) {
+      if (Boolean.TRUE.equals(item.get("success"))) {
+        successCount++;
+        if ((int) item.get("overdueDays") > 0) {
+          overdueCount++;
+        }
+      }
+    }
+
+    Map<String, Object> result = new HashMap<>();
+    result.put("total", itemResults.size());
+    result.put("successCount", successCount);
+    result.put("failCount", itemResults.size() - successCount);
+    result.put("overdueCount", overdueCount);
+    result.put("results", new ArrayList<>(itemResults.values()));
+
+    return result;
+  }
+
+  /**
+   * 在当前事务内归还一批在借记录
+   */
+  private void returnChunk(List<BorrowRecord> chunk, LocalDateTime now, String operator) {
+    List<Long> ids = new ArrayList<>(chunk.size());
+    List<String> numbers = new ArrayList<>(chunk.size());
+    Map<String, Integer> releases = new HashMap<>();
+    Set<String> accounts = new HashSet<>();
+    for (BorrowRecord record : chunk) {
+      ids.add(record.getId());
+      numbers.add(record.getCollectionNumber());
+      releases.merge(record.getCardNumber(), 1, Integer::sum);
+      accounts.add(record.getAccountNumber());
+    }
+
+    if (borrowRecordMapper.markReturnedBatch(ids, now) != ids.size()) {
+      throw new BusinessException(ResultCode.BOOK_STATUS_CONFLICT, "部分图书已被归还");
+    }
+    userMapper.releaseBorrowQuota(releases);
+    userCache.evict(accounts, releases.keySet());
+    bookService.transitionStatusBatch(numbers, "已借出", "可借阅", operator);
+    TransactionHooks.afterCommit(() -> chunk.forEach(activeLoanProjection::onReturned));
+    circulationRollup.onReturned(now.toLocalDate(), chunk.size());
+    circulationCube.onReturned(now.toLocalDate(), chunk);
+  }
 
+  private Map<String, Object> returnedItem(BorrowRecord record, LocalDateTime returnDate) {
+    Map<String, Object> item = new HashMap<>();
+    item.put("collectionNumber", record.getCollectionNumber());
+    item.put("success", true);
+    item.put("id", record.getRecordId());
+    item.put("status", "已归还");
+    item.put("returnDate", returnDate);
+    item.put("overdueDays", overdueDays(record.getDueDate(), returnDate));
+    return item;
+  }
+
+  private Map<String, Object> failedReturn(String collectionNumber, String message) {
+    Map<String, Object> item = new HashMap<>();
+    item.put("collectionNumber", collectionNumber);
+    item.put("success", false);
+    item.put("message", message);
+    return item;
+  }
+
+  /**
+   * 计算超期天数（按整天，未超期为0）
+   */
+  private int overdueDays(LocalDateTime dueDate, LocalDateTime returnDate) {
+    long days = ChronoUnit.DAYS.between(dueDate, returnDate);
+    return days < 0 ? 0 : (int) days;
+  }
+
+  /**
+   * 查询个人借阅记录
+   * 统计信息由一条聚合查询得出；传入 cursor 或 size 时记录列表按 (borrow_date, id) 键集分页，
+   * 均未传入时返回全部记录（兼容不分页的客户端）
+   */
+  public Map<String, Object> getMyRecords(String accountNumber, String cursor, Integer size) {
     // 统计信息
-    long currentBorrowing = records.stream().filter(r -> "借阅中".equals(r.getStatus())).count();
-    int totalBorrowed = records.size();
-    long overdueCount = records.stream()
-        .filter(r -> "借阅中".equals(r.getStatus()) && r.getDueDate().isBefore(LocalDateTime.now()))
-        .count();
+    Map<String, Object> aggregate = borrowRecordMapper.selectStatisticsByAccountNumber(accountNumber);
 
     Map<String, Object> statistics = new HashMap<>();
-    statistics.put("currentBorrowing", currentBorrowing);
-    statistics.put("totalBorrowed", totalBorrowed);
-    statistics.put("overdueCount", overdueCount);
+    statistics.put("currentBorrowing", ((Number) aggregate.get("currentBorrowing")).longValue());
+    statistics.put("totalBorrowed", ((Number) aggregate.get("totalBorrowed")).intValue());
+    statistics.put("overdueCount", ((Number) aggregate.get("overdueCount")).longValue());
+
+    if (cursor == null && size == null) {
+      Map<String, Object> result = new HashMap<>();
+      result.put("statistics", statistics);
+      result.put("records", borrowRecordMapper.selectByAccountNumber(accountNumber));
+      return result;
+    }
 
-    Map<String, Object> result = new HashMap<>();
+    size = size == null || size < 1 ? DEFAULT_MY_RECORDS_SIZE : Math.min(size, MAX_PAGE_SIZE);
+    LambdaQueryWrapper<BorrowRecord> wrapper = new LambdaQueryWrapper<>();
+    wrapper.eq(BorrowRecord::getAccountNumber, accountNumber);
+
+    Map<String, Object> result = seekRecords(wrapper, SeekCursor.decode(cursor), size);
     result.put("statistics", statistics);
-    result.put("records", records);
+    result.put("records", result.remove("list"));
 
     return result;
   }
@@ -247,13 +448,7 @@ public class BorrowService {
     Page<BorrowRecord> recordPage = new Page<>(page, size);
     LambdaQueryWrapper<BorrowRecord> wrapper = new LambdaQueryWrapper<>();
 
-    if (accountNumber != null && !accountNumber.isEmpty()) {
-      wrapper.like(BorrowRecord::getAccountNumber, accountNumber);
-    }
-    if (keyword != null && !keyword.isEmpty()) {
-      wrapper.and(w -> w.like(BorrowRecord::getCollectionNumber, keyword)
-          .or().like(BorrowRecord::getBookTitle, keyword));
-    }
+    applyRecordFilters(wrapper, accountNumber, keyword);
 
     wrapper.orderByDesc(BorrowRecord::getBorrowDate);
     recordPage = borrowRecordMapper.selectPage(recordPage, wrapper);
@@ -268,34 +463,115 @@ public class BorrowService {
   }
 
   /**
-   * 计算应还日期
+   * 键集分页查询全量借阅记录
+   * 按 (borrow_date, id) 倒序定位下一页，深翻页与第一页代价相同；总数按需精确统计，无筛选条件时给出估算值
    */
-  private LocalDateTime calculateDueDate(String identity) {
-    int days = 60; // 默认60天
+  public Map<String, Object> seekAllRecords(String accountNumber, String keyword, String cursor, Integer size,
+      boolean withTotal) {
+    size = size == null || size < 1 ? 10 : Math.min(size, MAX_PAGE_SIZE);
+    SeekCursor seek = SeekCursor.decode(cursor);
 
-    // 从系统配置读取
-    LambdaQueryWrapper<SystemConfig> wrapper = new LambdaQueryWrapper<>();
-    if ("教师".equals(identity)) {
-      wrapper.eq(SystemConfig::getConfigKey, "teacher_borrow_days");
-    } else {
-      wrapper.eq(SystemConfig::getConfigKey, "student_borrow_days");
+    LambdaQueryWrapper<BorrowRecord> wrapper = new LambdaQueryWrapper<>();
+    boolean filtered = applyRecordFilters(wrapper, accountNumber, keyword);
+
+    Map<String, Object> result = new HashMap<>();
+    if (withTotal) {
+      result.put("total", borrowRecordMapper.selectCount(wrapper));
+      result.put("totalEstimated", false);
+    } else if (!filtered) {
+      result.put("total", borrowRecordMapper.estimateRowCount());
+      result.put("totalEstimated", true);
+    }
+
+    result.putAll(seekRecords(wrapper, seek, size));
+
+    return result;
+  }
+
+  /**
+   * 按 (borrow_date, id) 倒序键集分页读取一页借阅记录
+   * 
+   * @return list、size、hasMore、nextCursor
+   */
+  private Map<String, Object> seekRecords(LambdaQueryWrapper<BorrowRecord> wrapper, SeekCursor seek, int size) {
+    if (seek != null) {
+      wrapper.le(BorrowRecord::getBorrowDate, seek.getTime());
+      wrapper.and(w -> w.lt(BorrowRecord::getBorrowDate, seek.getTime()).or().lt(BorrowRecord::getId, seek.getId()));
     }
+    wrapper.orderByDesc(BorrowRecord::getBorrowDate).orderByDesc(BorrowRecord::getId);
+    wrapper.last("LIMIT " + (size + 1));
+    List<BorrowRecord> records = borrowRecordMapper.selectList(wrapper);
 
-    SystemConfig config = systemConfigMapper.selectOne(wrapper);
-    if (config != null) {
-      days = Integer.parseInt(config.getConfigValue());
+    boolean hasMore = records.size() > size;
+    if (hasMore) {
+      records = records.subList(0, size);
     }
+    BorrowRecord last = records.isEmpty() ? null : records.get(records.size() - 1);
+
+    Map<String, Object> page = new HashMap<>();
+    page.put("size", size);
+    page.put("list", records);
+    page.put("hasMore", hasMore);
+    page.put("nextCursor", hasMore ? new SeekCursor(last.getBorrowDate(), last.getId()).encode() : null);
 
-    return LocalDateTime.now().plusDays(days);
+    return page;
+  }
+
+  /**
+   * 组装借阅记录筛选条件
+   * 账号片段与关键字优先经检索索引转换为 IN 条件，索引未就绪或命中过多时回退为 LIKE
+   * 
+   * @return 是否有筛选条件
+   */
+  private boolean applyRecordFilters(LambdaQueryWrapper<BorrowRecord> wrapper, String accountNumber, String keyword) {
+    boolean filtered = false;
+    if (accountNumber != null && !accountNumber.isEmpty()) {
+      List<String> accounts = borrowRecordSearchIndex.matchAccountNumbers(accountNumber);
+      if (accounts == null) {
+        wrapper.like(BorrowRecord::getAccountNumber, accountNumber);
+      } else {
+        applyMatchedTerms(wrapper, BorrowRecord::getAccountNumber, accounts);
+      }
+      filtered = true;
+    }
+    if (keyword != null && !keyword.isEmpty()) {
+      List<String> collectionNumbers = borrowRecordSearchIndex.matchCollectionNumbers(keyword);
+      if (collectionNumbers == null) {
+        wrapper.and(w -> w.like(BorrowRecord::getCollectionNumber, keyword)
+            .or().like(BorrowRecord::getBookTitle, keyword));
+      } else {
+        applyMatchedTerms(wrapper, BorrowRecord::getCollectionNumber, collectionNumbers);
+      }
+      filtered = true;
+    }
+    return filtered;
+  }
+
+  /**
+   * 以检索索引命中的词条作为等值 IN 条件，无命中时直接返回空结果
+   */
+  private void applyMatchedTerms(LambdaQueryWrapper<BorrowRecord> wrapper, SFunction<BorrowRecord, ?> column,
+      List<String> terms) {
+    if (terms.isEmpty()) {
+      wrapper.apply("1 = 0");
+    } else {
+      wrapper.in(column, terms);
+    }
+  }
+
+  /**
+   * 计算应还日期
+   */
+  private static LocalDateTime calculateDueDate(SystemConfigCache.Snapshot config, String identity) {
+    return LocalDateTime.now().plusDays(config.borrowDays(identity));
   }
 
   /**
    * 生成借阅记录ID
-   * 规则：BR + 年月日时分秒
+   * 规则：BR + 19位有序ID
    */
   private String generateRecordId() {
-    DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
-    return "BR" + LocalDateTime.now().format(formatter);
+    return idGenerator.nextId("BR");
   }
   
   /**
@@ -316,6 +592,9 @@ public class BorrowService {
    * 查询用户的超期图书
    */
   public List<BorrowRecord> getOverdueBooksByCardNumber(String cardNumber) {
+    if (!activeLoanProjection.hasOverdue(cardNumber)) {
+      return new ArrayList<>();
+    }
     return borrowRecordMapper.selectOverdueByCardNumber(cardNumber);
   }
   
@@ -337,7 +616,7 @@ public class BorrowService {
    * 统计用户当前在借数量
    */
   public int countUserBorrowing(String cardNumber) {
-    return borrowRecordMapper.countBorrowingByCardNumber(cardNumber);
+    return activeLoanProjection.countBorrowing(cardNumber);
   }
   
   /**
@@ -0,0 +1,367 @@
+package com.example.library.service;
+
+import com.example.library.entity.Book;
+import com.example.library.mapper.BookMapper;
+import com.example.library.util.NGramIndex;
+import jakarta.annotation.PostConstruct;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * 馆藏检索索引
+ * 书名按去重后的书名建立 N-Gram 倒排索引做子串匹配（复本共享词条），ISBN 规范化（去除连字符与空白、X 大写）后按前缀有序查找。
+ * 结果按匹配程度排序：完全匹配优先于前缀匹配，前缀匹配优先于包含匹配，同级可借阅优先、新入库优先。
+ * 启动时全量重建，之后由入库和状态变更在事务提交后增量维护，其他实例的变更按更新时间定时增量拉取（至多滞后一个同步间隔）。
+ * 写入串行执行，复本分组的增删在 compute 内完成，并发写入不会把条目留在已移出索引的分组中；
+ * 书名的最后一册被删除或改名时同时移除书名词条。增量同步先读出变更行，再分段持锁写入，不在查询期间阻塞入库与状态变更
+ * 
+ * @author Library Management System
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CatalogSearchIndex {
+
+  /**
+   * 单次检索参与排序的最大候选数，超出时结果截断
+   */
+  static final int MAX_CANDIDATES = 10_000;
+
+  private static final long CREATE_TIME_MASK = (1L << 48) - 1;
+
+  /**
+   * 增量同步的时间重叠（秒），覆盖各实例时钟偏差与未提交事务
+   */
+  private static final long SYNC_OVERLAP_SECONDS = 30;
+
+  /**
+   * 增量同步每次持锁写入的行数
+   */
+  private static final int SYNC_APPLY_BATCH = 500;
+
+  private final BookMapper bookMapper;
+
+  /**
+   * 馆藏号 -> 检索条目
+   */
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  /**
+   * 规范化书名 -> 规范化书名
+   */
+  private final NGramIndex<String> titles = new NGramIndex<>();
+
+  /**
+   * 规范化书名 -> 复本条目
+   */
+  private final Map<String, Set<Entry>> copies = new ConcurrentHashMap<>();
+
+  /**
+   * 规范化 ISBN -> 复本条目
+   */
+  private final ConcurrentSkipListMap<String, Set<Entry>> isbns = new ConcurrentSkipListMap<>();
+
+  private volatile boolean ready;
+
+  /**
+   * 已同步到的更新时间
+   */
+  private volatile LocalDateTime syncedUntil;
+
+  /**
+   * 从数据库重建索引
+   */
+  @PostConstruct
+  public synchronized void rebuild() {
+    ready = false;
+    LocalDateTime now = LocalDateTime.now();
+    entries.clear();
+    titles.clear();
+    copies.clear();
+    isbns.clear();
+    bookMapper.selectCatalog(context -> put(context.getResultObject()));
+    syncedUntil = now;
+    ready = true;
+    log.info("馆藏检索索引重建完成，{} 册图书", entries.size());
+  }
+
+  /**
+   * 拉取其他实例变更的图书（重复登记同一册图书只替换其条目）
+   */
+  @Scheduled(fixedDelayString = "${system.search.sync-interval-ms:5000}")
+  public void sync() {
+    if (!ready) {
+      return;
+    }
+    LocalDateTime now = LocalDateTime.now();
+    List<Book> changed = new ArrayList<>();
+    bookMapper.selectCatalogChangedSince(syncedUntil.minusSeconds(SYNC_OVERLAP_SECONDS),
+        context -> changed.add(context.getResultObject()));
+    for (int from = 0; from < changed.size(); from += SYNC_APPLY_BATCH) {
+      List<Book> section = changed.subList(from, Math.min(from + SYNC_APPLY_BATCH, changed.size()));
+      synchronized (this) {
+        for (Book book : section) {
+          if (book.getDeleted() != null && book.getDeleted() != 0) {
+            remove(book.getCollectionNumber());
+          } else {
+            put(book);
+          }
+        }
+      }
+    }
+    syncedUntil = now;
+  }
+
+  /**
+   * 入库提交后登记
+   */
+  public synchronized void put(Book book) {
+    String isbn = normalizeIsbn(book.getIsbn());
+    String title = NGramIndex.normalize(book.getTitle());
+    long createTime = book.getCreateTime() == null ? 0L
+        : book.getCreateTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    Entry entry = new Entry(book.getCollectionNumber(), isbn, title, book.getStatus(), createTime);
+    Entry previous = entries.put(book.getCollectionNumber(), entry);
+    if (previous != null) {
+      unlink(previous, title);
+    }
+    add(isbns, isbn, entry);
+    add(copies, title, entry);
+    titles.put(title, title);
+  }
+
+  /**
+   * 移除图书（已删除）
+   */
+  public synchronized void remove(String collectionNumber) {
+    Entry previous = entries.remove(collectionNumber);
+    if (previous != null) {
+      unlink(previous, null);
+    }
+  }
+
+  /**
+   * 从 ISBN 与复本分组中移出旧条目，书名不再有任何复本时移除书名词条（调用方持有锁）
+   * 
+   * @param retainedTitle 同一册的新书名，与旧书名相同时保留词条
+   */
+  private void unlink(Entry previous, String retainedTitle) {
+    remove(isbns, previous.isbn, previous);
+    remove(copies, previous.title, previous);
+    if (!previous.title.equals(retainedTitle) && !copies.containsKey(previous.title)) {
+      titles.remove(previous.title);
+    }
+  }
+
+  /**
+   * 状态变更提交后更新
+   */
+  public void onStatusChanged(Collection<String> collectionNumbers, String status) {
+    for (String collectionNumber : collectionNumbers) {
+      Entry entry = entries.get(collectionNumber);
+      if (entry != null) {
+        entry.status = status;
+      }
+    }
+  }
+
+  /**
+   * 按 ISBN 前缀和书名片段检索，两个条件同时给出时取交集
+   * 候选只做部分排序，保留排名前 limit 的结果
+   * 
+   * @param limit 返回的最大数量（分页时为末条位置）
+   * @return 排名前 limit 的馆藏号与命中总数；索引未就绪时返回 null
+   */
+  public Hits search(String isbn, String title, int limit) {
+    if (!ready) {
+      return null;
+    }
+
+    String isbnPrefix = normalizeIsbn(isbn);
+    String titleQuery = NGramIndex.normalize(title);
+    PriorityQueue<Ranked> top = new PriorityQueue<>(Comparator.reverseOrder());
+    int total = 0;
+    boolean truncated = false;
+
+    Collection<Set<Entry>> groups;
+    if (!titleQuery.isEmpty()) {
+      groups = new ArrayList<>();
+      for (String matched : titles.search(titleQuery, MAX_CANDIDATES)) {
+        Set<Entry> group = copies.get(matched);
+        if (group != null) {
+          groups.add(group);
+        }
+      }
+    } else if (!isbnPrefix.isEmpty()) {
+      groups = isbns.subMap(isbnPrefix, isbnPrefix + Character.MAX_VALUE).values();
+    } else {
+      groups = List.of();
+    }
+
+    for (Set<Entry> group : groups) {
+      for (Entry entry : group) {
+        if (!entry.isbn.startsWith(isbnPrefix)) {
+          continue;
+        }
+        if (total == MAX_CANDIDATES) {
+          truncated = true;
+          break;
+        }
+        total++;
+        Ranked ranked = new Ranked(rankKey(entry, isbnPrefix, titleQuery), entry.collectionNumber);
+        if (top.size() < limit) {
+          top.add(ranked);
+        } else if (limit > 0 && ranked.compareTo(top.peek()) < 0) {
+          top.poll();
+          top.add(ranked);
+        }
+      }
+      if (truncated) {
+        break;
+      }
+    }
+
+    Ranked[] sorted = top.toArray(new Ranked[0]);
+    Arrays.sort(sorted);
+    List<String> collectionNumbers = new ArrayList<>(sorted.length);
+    for (Ranked ranked : sorted) {
+      collectionNumbers.add(ranked.collectionNumber);
+    }
+    return new Hits(collectionNumbers, total, truncated);
+  }
+
+  /**
+   * 当前索引图书数
+   */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * 当前书名词条数
+   */
+  int titleCount() {
+    return titles.size();
+  }
+
+  /**
+   * ISBN 规范化：去除连字符与空白，统一大写
+   */
+  static String normalizeIsbn(String isbn) {
+    if (isbn == null) {
+      return "";
+    }
+    StringBuilder normalized = new StringBuilder(isbn.length());
+    for (int i = 0; i < isbn.length(); i++) {
+      char c = isbn.charAt(i);
+      if (c != '-' && !Character.isWhitespace(c)) {
+        normalized.append(c);
+      }
+    }
+    return normalized.toString().toUpperCase(Locale.ROOT);
+  }
+
+  private static void add(Map<String, Set<Entry>> groups, String key, Entry entry) {
+    groups.compute(key, (k, group) -> {
+      Set<Entry> target = group == null ? ConcurrentHashMap.newKeySet() : group;
+      target.add(entry);
+      return target;
+    });
+  }
+
+  private static void remove(Map<String, Set<Entry>> groups, String key, Entry entry) {
+    groups.computeIfPresent(key, (k, group) -> {
+      group.remove(entry);
+      return group.isEmpty() ? null : group;
+    });
+  }
+
+  /**
+   * 排序键（越小越靠前）：匹配程度 2 位 | 是否不可借 1 位 | 入库时间取反 48 位
+   */
+  private static long rankKey(Entry entry, String isbnPrefix, String titleQuery) {
+    long match;
+    if (titleQuery.isEmpty()) {
+      match = entry.isbn.equals(isbnPrefix) ? 0 : 1;
+    } else {
+      match = entry.title.equals(titleQuery) ? 0 : entry.title.startsWith(titleQuery) ? 1 : 2;
+    }
+    long unavailable = "可借阅".equals(entry.status) ? 0 : 1;
+    return match << 50 | unavailable << 49 | (CREATE_TIME_MASK - (entry.createTime & CREATE_TIME_MASK));
+  }
+
+  /**
+   * 排序候选
+   */
+  @AllArgsConstructor
+  private static final class Ranked implements Comparable<Ranked> {
+
+    private final long key;
+
+    private final String collectionNumber;
+
+    @Override
+    public int compareTo(Ranked other) {
+      int byKey = Long.compare(key, other.key);
+      return byKey != 0 ? byKey : collectionNumber.compareTo(other.collectionNumber);
+    }
+  }
+
+  /**
+   * 检索结果
+   */
+  @Getter
+  @AllArgsConstructor
+  public static class Hits {
+
+    /**
+     * 排名靠前的馆藏号
+     */
+    private final List<String> collectionNumbers;
+
+    /**
+     * 命中总数
+     */
+    private final int total;
+
+    /**
+     * 候选超过上限被截断
+     */
+    private final boolean truncated;
+  }
+
+  /**
+   * 检索条目
+   */
+  @AllArgsConstructor
+  private static final class Entry {
+
+    private final String collectionNumber;
+
+    private final String isbn;
+
+    private final String title;
+
+    private volatile String status;
+
+    private final long createTime;
+  }
+}
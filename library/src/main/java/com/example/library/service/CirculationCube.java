@@ -0,0 +1,327 @@
+package com.example.library.service;
+
+import com.example.library.entity.Book;
+import com.example.library.entity.BorrowRecord;
+import com.example.library.entity.CirculationCubeCell;
+import com.example.library.mapper.BorrowRecordMapper;
+import com.example.library.mapper.CirculationCubeMapper;
+import com.example.library.util.TransactionHooks;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 借阅流通多维汇总
+ * 以 日期 × 读者身份 × 馆藏区域 × 操作员 为单元预聚合借还册数：借还提交后按馆藏号在内存中累加，定时写入时
+ * 经图书缓存批量解析馆藏区域再累加到 tb_circulation_cube，借还路径不增加查询。切片查询只读汇总表，按日/周/月/年上卷并按任意维度组合分组或过滤，不扫描借阅记录表。
+ * 操作员维度为借出操作员（归还也计入借出操作员名下，与由借阅记录回填的结果一致）。
+ * 查询结果不含尚未写入的内存增量（至多滞后一个写入间隔）
+ * 
+ * @author Library Management System
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CirculationCube {
+
+  /**
+   * 支持的周期粒度
+   */
+  private static final Set<String> GRANULARITIES = Set.of("day", "week", "month", "year");
+
+  /**
+   * 支持的分组维度
+   */
+  private static final Set<String> DIMENSIONS = Set.of("identity", "zone", "operator");
+
+  /**
+   * 切片查询最大天数
+   */
+  private static final long MAX_RANGE_DAYS = 3660;
+
+  /**
+   * 回填每批写入单元数
+   */
+  private static final int BATCH_SIZE = 500;
+
+  /**
+   * 无法解析馆藏区域时的取值
+   */
+  static final String UNKNOWN_ZONE = "未知";
+
+  private final CirculationCubeMapper circulationCubeMapper;
+  private final BorrowRecordMapper borrowRecordMapper;
+  private final BookCache bookCache;
+
+  /**
+   * 借还事件键 -> 未写入的 [借出, 归还] 增量
+   */
+  private final Map<EventKey, LongAdder[]> pending = new ConcurrentHashMap<>();
+
+  private final AtomicBoolean backfilling = new AtomicBoolean();
+
+  /**
+   * 借阅提交后累加
+   */
+  public void onBorrowed(LocalDate date, String operator, Collection<BorrowRecord> records) {
+    Map<EventKey, Integer> counts = count(date, operator, records);
+    TransactionHooks.afterCommit(() -> counts.forEach((key, count) -> deltas(key)[0].add(count)));
+  }
+
+  /**
+   * 归还提交后累加（计入各记录的借出操作员，借阅记录不保存归还操作员，回填时无法还原）
+   */
+  public void onReturned(LocalDate date, Collection<BorrowRecord> records) {
+    Map<EventKey, Integer> counts = count(date, null, records);
+    TransactionHooks.afterCommit(() -> counts.forEach((key, count) -> deltas(key)[1].add(count)));
+  }
+
+  /**
+   * 将内存增量写入汇总表
+   * 读出增量后原地扣减而非移除，写入期间新到的增量保留到下一轮；解析区域后按单元合并为一条语句写入，失败时加回
+   */
+  @Scheduled(fixedDelayString = "${system.statistics.rollup-flush-interval-ms:10000}")
+  @PreDestroy
+  public synchronized void flush() {
+    Map<EventKey, long[]> drained = new HashMap<>();
+    for (Map.Entry<EventKey, LongAdder[]> entry : pending.entrySet()) {
+      long borrows = entry.getValue()[0].sum();
+      long returns = entry.getValue()[1].sum();
+      if (borrows == 0 && returns == 0) {
+        continue;
+      }
+      entry.getValue()[0].add(-borrows);
+      entry.getValue()[1].add(-returns);
+      drained.put(entry.getKey(), new long[] {borrows, returns});
+    }
+
+    if (!drained.isEmpty()) {
+      try {
+        Set<String> collectionNumbers = new HashSet<>();
+        drained.keySet().forEach(key -> collectionNumbers.add(key.collectionNumber()));
+        Map<String, Book> books = bookCache.getAll(collectionNumbers);
+
+        Map<CellKey, long[]> cells = new HashMap<>();
+        drained.forEach((key, counts) -> {
+          Book book = books.get(key.collectionNumber());
+          CellKey cell = new CellKey(key.date(), key.identity(), zoneOf(book == null ? null : book.getLocation()),
+              key.operator());
+          long[] total = cells.computeIfAbsent(cell, k -> new long[2]);
+          total[0] += counts[0];
+          total[1] += counts[1];
+        });
+        List<CirculationCubeCell> batch = new ArrayList<>(cells.size());
+        cells.forEach((key, counts) -> batch.add(cell(key, counts[0], counts[1])));
+        circulationCubeMapper.incrementBatch(batch);
+      } catch (RuntimeException e) {
+        drained.forEach((key, counts) -> {
+          deltas(key)[0].add(counts[0]);
+          deltas(key)[1].add(counts[1]);
+        });
+        log.warn("流通多维汇总写入失败，增量保留到下一轮：{}", e.getMessage());
+        return;
+      }
+    }
+
+    // 清理两天前已写完的事件键，期间不会再有新增量
+    LocalDate expired = LocalDate.now().minusDays(2);
+    pending.entrySet().removeIf(entry -> entry.getKey().date().isBefore(expired)
+        && entry.getValue()[0].sum() == 0 && entry.getValue()[1].sum() == 0);
+  }
+
+  /**
+   * 切片查询
+   * 
+   * @param granularity 周期粒度（day/week/month/year）
+   * @param from        起始日期（含）
+   * @param to          结束日期（含）
+   * @param dimensions  分组维度（identity/zone/operator 的任意组合，可为空）
+   * @param identity    读者身份过滤（可选）
+   * @param zone        馆藏区域过滤（可选）
+   * @param operator    操作员过滤（可选）
+   * @return 查询条件与 list（每项 period、所选维度、borrowCount、returnCount）
+   */
+  public Map<String, Object> slice(String granularity, LocalDate from, LocalDate to, Collection<String> dimensions,
+      String identity, String zone, String operator) {
+    if (!GRANULARITIES.contains(granularity)) {
+      throw new RuntimeException("统计周期须为 day/week/month/year");
+    }
+    if (from.isAfter(to) || ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+      throw new RuntimeException("统计区间须在1到" + MAX_RANGE_DAYS + "天之间");
+    }
+    List<String> groupBy = new ArrayList<>(new LinkedHashSet<>(dimensions));
+    for (String dimension : groupBy) {
+      if (!DIMENSIONS.contains(dimension)) {
+        throw new RuntimeException("不支持的统计维度：" + dimension);
+      }
+    }
+
+    List<Map<String, Object>> list = new ArrayList<>();
+    for (Map<String, Object> row : circulationCubeMapper.selectSlice(granularity, from, to, groupBy,
+        blankToNull(identity), blankToNull(zone), blankToNull(operator))) {
+      Map<String, Object> item = new HashMap<>();
+      item.put("period", row.get("period"));
+      if (groupBy.contains("identity")) {
+        item.put("identity", row.get("user_identity"));
+      }
+      if (groupBy.contains("zone")) {
+        item.put("zone", row.get("zone"));
+      }
+      if (groupBy.contains("operator")) {
+        item.put("operator", row.get("operator"));
+      }
+      item.put("borrowCount", ((Number) row.get("borrow_count")).longValue());
+      item.put("returnCount", ((Number) row.get("return_count")).longValue());
+      list.add(item);
+    }
+
+    Map<String, Object> result = new HashMap<>();
+    result.put("granularity", granularity);
+    result.put("from", from);
+    result.put("to", to);
+    result.put("dimensions", groupBy);
+    result.put("list", list);
+    return result;
+  }
+
+  /**
+   * 回填多维汇总
+   * 流式扫描全部借阅记录（关联图书取馆藏位置）按单元计数，再与已有汇总取较大值合并，可重复执行。
+   * 借阅记录只保存借出操作员，归还计入借出操作员名下（与实时累加一致，回填与实时数据取较大值时同一次归还落在同一单元）
+   * 
+   * @return 回填单元数与扫描记录数
+   */
+  public Map<String, Object> backfill() {
+    if (!backfilling.compareAndSet(false, true)) {
+      throw new RuntimeException("回填任务正在执行");
+    }
+    try {
+      flush();
+      Map<CellKey, long[]> totals = new HashMap<>();
+      long[] scanned = new long[1];
+      borrowRecordMapper.selectCubeEvents(context -> {
+        Map<String, Object> row = context.getResultObject();
+        scanned[0]++;
+        String identity = (String) row.get("user_identity");
+        String zone = zoneOf((String) row.get("location"));
+        String operator = (String) row.get("operator");
+        LocalDateTime borrowDate = toDateTime(row.get("borrow_date"));
+        if (borrowDate != null) {
+          totals.computeIfAbsent(new CellKey(borrowDate.toLocalDate(), identity, zone, operator),
+              key -> new long[2])[0]++;
+        }
+        LocalDateTime returnDate = toDateTime(row.get("return_date"));
+        if (returnDate != null) {
+          totals.computeIfAbsent(new CellKey(returnDate.toLocalDate(), identity, zone, operator),
+              key -> new long[2])[1]++;
+        }
+      });
+
+      List<CirculationCubeCell> batch = new ArrayList<>(BATCH_SIZE);
+      for (Map.Entry<CellKey, long[]> entry : totals.entrySet()) {
+        batch.add(cell(entry.getKey(), entry.getValue()[0], entry.getValue()[1]));
+        if (batch.size() == BATCH_SIZE) {
+          circulationCubeMapper.mergeBatch(batch);
+          batch.clear();
+        }
+      }
+      if (!batch.isEmpty()) {
+        circulationCubeMapper.mergeBatch(batch);
+      }
+      log.info("流通多维汇总回填完成：扫描 {} 条借阅记录，{} 个单元", scanned[0], totals.size());
+
+      Map<String, Object> result = new HashMap<>();
+      result.put("scannedRecords", scanned[0]);
+      result.put("cells", totals.size());
+      return result;
+    } finally {
+      backfilling.set(false);
+    }
+  }
+
+  /**
+   * 由馆藏位置解析区域：取“区”及之前的部分（如 A区-3架-2层 -> A区），否则取第一个“-”之前的部分
+   */
+  static String zoneOf(String location) {
+    if (location == null || location.isBlank()) {
+      return UNKNOWN_ZONE;
+    }
+    String trimmed = location.trim();
+    int end = trimmed.indexOf('区');
+    if (end >= 0) {
+      end++;
+    } else {
+      end = trimmed.indexOf('-');
+      end = end > 0 ? end : trimmed.length();
+    }
+    return end > 20 ? trimmed.substring(0, 20) : trimmed.substring(0, end);
+  }
+
+  /**
+   * 按事件键计数，operator 为 null 时取各记录的借出操作员
+   */
+  private static Map<EventKey, Integer> count(LocalDate date, String operator, Collection<BorrowRecord> records) {
+    Map<EventKey, Integer> counts = new HashMap<>();
+    for (BorrowRecord record : records) {
+      counts.merge(new EventKey(date, record.getUserIdentity(), record.getCollectionNumber(),
+          operator == null ? record.getOperator() : operator), 1, Integer::sum);
+    }
+    return counts;
+  }
+
+  private LongAdder[] deltas(EventKey key) {
+    return pending.computeIfAbsent(key, k -> new LongAdder[] {new LongAdder(), new LongAdder()});
+  }
+
+  private static CirculationCubeCell cell(CellKey key, long borrows, long returns) {
+    CirculationCubeCell cell = new CirculationCubeCell();
+    cell.setStatDate(key.date());
+    cell.setUserIdentity(key.identity());
+    cell.setZone(key.zone());
+    cell.setOperator(key.operator());
+    cell.setBorrowCount((int) borrows);
+    cell.setReturnCount((int) returns);
+    return cell;
+  }
+
+  private static LocalDateTime toDateTime(Object value) {
+    if (value instanceof Timestamp timestamp) {
+      return timestamp.toLocalDateTime();
+    }
+    return (LocalDateTime) value;
+  }
+
+  private static String blankToNull(String value) {
+    return value == null || value.isBlank() ? null : value;
+  }
+
+  /**
+   * 借还事件键（馆藏区域在写入时解析）
+   */
+  private record EventKey(LocalDate date, String identity, String collectionNumber, String operator) {
+  }
+
+  /**
+   * 汇总单元键
+   */
+  private record CellKey(LocalDate date, String identity, String zone, String operator) {
+  }
+}
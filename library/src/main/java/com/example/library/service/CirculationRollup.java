@@ -0,0 +1,219 @@
+package com.example.library.service;
+
+import com.example.library.entity.BorrowRecord;
+import com.example.library.entity.CirculationDaily;
+import com.example.library.mapper.BorrowRecordMapper;
+import com.example.library.mapper.CirculationDailyMapper;
+import com.example.library.util.TransactionHooks;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 借阅流通日汇总
+ * 借阅/归还提交后在内存中按日累加，定时批量累加到 tb_circulation_daily，避免每次借还都更新同一热点行。
+ * 趋势查询读取日汇总行并叠加尚未写入的内存增量，代价只与天数有关。历史数据由回填任务流式扫描借阅记录生成
+ * 
+ * @author Library Management System
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CirculationRollup {
+
+  /**
+   * 趋势查询最大天数
+   */
+  private static final int MAX_TREND_DAYS = 366;
+
+  /**
+   * 回填每批写入天数
+   */
+  private static final int BACKFILL_BATCH_SIZE = 500;
+
+  private final CirculationDailyMapper circulationDailyMapper;
+  private final BorrowRecordMapper borrowRecordMapper;
+
+  /**
+   * 日期 -> 未写入的 [借出, 归还] 增量
+   */
+  private final Map<LocalDate, LongAdder[]> pending = new ConcurrentHashMap<>();
+
+  private final AtomicBoolean backfilling = new AtomicBoolean();
+
+  /**
+   * 借阅提交后累加
+   */
+  public void onBorrowed(LocalDate date, int count) {
+    TransactionHooks.afterCommit(() -> deltas(date)[0].add(count));
+  }
+
+  /**
+   * 归还提交后累加
+   */
+  public void onReturned(LocalDate date, int count) {
+    TransactionHooks.afterCommit(() -> deltas(date)[1].add(count));
+  }
+
+  /**
+   * 将内存增量写入日汇总表
+   * 读出增量后原地扣减而非移除，写入期间新到的增量保留到下一轮；写入失败时加回
+   */
+  @Scheduled(fixedDelayString = "${system.statistics.rollup-flush-interval-ms:10000}")
+  @PreDestroy
+  public synchronized void flush() {
+    List<CirculationDaily> batch = new ArrayList<>();
+    for (Map.Entry<LocalDate, LongAdder[]> entry : pending.entrySet()) {
+      long borrows = entry.getValue()[0].sum();
+      long returns = entry.getValue()[1].sum();
+      if (borrows == 0 && returns == 0) {
+        continue;
+      }
+      entry.getValue()[0].add(-borrows);
+      entry.getValue()[1].add(-returns);
+      batch.add(daily(entry.getKey(), borrows, returns));
+    }
+
+    if (!batch.isEmpty()) {
+      try {
+        circulationDailyMapper.incrementBatch(batch);
+      } catch (RuntimeException e) {
+        for (CirculationDaily daily : batch) {
+          deltas(daily.getStatDate())[0].add(daily.getBorrowCount());
+          deltas(daily.getStatDate())[1].add(daily.getReturnCount());
+        }
+        log.warn("流通日汇总写入失败，增量保留到下一轮：{}", e.getMessage());
+        return;
+      }
+    }
+
+    // 清理两天前已写完的日期，期间不会再有新增量
+    LocalDate expired = LocalDate.now().minusDays(2);
+    pending.entrySet().removeIf(entry -> entry.getKey().isBefore(expired)
+        && entry.getValue()[0].sum() == 0 && entry.getValue()[1].sum() == 0);
+  }
+
+  /**
+   * 借阅趋势
+   * 
+   * @param days 最近天数（含今天）
+   * @return days、from、to、list（每日 date、borrowCount、returnCount）、totalBorrow、totalReturn
+   */
+  public Map<String, Object> trend(int days) {
+    if (days < 1 || days > MAX_TREND_DAYS) {
+      throw new RuntimeException("统计天数须在1到" + MAX_TREND_DAYS + "之间");
+    }
+    LocalDate to = LocalDate.now();
+    LocalDate from = to.minusDays(days - 1L);
+
+    Map<LocalDate, long[]> counts = new TreeMap<>();
+    for (LocalDate date = from; !date.isAfter(to); date = date.plusDays(1)) {
+      counts.put(date, new long[2]);
+    }
+    for (CirculationDaily daily : circulationDailyMapper.selectRange(from, to)) {
+      long[] count = counts.get(daily.getStatDate());
+      count[0] += daily.getBorrowCount();
+      count[1] += daily.getReturnCount();
+    }
+    pending.forEach((date, deltas) -> {
+      long[] count = counts.get(date);
+      if (count != null) {
+        count[0] += deltas[0].sum();
+        count[1] += deltas[1].sum();
+      }
+    });
+
+    List<Map<String, Object>> list = new ArrayList<>(counts.size());
+    long totalBorrow = 0;
+    long totalReturn = 0;
+    for (Map.Entry<LocalDate, long[]> entry : counts.entrySet()) {
+      Map<String, Object> item = new HashMap<>();
+      item.put("date", entry.getKey());
+      item.put("borrowCount", entry.getValue()[0]);
+      item.put("returnCount", entry.getValue()[1]);
+      list.add(item);
+      totalBorrow += entry.getValue()[0];
+      totalReturn += entry.getValue()[1];
+    }
+
+    Map<String, Object> result = new HashMap<>();
+    result.put("days", days);
+    result.put("from", from);
+    result.put("to", to);
+    result.put("list", list);
+    result.put("totalBorrow", totalBorrow);
+    result.put("totalReturn", totalReturn);
+    return result;
+  }
+
+  /**
+   * 回填日汇总
+   * 流式扫描全部借阅记录按日计数（内存占用与天数成正比），再与已有汇总取较大值合并，可重复执行
+   * 
+   * @return 回填天数与扫描记录数
+   */
+  public Map<String, Object> backfill() {
+    if (!backfilling.compareAndSet(false, true)) {
+      throw new RuntimeException("回填任务正在执行");
+    }
+    try {
+      flush();
+      Map<LocalDate, long[]> totals = new TreeMap<>();
+      long[] scanned = new long[1];
+      borrowRecordMapper.selectCirculationEvents(context -> {
+        BorrowRecord record = context.getResultObject();
+        scanned[0]++;
+        if (record.getBorrowDate() != null) {
+          totals.computeIfAbsent(record.getBorrowDate().toLocalDate(), key -> new long[2])[0]++;
+        }
+        if (record.getReturnDate() != null) {
+          totals.computeIfAbsent(record.getReturnDate().toLocalDate(), key -> new long[2])[1]++;
+        }
+      });
+
+      List<CirculationDaily> batch = new ArrayList<>(BACKFILL_BATCH_SIZE);
+      for (Map.Entry<LocalDate, long[]> entry : totals.entrySet()) {
+        batch.add(daily(entry.getKey(), entry.getValue()[0], entry.getValue()[1]));
+        if (batch.size() == BACKFILL_BATCH_SIZE) {
+          circulationDailyMapper.mergeBatch(batch);
+          batch.clear();
+        }
+      }
+      if (!batch.isEmpty()) {
+        circulationDailyMapper.mergeBatch(batch);
+      }
+      log.info("流通日汇总回填完成：扫描 {} 条借阅记录，{} 天", scanned[0], totals.size());
+
+      Map<String, Object> result = new HashMap<>();
+      result.put("scannedRecords", scanned[0]);
+      result.put("days", totals.size());
+      return result;
+    } finally {
+      backfilling.set(false);
+    }
+  }
+
+  private LongAdder[] deltas(LocalDate date) {
+    return pending.computeIfAbsent(date, key -> new LongAdder[] {new LongAdder(), new LongAdder()});
+  }
+
+  private static CirculationDaily daily(LocalDate date, long borrows, long returns) {
+    CirculationDaily daily = new CirculationDaily();
+    daily.setStatDate(date);
+    daily.setBorrowCount((int) borrows);
+    daily.setReturnCount((int) returns);
+    return daily;
+  }
+}
@@ -0,0 +1,100 @@
+package com.example.library.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 登录失败计数
+ * 按账号在内存中记录滑动窗口内的密码错误时间（分段哈希表，单账号更新互不阻塞），
+ * 登录成功或锁定后清除。窗口内失败达到上限时由调用方将锁定状态写入数据库，其余登录不写库。
+ * 计数只在本实例内有效，重启后清零
+ * 
+ * @author Library Management System
+ */
+@Component
+public class LoginThrottle {
+
+  private final int maxFailures;
+
+  private final long windowMillis;
+
+  /**
+   * 账号 -> 窗口内的失败时间（升序，不可变数组，整体替换）
+   */
+  private final Map<String, long[]> failures = new ConcurrentHashMap<>();
+
+  public LoginThrottle(@Value("${system.auth.login.max-failures:3}") int maxFailures,
+      @Value("${system.auth.login.failure-window-minutes:15}") long windowMinutes) {
+    this.maxFailures = maxFailures;
+    this.windowMillis = TimeUnit.MINUTES.toMillis(windowMinutes);
+  }
+
+  /**
+   * 记录一次密码错误
+   * 
+   * @param account 账号
+   * @return 窗口内的失败次数（含本次）
+   */
+  public int recordFailure(String account) {
+    long now = System.currentTimeMillis();
+    long[] updated = failures.compute(account, (key, times) -> append(prune(times, now), now));
+    return updated.length;
+  }
+
+  /**
+   * 失败次数是否达到锁定上限
+   */
+  public boolean reachedLimit(int failureCount) {
+    return failureCount >= maxFailures;
+  }
+
+  /**
+   * 清除账号的失败记录（登录成功、锁定或解锁后）
+   */
+  public void reset(String account) {
+    failures.remove(account);
+  }
+
+  /**
+   * 账号窗口内的失败次数
+   */
+  public int failureCount(String account) {
+    long[] times = failures.get(account);
+    return times == null ? 0 : prune(times, System.currentTimeMillis()).length;
+  }
+
+  /**
+   * 清理窗口外的失败记录
+   */
+  @Scheduled(fixedDelay = 60_000)
+  public void evictExpired() {
+    long now = System.currentTimeMillis();
+    failures.replaceAll((key, times) -> prune(times, now));
+    failures.values().removeIf(times -> times.length == 0);
+  }
+
+  private long[] prune(long[] times, long now) {
+    if (times == null) {
+      return new long[0];
+    }
+    int from = 0;
+    while (from < times.length && times[from] <= now - windowMillis) {
+      from++;
+    }
+    return from == 0 ? times : Arrays.copyOfRange(times, from, times.length);
+  }
+
+  private long[] append(long[] times, long now) {
+    // 只需保留最近 maxFailures 次
+    int keep = Math.min(times.length, maxFailures - 1);
+    long[] updated = Arrays.copyOfRange(times, times.length - keep, times.length + 1);
+    updated[keep] = now;
+    return updated;
+  }
+}
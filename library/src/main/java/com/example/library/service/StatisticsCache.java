@@ -0,0 +1,188 @@
+package com.example.library.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 统计结果缓存
+ * 按键缓存统计结果，每个键由调用方指定有效期。同一键的并发请求只触发一次计算，其余请求等待同一结果；
+ * 结果过期后先返回旧值并在后台重新计算（过期超过最长容忍时间才同步等待），看板刷新不会阻塞在重算上。
+ * 计算失败不缓存，异常抛给本轮全部等待者。
+ * 缓存键来自请求参数，键数量按容量淘汰，超过最长容忍时间未访问的键也会移除
+ * 
+ * @author Library Management System
+ */
+@Slf4j
+@Component
+public class StatisticsCache {
+
+  private final long maxStaleNanos;
+
+  private final Cache<String, Entry> entries;
+
+  /**
+   * 后台重算线程，队列满时拒绝本次重算（下个请求会再次触发）
+   */
+  private final ExecutorService refresher;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder staleHits = new LongAdder();
+  private final LongAdder loads = new LongAdder();
+  private final LongAdder coalesced = new LongAdder();
+
+  public StatisticsCache(@Value("${system.statistics.cache.max-stale-seconds:600}") long maxStaleSeconds,
+      @Value("${system.statistics.cache.refresh-threads:2}") int refreshThreads,
+      @Value("${system.statistics.cache.maximum-size:1000}") long maximumSize) {
+    this.maxStaleNanos = TimeUnit.SECONDS.toNanos(maxStaleSeconds);
+    // 超过最长容忍时间的旧值不会再返回，无访问的键保留到此为止
+    this.entries = Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfterAccess(Duration.ofSeconds(maxStaleSeconds))
+        .build();
+    this.refresher = new ThreadPoolExecutor(refreshThreads, refreshThreads, 0, TimeUnit.MILLISECONDS,
+        new LinkedBlockingQueue<>(64), runnable -> {
+          Thread thread = new Thread(runnable, "statistics-refresh");
+          thread.setDaemon(true);
+          return thread;
+        });
+  }
+
+  /**
+   * 读取统计结果
+   * 
+   * @param key    缓存键（含全部查询参数）
+   * @param ttl    有效期
+   * @param loader 计算函数
+   * @return 统计结果
+   */
+  @SuppressWarnings("unchecked")
+  public <T> T get(String key, Duration ttl, Supplier<T> loader) {
+    Entry entry = entries.get(key, k -> new Entry());
+    Loaded loaded = entry.loaded;
+    if (loaded != null) {
+      long age = System.nanoTime() - loaded.loadedAt;
+      if (age < ttl.toNanos()) {
+        hits.increment();
+        return (T) loaded.value;
+      }
+      if (age < maxStaleNanos) {
+        staleHits.increment();
+        CompletableFuture<Object> inflight = new CompletableFuture<>();
+        if (entry.claim(inflight)) {
+          try {
+            refresher.execute(() -> load(key, entry, inflight, loader));
+          } catch (RuntimeException e) {
+            entry.release(inflight);
+          }
+        }
+        return (T) loaded.value;
+      }
+    }
+
+    CompletableFuture<Object> inflight = new CompletableFuture<>();
+    if (entry.claim(inflight)) {
+      load(key, entry, inflight, loader);
+    } else {
+      coalesced.increment();
+      inflight = entry.inflight;
+      if (inflight == null) {
+        // 本轮计算刚结束，直接读取其结果
+        return get(key, ttl, loader);
+      }
+    }
+    try {
+      return (T) inflight.join();
+    } catch (CompletionException e) {
+      throw e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : e;
+    }
+  }
+
+  /**
+   * 失效指定前缀的缓存键（数据回填等批量变更后调用）
+   */
+  public void invalidate(String prefix) {
+    entries.asMap().keySet().removeIf(key -> key.startsWith(prefix));
+  }
+
+  /**
+   * 缓存统计
+   */
+  public Map<String, Object> stats() {
+    Map<String, Object> result = new HashMap<>();
+    entries.cleanUp();
+    result.put("keys", entries.estimatedSize());
+    result.put("hits", hits.sum());
+    result.put("staleHits", staleHits.sum());
+    result.put("loads", loads.sum());
+    result.put("coalesced", coalesced.sum());
+    return result;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    refresher.shutdownNow();
+  }
+
+  private void load(String key, Entry entry, CompletableFuture<Object> inflight, Supplier<?> loader) {
+    loads.increment();
+    try {
+      Object value = loader.get();
+      entry.loaded = new Loaded(value, System.nanoTime());
+      inflight.complete(value);
+    } catch (RuntimeException e) {
+      log.warn("统计计算失败：{} {}", key, e.getMessage());
+      if (entry.loaded == null) {
+        entries.asMap().remove(key, entry);
+      }
+      inflight.completeExceptionally(e);
+    } finally {
+      entry.release(inflight);
+    }
+  }
+
+  /**
+   * 单个键的缓存值与进行中的计算
+   */
+  private static final class Entry {
+
+    private volatile Loaded loaded;
+
+    private volatile CompletableFuture<Object> inflight;
+
+    /**
+     * 尝试成为本轮计算者
+     */
+    synchronized boolean claim(CompletableFuture<Object> future) {
+      if (inflight != null) {
+        return false;
+      }
+      inflight = future;
+      return true;
+    }
+
+    synchronized void release(CompletableFuture<Object> future) {
+      if (inflight == future) {
+        inflight = null;
+      }
+    }
+  }
+
+  private record Loaded(Object value, long loadedAt) {
+  }
+}
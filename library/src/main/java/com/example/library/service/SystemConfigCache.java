@@ -0,0 +1,111 @@
+package com.example.library.service;
+
+import com.example.library.entity.SystemConfig;
+import com.example.library.mapper.SystemConfigMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 系统配置快照
+ * 启动时读取 tb_system_config 解析为不可变的类型化快照，借阅路径直接读取内存不再查库。
+ * 本实例修改配置提交后立即整体替换快照；其他实例定时比对配置总版本，变化时重新加载
+ * 
+ * @author Library Management System
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SystemConfigCache {
+
+  public static final String TEACHER_BORROW_DAYS = "teacher_borrow_days";
+  public static final String STUDENT_BORROW_DAYS = "student_borrow_days";
+  public static final String MAX_BORROW_COUNT = "max_borrow_count";
+
+  /**
+   * 默认配置（配置缺失或无法解析时使用）
+   */
+  public static final Snapshot DEFAULTS = new Snapshot(-1, 90, 60, 5);
+
+  private final SystemConfigMapper systemConfigMapper;
+
+  private volatile Snapshot current = DEFAULTS;
+
+  /**
+   * 当前配置快照
+   */
+  public Snapshot current() {
+    return current;
+  }
+
+  /**
+   * 重新加载配置（启动时及本实例修改配置提交后）
+   */
+  @PostConstruct
+  public synchronized void reload() {
+    List<SystemConfig> configs = systemConfigMapper.selectList(null);
+    Map<String, String> values = new HashMap<>();
+    long version = 0;
+    for (SystemConfig config : configs) {
+      values.put(config.getConfigKey(), config.getConfigValue());
+      version += config.getVersion() == null ? 0 : config.getVersion();
+    }
+    current = new Snapshot(version,
+        parse(values, TEACHER_BORROW_DAYS, DEFAULTS.teacherBorrowDays()),
+        parse(values, STUDENT_BORROW_DAYS, DEFAULTS.studentBorrowDays()),
+        parse(values, MAX_BORROW_COUNT, DEFAULTS.maxBorrowCount()));
+    log.info("系统配置已加载：版本 {}，{}", version, current);
+  }
+
+  /**
+   * 比对配置总版本，其他实例修改过配置时重新加载
+   */
+  @Scheduled(initialDelayString = "${system.config.poll-interval-ms:5000}",
+      fixedDelayString = "${system.config.poll-interval-ms:5000}")
+  public void poll() {
+    try {
+      if (systemConfigMapper.selectVersion() != current.version()) {
+        reload();
+      }
+    } catch (RuntimeException e) {
+      log.warn("检查系统配置版本失败，沿用当前配置：{}", e.getMessage());
+    }
+  }
+
+  private static int parse(Map<String, String> values, String key, int defaultValue) {
+    String value = values.get(key);
+    if (value == null) {
+      return defaultValue;
+    }
+    try {
+      return Integer.parseInt(value.trim());
+    } catch (NumberFormatException e) {
+      log.warn("系统配置 {} 的值 {} 无法解析，使用默认值 {}", key, value, defaultValue);
+      return defaultValue;
+    }
+  }
+
+  /**
+   * 不可变配置快照
+   * 
+   * @param version           配置总版本
+   * @param teacherBorrowDays 教师借阅期限（天）
+   * @param studentBorrowDays 学生借阅期限（天）
+   * @param maxBorrowCount    最大借阅数量
+   */
+  public record Snapshot(long version, int teacherBorrowDays, int studentBorrowDays, int maxBorrowCount) {
+
+    /**
+     * 按读者身份取借阅期限
+     */
+    public int borrowDays(String identity) {
+      return "教师".equals(identity) ? teacherBorrowDays : studentBorrowDays;
+    }
+  }
+}
@@ -1,8 +1,8 @@
 package com.example.library.service;
 
-import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.example.library.entity.SystemConfig;
 import com.example.library.mapper.SystemConfigMapper;
+import com.example.library.util.TransactionHooks;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -20,29 +20,14 @@ import java.util.Map;
 public class SystemConfigService {
 
   private final SystemConfigMapper systemConfigMapper;
+  private final SystemConfigCache systemConfigCache;
 
   /**
-   * 获取系统配置
+   * 获取系统配置（读取内存快照）
    */
   public Map<String, Object> getConfig() {
-    Map<String, Object> config = new HashMap<>();
-
-    SystemConfig teacherBorrowDays = getConfigByKey("teacher_borrow_days");
-    SystemConfig studentBorrowDays = getConfigByKey("student_borrow_days");
-    SystemConfig maxBorrowCount = getConfigByKey("max_borrow_count");
-
-    config.put("teacherBorrowDays",
-        teacherBorrowDays != null ? Integer.parseInt(teacherBorrowDays.getConfigValue()) : 90);
-    config.put("studentBorrowDays",
-        studentBorrowDays != null ? Integer.parseInt(studentBorrowDays.getConfigValue()) : 60);
-    config.put("maxBorrowCount", maxBorrowCount != null ? Integer.parseInt(maxBorrowCount.getConfigValue()) : 5);
-
-    Map<String, Object> defaultConfig = new HashMap<>();
-    defaultConfig.put("teacherBorrowDays", 90);
-    defaultConfig.put("studentBorrowDays", 60);
-    defaultConfig.put("maxBorrowCount", 5);
-    config.put("defaultConfig", defaultConfig);
-
+    Map<String, Object> config = toMap(systemConfigCache.current());
+    config.put("defaultConfig", toMap(SystemConfigCache.DEFAULTS));
     return config;
   }
 
@@ -63,9 +48,7 @@ public class SystemConfigService {
       throw new RuntimeException("单次最大借阅数应在1-20本之间");
     }
 
-    updateConfigByKey("teacher_borrow_days", teacherBorrowDays.toString());
-    updateConfigByKey("student_borrow_days", studentBorrowDays.toString());
-    updateConfigByKey("max_borrow_count", maxBorrowCount.toString());
+    saveConfig(teacherBorrowDays, studentBorrowDays, maxBorrowCount);
 
     Map<String, Object> result = new HashMap<>();
     result.put("teacherBorrowDays", teacherBorrowDays);
@@ -80,33 +63,27 @@ public class SystemConfigService {
    */
   @Transactional(rollbackFor = Exception.class)
   public Map<String, Object> resetConfig() {
-    updateConfigByKey("teacher_borrow_days", "90");
-    updateConfigByKey("student_borrow_days", "60");
-    updateConfigByKey("max_borrow_count", "5");
-
-    Map<String, Object> result = new HashMap<>();
-    result.put("teacherBorrowDays", 90);
-    result.put("studentBorrowDays", 60);
-    result.put("maxBorrowCount", 5);
-
-    return result;
+    SystemConfigCache.Snapshot defaults = SystemConfigCache.DEFAULTS;
+    saveConfig(defaults.teacherBorrowDays(), defaults.studentBorrowDays(), defaults.maxBorrowCount());
+    return toMap(defaults);
   }
 
-  private SystemConfig getConfigByKey(String key) {
-    LambdaQueryWrapper<SystemConfig> wrapper = new LambdaQueryWrapper<>();
-    wrapper.eq(SystemConfig::getConfigKey, key);
-    return systemConfigMapper.selectOne(wrapper);
+  /**
+   * 写入配置并递增版本号，提交后替换本实例快照
+   */
+  private void saveConfig(int teacherBorrowDays, int studentBorrowDays, int maxBorrowCount) {
+    systemConfigMapper.updateValueByKey(SystemConfigCache.TEACHER_BORROW_DAYS, String.valueOf(teacherBorrowDays));
+    systemConfigMapper.updateValueByKey(SystemConfigCache.STUDENT_BORROW_DAYS, String.valueOf(studentBorrowDays));
+    systemConfigMapper.updateValueByKey(SystemConfigCache.MAX_BORROW_COUNT, String.valueOf(maxBorrowCount));
+    TransactionHooks.afterCommit(systemConfigCache::reload);
   }
 
-  private void updateConfigByKey(String key, String value) {
-    LambdaQueryWrapper<SystemConfig> wrapper = new LambdaQueryWrapper<>();
-    wrapper.eq(SystemConfig::getConfigKey, key);
-    SystemConfig config = systemConfigMapper.selectOne(wrapper);
-
-    if (config != null) {
-      config.setConfigValue(value);
-      systemConfigMapper.updateById(config);
-    }
+  private static Map<String, Object> toMap(SystemConfigCache.Snapshot snapshot) {
+    Map<String, Object> config = new HashMap<>();
+    config.put("teacherBorrowDays", snapshot.teacherBorrowDays());
+    config.put("studentBorrowDays", snapshot.studentBorrowDays());
+    config.put("maxBorrowCount", snapshot.maxBorrowCount());
+    return config;
   }
   
   /**
@@ -0,0 +1,255 @@
+package com.example.library.service;
+
+import com.example.library.entity.BorrowRecord;
+import com.example.library.mapper.BorrowRecordMapper;
+import com.example.library.util.SpaceSaving;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 借阅排行跟踪
+ * 每天一个 Space-Saving 摘要（固定计数器数），借阅提交后计入当天摘要；排行查询合并窗口内各天摘要取前 K 名，
+ * 不再每次对窗口内全部借阅分组计数。窗口按自然日计算（含今天），超出最大窗口的日期随查询淘汰。
+ * 每天借阅次数超过 当日借阅总数/容量 的图书一定被跟踪，合并后的次数与真实值之差不超过随结果返回的误差上界。
+ * 其他实例的借阅按借阅时间定时增量拉取（至多滞后一个同步间隔），重叠区间内的借阅按借阅记录ID去重
+ * 
+ * @author Library Management System
+ */
+@Slf4j
+@Component
+public class TopBooksTracker {
+
+  /**
+   * 单次排行最大条数
+   */
+  public static final int MAX_K = 100;
+
+  /**
+   * 增量同步的时间重叠（秒），覆盖各实例时钟偏差与未提交事务
+   */
+  private static final long SYNC_OVERLAP_SECONDS = 30;
+
+  private final BorrowRecordMapper borrowRecordMapper;
+
+  private final int capacity;
+
+  private final int windowDays;
+
+  /**
+   * 日期 -> 当天摘要，摘要自身非线程安全，读写时以其为锁
+   */
+  private final Map<LocalDate, SpaceSaving<BookKey>> days = new ConcurrentHashMap<>();
+
+  /**
+   * 同步重叠区间内已计入的借阅：借阅记录ID -> 借阅时间
+   */
+  private final Map<String, LocalDateTime> counted = new ConcurrentHashMap<>();
+
+  /**
+   * 已同步到的借阅时间
+   */
+  private volatile LocalDateTime syncedUntil;
+
+  public TopBooksTracker(BorrowRecordMapper borrowRecordMapper,
+      @Value("${system.statistics.top-books.capacity:1000}") int capacity,
+      @Value("${system.statistics.top-books.window-days:30}") int windowDays) {
+    this.borrowRecordMapper = borrowRecordMapper;
+    this.capacity = capacity;
+    this.windowDays = windowDays;
+  }
+
+  /**
+   * 启动时流式读取最大窗口内的借阅重建各天摘要
+   */
+  @PostConstruct
+  public void load() {
+    LocalDateTime now = LocalDateTime.now();
+    syncedUntil = now;
+    long[] scanned = new long[1];
+    borrowRecordMapper.selectBorrowsSince(windowStart(windowDays).atStartOfDay(), context -> {
+      offerOnce(context.getResultObject());
+      scanned[0]++;
+    });
+    log.info("借阅排行重建完成：{} 条借阅，{} 天", scanned[0], days.size());
+  }
+
+  /**
+   * 借阅提交后计入（由调用方在提交回调中调用）
+   */
+  public void onBorrowed(Collection<BorrowRecord> records) {
+    for (BorrowRecord record : records) {
+      offerOnce(record);
+    }
+  }
+
+  /**
+   * 拉取其他实例的借阅（本实例已计入的借阅按借阅记录ID跳过）
+   */
+  @Scheduled(fixedDelayString = "${system.search.sync-interval-ms:5000}")
+  public void sync() {
+    if (syncedUntil == null) {
+      return;
+    }
+    LocalDateTime now = LocalDateTime.now();
+    borrowRecordMapper.selectBorrowsSince(syncedUntil.minusSeconds(SYNC_OVERLAP_SECONDS),
+        context -> offerOnce(context.getResultObject()));
+    syncedUntil = now;
+    // 早于下次同步起点的借阅不会再被拉取
+    LocalDateTime horizon = now.minusSeconds(SYNC_OVERLAP_SECONDS);
+    counted.values().removeIf(borrowDate -> borrowDate.isBefore(horizon));
+  }
+
+  /**
+   * 借阅排行
+   * 
+   * @param k    返回条数
+   * @param days 最近天数（含今天）
+   * @return 按借阅次数降序的图书（collection_number、book_title、author、borrow_count、error）
+   */
+  public List<Map<String, Object>> top(int k, int days) {
+    if (k < 1 || k > MAX_K) {
+      throw new RuntimeException("排行条数须在1到" + MAX_K + "之间");
+    }
+    if (days < 1 || days > windowDays) {
+      throw new RuntimeException("统计天数须在1到" + windowDays + "之间");
+    }
+    prune();
+
+    // 已跟踪天的计数至多高估该天误差，未跟踪天至多漏计该天最小计数，误差 = 各天最小计数之和 + 已跟踪天的 (误差 - 最小计数)
+    Map<BookKey, long[]> merged = new HashMap<>();
+    long floorSum = 0;
+    LocalDate today = LocalDate.now();
+    for (LocalDate date = windowStart(days); !date.isAfter(today); date = date.plusDays(1)) {
+      SpaceSaving<BookKey> summary = this.days.get(date);
+      if (summary == null) {
+        continue;
+      }
+      Map<BookKey, long[]> snapshot;
+      long floor;
+      synchronized (summary) {
+        snapshot = summary.snapshot();
+        floor = summary.floor();
+      }
+      floorSum += floor;
+      for (Map.Entry<BookKey, long[]> entry : snapshot.entrySet()) {
+        long[] total = merged.computeIfAbsent(entry.getKey(), key -> new long[2]);
+        total[0] += entry.getValue()[0];
+        total[1] += entry.getValue()[1] - floor;
+      }
+    }
+
+    List<Map.Entry<BookKey, long[]>> ranked = new ArrayList<>(merged.entrySet());
+    ranked.sort(Comparator.<Map.Entry<BookKey, long[]>>comparingLong(entry -> -entry.getValue()[0])
+        .thenComparing(entry -> entry.getKey().collectionNumber()));
+
+    List<Map<String, Object>> topBooks = new ArrayList<>(Math.min(k, ranked.size()));
+    for (Map.Entry<BookKey, long[]> entry : ranked.subList(0, Math.min(k, ranked.size()))) {
+      Map<String, Object> book = new HashMap<>();
+      book.put("collection_number", entry.getKey().collectionNumber());
+      book.put("book_title", entry.getKey().title());
+      book.put("author", entry.getKey().author());
+      book.put("borrow_count", entry.getValue()[0]);
+      book.put("error", floorSum + entry.getValue()[1]);
+      topBooks.add(book);
+    }
+    return topBooks;
+  }
+
+  /**
+   * 校验模式：同一窗口下对比内存排行与数据库精确分组计数
+   * 
+   * @return approximate、exact、recall（精确前 K 名被内存排行命中的比例）、maxCountError（命中图书次数最大偏差）
+   */
+  public Map<String, Object> validate(int k, int days) {
+    List<Map<String, Object>> approximate = top(k, days);
+    List<Map<String, Object>> exact = borrowRecordMapper.selectTopBooksSince(windowStart(days).atStartOfDay(), k);
+
+    Map<String, Long> approximateCounts = new HashMap<>();
+    for (Map<String, Object> book : approximate) {
+      approximateCounts.put((String) book.get("collection_number"), ((Number) book.get("borrow_count")).longValue());
+    }
+    int hits = 0;
+    long maxCountError = 0;
+    Set<String> exactNumbers = new HashSet<>();
+    for (Map<String, Object> book : exact) {
+      String collectionNumber = (String) book.get("collection_number");
+      exactNumbers.add(collectionNumber);
+      Long count = approximateCounts.get(collectionNumber);
+      if (count != null) {
+        hits++;
+        maxCountError = Math.max(maxCountError,
+            Math.abs(count - ((Number) book.get("borrow_count")).longValue()));
+      }
+    }
+
+    Map<String, Object> result = new HashMap<>();
+    result.put("k", k);
+    result.put("days", days);
+    result.put("approximate", approximate);
+    result.put("exact", exact);
+    result.put("recall", exactNumbers.isEmpty() ? 1.0 : (double) hits / exactNumbers.size());
+    result.put("maxCountError", maxCountError);
+    return result;
+  }
+
+  /**
+   * 计入一次借阅；借阅时间落在下次同步的重叠区间内时先登记借阅记录ID，同一借阅只计一次
+   */
+  private void offerOnce(BorrowRecord record) {
+    if (record.getBorrowDate() == null) {
+      return;
+    }
+    LocalDateTime until = syncedUntil;
+    if (until != null && record.getRecordId() != null
+        && !record.getBorrowDate().isBefore(until.minusSeconds(SYNC_OVERLAP_SECONDS))
+        && counted.putIfAbsent(record.getRecordId(), record.getBorrowDate()) != null) {
+      return;
+    }
+    offer(record);
+  }
+
+  private void offer(BorrowRecord record) {
+    LocalDate date = record.getBorrowDate().toLocalDate();
+    if (date.isBefore(windowStart(windowDays))) {
+      return;
+    }
+    SpaceSaving<BookKey> summary = days.computeIfAbsent(date, key -> new SpaceSaving<>(capacity));
+    BookKey key = new BookKey(record.getCollectionNumber(), record.getBookTitle(), record.getBookAuthor());
+    synchronized (summary) {
+      summary.offer(key, 1);
+    }
+  }
+
+  /**
+   * 淘汰超出最大窗口的日期
+   */
+  private void prune() {
+    LocalDate start = windowStart(windowDays);
+    days.keySet().removeIf(date -> date.isBefore(start));
+  }
+
+  private static LocalDate windowStart(int days) {
+    return LocalDate.now().minusDays(days - 1L);
+  }
+
+  /**
+   * 与精确统计相同的分组键
+   */
+  private record BookKey(String collectionNumber, String title, String author) {
+  }
+}
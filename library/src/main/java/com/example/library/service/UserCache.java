@@ -0,0 +1,160 @@
+package com.example.library.service;
+
+import com.example.library.entity.User;
+import com.example.library.mapper.UserMapper;
+import com.example.library.util.TransactionHooks;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户缓存
+ * 按校园卡号、账号两个索引读穿缓存用户实体，按容量淘汰并在写入后过期；不存在的卡号/账号也缓存，
+ * 过期时间较短（刷卡时的无效卡号不反复查库）。
+ * 录入、重置密码、锁定/解锁与借还（在借数量变化）时立即失效，事务提交后再失效一次。
+ * 缓存的实体为共享对象，调用方不得修改
+ *
+ * @author Library Management System
+ */
+@Component
+public class UserCache {
+
+  private final UserMapper userMapper;
+
+  private final boolean enabled;
+
+  /**
+   * 校园卡号 -> 用户
+   */
+  private final Cache<String, Optional<User>> byCard;
+
+  /**
+   * 账号 -> 用户
+   */
+  private final Cache<String, Optional<User>> byAccount;
+
+  public UserCache(UserMapper userMapper,
+      @Value("${system.cache.user.enabled:true}") boolean enabled,
+      @Value("${system.cache.user.maximum-size:20000}") long maximumSize,
+      @Value("${system.cache.user.ttl-seconds:300}") long ttlSeconds,
+      @Value("${system.cache.user.negative-ttl-seconds:30}") long negativeTtlSeconds) {
+    this.userMapper = userMapper;
+    this.enabled = enabled;
+    this.byCard = build(maximumSize, ttlSeconds, negativeTtlSeconds);
+    this.byAccount = build(maximumSize, ttlSeconds, negativeTtlSeconds);
+  }
+
+  /**
+   * 按校园卡号读取用户
+   *
+   * @return 用户，不存在时返回 null
+   */
+  public User getByCardNumber(String cardNumber) {
+    if (!enabled) {
+      return userMapper.selectByCardNumber(cardNumber);
+    }
+    return byCard.get(cardNumber, key -> Optional.ofNullable(userMapper.selectByCardNumber(key))).orElse(null);
+  }
+
+  /**
+   * 按账号读取用户
+   *
+   * @return 用户，不存在时返回 null
+   */
+  public User getByAccountNumber(String accountNumber) {
+    if (!enabled) {
+      return userMapper.selectByAccountNumber(accountNumber);
+    }
+    return byAccount.get(accountNumber, key -> Optional.ofNullable(userMapper.selectByAccountNumber(key)))
+        .orElse(null);
+  }
+
+  /**
+   * 失效单个用户（账号、卡号任一可为 null）
+   */
+  public void evict(String accountNumber, String cardNumber) {
+    evict(accountNumber == null ? List.of() : List.of(accountNumber),
+        cardNumber == null ? List.of() : List.of(cardNumber));
+  }
+
+  /**
+   * 失效缓存：立即失效，并在事务提交后再次失效
+   */
+  public void evict(Collection<String> accountNumbers, Collection<String> cardNumbers) {
+    if (!enabled) {
+      return;
+    }
+    List<String> accounts = accountNumbers.stream().filter(Objects::nonNull).toList();
+    List<String> cards = cardNumbers.stream().filter(Objects::nonNull).toList();
+    byAccount.invalidateAll(accounts);
+    byCard.invalidateAll(cards);
+    TransactionHooks.afterCommit(() -> {
+      byAccount.invalidateAll(accounts);
+      byCard.invalidateAll(cards);
+    });
+  }
+
+  /**
+   * 缓存统计（按索引分列）
+   */
+  public Map<String, Object> stats() {
+    Map<String, Object> result = new HashMap<>();
+    result.put("enabled", enabled);
+    result.put("cardNumber", stats(byCard));
+    result.put("accountNumber", stats(byAccount));
+    return result;
+  }
+
+  private static Map<String, Object> stats(Cache<String, Optional<User>> cache) {
+    CacheStats stats = cache.stats();
+    Map<String, Object> result = new HashMap<>();
+    result.put("size", cache.estimatedSize());
+    result.put("negativeSize", cache.asMap().values().stream().filter(Optional::isEmpty).count());
+    result.put("hitCount", stats.hitCount());
+    result.put("missCount", stats.missCount());
+    result.put("hitRate", stats.hitRate());
+    result.put("loadCount", stats.loadCount());
+    result.put("evictionCount", stats.evictionCount());
+    result.put("averageLoadPenaltyNanos", stats.averageLoadPenalty());
+    return result;
+  }
+
+  /**
+   * 存在的用户按 ttlSeconds 过期，不存在的按 negativeTtlSeconds 过期
+   */
+  private static Cache<String, Optional<User>> build(long maximumSize, long ttlSeconds, long negativeTtlSeconds) {
+    long ttlNanos = TimeUnit.SECONDS.toNanos(ttlSeconds);
+    long negativeTtlNanos = TimeUnit.SECONDS.toNanos(negativeTtlSeconds);
+    return Caffeine.newBuilder()
+        .maximumSize(maximumSize)
+        .expireAfter(new Expiry<String, Optional<User>>() {
+          @Override
+          public long expireAfterCreate(String key, Optional<User> user, long currentTime) {
+            return user.isPresent() ? ttlNanos : negativeTtlNanos;
+          }
+
+          @Override
+          public long expireAfterUpdate(String key, Optional<User> user, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, user, currentTime);
+          }
+
+          @Override
+          public long expireAfterRead(String key, Optional<User> user, long currentTime, long currentDuration) {
+            return currentDuration;
+          }
+        })
+        .recordStats()
+        .build();
+  }
+}
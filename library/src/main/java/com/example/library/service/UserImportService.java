@@ -0,0 +1,461 @@
+package com.example.library.service;
+
+import com.example.library.common.BusinessException;
+import com.example.library.common.ResultCode;
+import com.example.library.dto.UserAddRequest;
+import com.example.library.entity.User;
+import com.example.library.mapper.UserMapper;
+import com.example.library.util.IdGenerator;
+import com.example.library.util.PasswordUtil;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 用户批量录入服务
+ * 逐行读取 CSV 或 NDJSON 花名册，校验后按批处理：每批一次查询找出已占用的账号与校园卡号，
+ * 并行生成初始密码后一条语句批量插入（每批一个事务，失败时逐行重试）。文件内重复在读取时剔除。
+ * 逐行结果（含初始密码）写入临时 CSV 报告，以随机令牌标识，仅上传者或管理员可下载；下载一次或保留时间到期后删除
+ * 
+ * @author Library Management System
+ */
+@Slf4j
+@Service
+public class UserImportService {
+
+  private static final List<String> CSV_COLUMNS = List.of("accountNumber", "name", "identity", "cardNumber");
+
+  private static final Set<String> IDENTITIES = Set.of("教师", "学生");
+
+  private static final String REPORT_HEADER = "行号,学号/工号,姓名,身份,校园卡号,初始密码,结果,说明";
+
+  /**
+   * 报告令牌字节数（128 位）
+   */
+  private static final int REPORT_TOKEN_BYTES = 16;
+
+  private static final SecureRandom RANDOM = new SecureRandom();
+
+  private final UserMapper userMapper;
+  private final UserCache userCache;
+  private final IdGenerator idGenerator;
+  private final TransactionTemplate transactionTemplate;
+  private final Validator validator;
+  private final ObjectMapper objectMapper;
+  private final int batchSize;
+  private final long reportRetentionMillis;
+
+  /**
+   * 报告令牌 -> 结果报告
+   */
+  private final Map<String, Report> reports = new ConcurrentHashMap<>();
+
+  public UserImportService(UserMapper userMapper, UserCache userCache, IdGenerator idGenerator,
+      TransactionTemplate transactionTemplate, Validator validator, ObjectMapper objectMapper,
+      @Value("${system.import.batch-size:1000}") int batchSize,
+      @Value("${system.import.report-retention-minutes:10}") long reportRetentionMinutes) {
+    this.userMapper = userMapper;
+    this.userCache = userCache;
+    this.idGenerator = idGenerator;
+    this.transactionTemplate = transactionTemplate;
+    this.validator = validator;
+    this.objectMapper = objectMapper;
+    this.batchSize = Math.max(1, batchSize);
+    this.reportRetentionMillis = TimeUnit.MINUTES.toMillis(reportRetentionMinutes);
+  }
+
+  /**
+   * 流式录入用户
+   * 
+   * @param input       上传内容（UTF-8）
+   * @param contentType text/csv（首行为列名）或 application/x-ndjson（每行一个 JSON 对象）
+   * @param uploader    上传者账号（认证关闭时为 null），仅其本人或管理员可下载报告
+   * @return 录入结果：importId、total、successCount、failCount、errors（行号与原因）、elapsedMillis、reportUrl
+   */
+  public Map<String, Object> importUsers(InputStream input, String contentType, String uploader)
+      throws IOException {
+    boolean csv = contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("text/csv");
+    String importId = idGenerator.nextId("UI");
+    long startMillis = System.currentTimeMillis();
+    Path reportPath = Files.createTempFile("user-import-" + importId + "-", ".csv");
+    Job job = new Job(importId);
+
+    try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        BufferedWriter report = Files.newBufferedWriter(reportPath, StandardCharsets.UTF_8)) {
+      job.report = report;
+      // 带 BOM 便于表格软件识别中文
+      report.write('\uFEFF');
+      report.write(REPORT_HEADER);
+      report.newLine();
+
+      int[] columns = null;
+      List<Row> batch = new ArrayList<>(batchSize);
+      Set<String> seenAccounts = new HashSet<>();
+      Set<String> seenCards = new HashSet<>();
+      int lineNumber = 0;
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lineNumber++;
+        if (lineNumber == 1 && !line.isEmpty() && line.charAt(0) == '\uFEFF') {
+          line = line.substring(1);
+        }
+        if (line.isBlank()) {
+          continue;
+        }
+        if (csv && columns == null) {
+          columns = parseHeader(line);
+          continue;
+        }
+
+        job.total++;
+        UserAddRequest request;
+        try {
+          request = csv ? parseCsvRow(line, columns) : parseJsonRow(line);
+        } catch (IllegalArgumentException e) {
+          job.reject(lineNumber, null, e.getMessage());
+          continue;
+        }
+        Set<ConstraintViolation<UserAddRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+          job.reject(lineNumber, request, violations.stream()
+              .map(ConstraintViolation::getMessage).sorted().collect(Collectors.joining("；")));
+          continue;
+        }
+        trim(request);
+        if (!IDENTITIES.contains(request.getIdentity())) {
+          job.reject(lineNumber, request, "身份须为教师或学生");
+          continue;
+        }
+        if (seenAccounts.contains(request.getAccountNumber())) {
+          job.reject(lineNumber, request, "文件内学号/工号重复");
+          continue;
+        }
+        if (seenCards.contains(request.getCardNumber())) {
+          job.reject(lineNumber, request, "文件内校园卡号重复");
+          continue;
+        }
+        seenAccounts.add(request.getAccountNumber());
+        seenCards.add(request.getCardNumber());
+
+        batch.add(new Row(lineNumber, request));
+        if (batch.size() == batchSize) {
+          flush(batch, job);
+        }
+      }
+      flush(batch, job);
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(reportPath);
+      throw e;
+    }
+    String reportId = newReportId();
+    reports.put(reportId, new Report(reportPath, uploader, System.currentTimeMillis()));
+
+    long elapsed = System.currentTimeMillis() - startMillis;
+    log.info("用户录入 {} 完成：共 {} 行，成功 {}，失败 {}，耗时 {} ms", importId, job.total, job.succeeded, job.failed,
+        elapsed);
+
+    Map<String, Object> result = new HashMap<>();
+    result.put("importId", importId);
+    result.put("format", csv ? "csv" : "ndjson");
+    result.put("total", job.total);
+    result.put("successCount", job.succeeded);
+    result.put("failCount", job.failed);
+    result.put("errors", job.errors);
+    result.put("errorsTruncated", job.failed > job.errors.size());
+    result.put("elapsedMillis", elapsed);
+    result.put("reportUrl", "/api/users/import/" + reportId + "/report");
+    return result;
+  }
+
+  /**
+   * 取出录入结果报告（一次性：取出后不能再次下载，文件在输入流关闭时删除）
+   * 
+   * @param reportId 报告令牌
+   * @param account  请求者账号（认证关闭时为 null）
+   * @param admin    请求者是否管理员
+   * @return 报告内容（CSV）
+   */
+  public InputStream takeReport(String reportId, String account, boolean admin) throws IOException {
+    Report report = reports.get(reportId);
+    if (report == null) {
+      throw new BusinessException(ResultCode.NOT_FOUND, "录入报告不存在或已过期");
+    }
+    if (!admin && !Objects.equals(report.uploader(), account)) {
+      throw new BusinessException(ResultCode.FORBIDDEN, "仅上传者或管理员可下载录入报告");
+    }
+    // 并发下载时只有一方取到
+    if (!reports.remove(reportId, report)) {
+      throw new BusinessException(ResultCode.NOT_FOUND, "录入报告不存在或已过期");
+    }
+    try {
+      return Files.newInputStream(report.path(), StandardOpenOption.DELETE_ON_CLOSE);
+    } catch (NoSuchFileException e) {
+      throw new BusinessException(ResultCode.NOT_FOUND, "录入报告不存在或已过期");
+    }
+  }
+
+  /**
+   * 删除过期报告（报告含初始密码，不长期保留）
+   */
+  @Scheduled(fixedDelay = 60_000)
+  public void evictExpiredReports() {
+    long expired = System.currentTimeMillis() - reportRetentionMillis;
+    reports.entrySet().removeIf(entry -> {
+      if (entry.getValue().createdMillis() > expired) {
+        return false;
+      }
+      delete(entry.getValue().path());
+      return true;
+    });
+  }
+
+  @PreDestroy
+  public void deleteReports() {
+    reports.values().forEach(report -> delete(report.path()));
+    reports.clear();
+  }
+
+  /**
+   * 处理一批：一次查询剔除已占用的账号与卡号，并行生成密码后整批插入，失败时逐行重试
+   */
+  private void flush(List<Row> batch, Job job) throws IOException {
+    if (batch.isEmpty()) {
+      return;
+    }
+
+    Set<String> accountNumbers = new HashSet<>();
+    Set<String> cardNumbers = new HashSet<>();
+    for (Row row : batch) {
+      accountNumbers.add(row.request().getAccountNumber());
+      cardNumbers.add(row.request().getCardNumber());
+    }
+    Set<String> takenAccounts = new HashSet<>();
+    Set<String> takenCards = new HashSet<>();
+    for (User existing : userMapper.selectExistingKeys(accountNumbers, cardNumbers)) {
+      takenAccounts.add(existing.getAccountNumber());
+      takenCards.add(existing.getCardNumber());
+    }
+
+    List<Row> accepted = new ArrayList<>(batch.size());
+    for (Row row : batch) {
+      if (takenAccounts.contains(row.request().getAccountNumber())) {
+        job.reject(row.line(), row.request(), "账号已存在");
+      } else if (takenCards.contains(row.request().getCardNumber())) {
+        job.reject(row.line(), row.request(), "校园卡号已存在");
+      } else {
+        accepted.add(row);
+      }
+    }
+    batch.clear();
+    if (accepted.isEmpty()) {
+      return;
+    }
+
+    LocalDateTime now = LocalDateTime.now();
+    List<User> users = accepted.parallelStream().map(row -> toUser(row.request(), now)).toList();
+    try {
+      transactionTemplate.executeWithoutResult(status -> userMapper.insertBatch(users));
+      for (int i = 0; i < users.size(); i++) {
+        job.accept(accepted.get(i).line(), users.get(i));
+      }
+    } catch (RuntimeException e) {
+      log.warn("用户录入 {} 批量插入失败，逐行重试：{}", job.importId, e.getMessage());
+      for (int i = 0; i < users.size(); i++) {
+        User user = users.get(i);
+        try {
+          transactionTemplate.executeWithoutResult(status -> userMapper.insert(user));
+          job.accept(accepted.get(i).line(), user);
+        } catch (RuntimeException rowError) {
+          job.reject(accepted.get(i).line(), accepted.get(i).request(), rowError.getMessage());
+        }
+      }
+    }
+    // 清除新账号、卡号此前缓存的“不存在”
+    userCache.evict(users.stream().map(User::getAccountNumber).toList(),
+        users.stream().map(User::getCardNumber).toList());
+  }
+
+  private static User toUser(UserAddRequest request, LocalDateTime now) {
+    String initialPassword = PasswordUtil.generateInitialPassword(request.getAccountNumber());
+    User user = new User();
+    user.setAccountNumber(request.getAccountNumber());
+    user.setName(request.getName());
+    user.setIdentity(request.getIdentity());
+    user.setCardNumber(request.getCardNumber());
+    user.setPassword(PasswordUtil.sha256(initialPassword));
+    user.setInitialPassword(initialPassword);
+    user.setRole("user");
+    user.setStatus("正常");
+    user.setLoginFailCount(0);
+    user.setCreateTime(now);
+    user.setUpdateTime(now);
+    return user;
+  }
+
+  private static void trim(UserAddRequest request) {
+    request.setAccountNumber(request.getAccountNumber().trim());
+    request.setName(request.getName().trim());
+    request.setIdentity(request.getIdentity().trim());
+    request.setCardNumber(request.getCardNumber().trim());
+  }
+
+  private UserAddRequest parseJsonRow(String line) {
+    try {
+      return objectMapper.readValue(line, UserAddRequest.class);
+    } catch (JsonProcessingException e) {
+      throw new IllegalArgumentException("JSON 格式错误：" + e.getOriginalMessage());
+    }
+  }
+
+  /**
+   * 解析 CSV 列名行
+   * 
+   * @return 各录入字段所在列下标
+   */
+  static int[] parseHeader(String line) {
+    List<String> header = BookImportService.parseCsvLine(line);
+    int[] columns = new int[CSV_COLUMNS.size()];
+    List<String> missing = new ArrayList<>();
+    for (int i = 0; i < CSV_COLUMNS.size(); i++) {
+      columns[i] = -1;
+      for (int j = 0; j < header.size(); j++) {
+        if (header.get(j).trim().equalsIgnoreCase(CSV_COLUMNS.get(i))) {
+          columns[i] = j;
+        }
+      }
+      if (columns[i] < 0) {
+        missing.add(CSV_COLUMNS.get(i));
+      }
+    }
+    if (!missing.isEmpty()) {
+      throw new IllegalArgumentException("CSV 首行缺少列：" + String.join(",", missing));
+    }
+    return columns;
+  }
+
+  static UserAddRequest parseCsvRow(String line, int[] columns) {
+    List<String> fields = BookImportService.parseCsvLine(line);
+    UserAddRequest request = new UserAddRequest();
+    request.setAccountNumber(field(fields, columns[0]));
+    request.setName(field(fields, columns[1]));
+    request.setIdentity(field(fields, columns[2]));
+    request.setCardNumber(field(fields, columns[3]));
+    return request;
+  }
+
+  private static String field(List<String> fields, int column) {
+    return column < fields.size() ? fields.get(column) : null;
+  }
+
+  /**
+   * 转义 CSV 字段（含逗号、引号或换行时用双引号包裹）
+   */
+  static String csvField(Object value) {
+    if (value == null) {
+      return "";
+    }
+    String text = value.toString();
+    if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+      return text;
+    }
+    return '"' + text.replace("\"", "\"\"") + '"';
+  }
+
+  private static String newReportId() {
+    byte[] token = new byte[REPORT_TOKEN_BYTES];
+    RANDOM.nextBytes(token);
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(token);
+  }
+
+  private static void delete(Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException e) {
+      log.warn("删除录入报告失败：{} {}", path, e.getMessage());
+    }
+  }
+
+  private record Row(int line, UserAddRequest request) {
+  }
+
+  private record Report(Path path, String uploader, long createdMillis) {
+  }
+
+  /**
+   * 一次录入的计数、错误摘要与报告输出
+   */
+  private static final class Job {
+
+    private final String importId;
+
+    private final List<Map<String, Object>> errors = new ArrayList<>();
+
+    private BufferedWriter report;
+
+    private long total;
+
+    private long succeeded;
+
+    private long failed;
+
+    private Job(String importId) {
+      this.importId = importId;
+    }
+
+    private void accept(int line, User user) throws IOException {
+      succeeded++;
+      writeRow(line, user.getAccountNumber(), user.getName(), user.getIdentity(), user.getCardNumber(),
+          user.getInitialPassword(), "成功", "");
+    }
+
+    private void reject(int line, UserAddRequest request, String message) throws IOException {
+      failed++;
+      if (errors.size() < BookImportService.MAX_REPORTED_ERRORS) {
+        Map<String, Object> error = new HashMap<>();
+        error.put("line", line);
+        error.put("message", message);
+        errors.add(error);
+      }
+      if (request == null) {
+        writeRow(line, null, null, null, null, null, "失败", message);
+      } else {
+        writeRow(line, request.getAccountNumber(), request.getName(), request.getIdentity(),
+            request.getCardNumber(), null, "失败", message);
+      }
+    }
+
+    private void writeRow(Object... values) throws IOException {
+      for (int i = 0; i < values.length; i++) {
+        if (i > 0) {
+          report.write(',');
+        }
+        report.write(csvField(values[i]));
+      }
+      report.newLine();
+    }
+  }
+}
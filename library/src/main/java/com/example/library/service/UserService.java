@@ -24,6 +24,7 @@ import java.util.Map;
 public class UserService {
 
   private final UserMapper userMapper;
+  private final UserCache userCache;
 
   /**
    * 用户录入
@@ -62,6 +63,8 @@ public class UserService {
     user.setUpdateTime(LocalDateTime.now());
 
     userMapper.insert(user);
+    // 清除该账号、卡号此前缓存的“不存在”
+    userCache.evict(user.getAccountNumber(), user.getCardNumber());
 
     Map<String, Object> result = new HashMap<>();
     result.put("accountNumber", user.getAccountNumber());
@@ -77,13 +80,11 @@ public class UserService {
   }
 
   /**
-   * 用户查询
+   * 用户查询（按卡号读缓存后核对账号）
    */
   public User getUserByAccountAndCard(String accountNumber, String cardNumber) {
-    LambdaQueryWrapper<User> wrapper = new LambdaQueryWrapper<>();
-    wrapper.eq(User::getAccountNumber, accountNumber);
-    wrapper.eq(User::getCardNumber, cardNumber);
-    return userMapper.selectOne(wrapper);
+    User user = userCache.getByCardNumber(cardNumber);
+    return user != null && user.getAccountNumber().equals(accountNumber) ? user : null;
   }
 
   /**
@@ -91,7 +92,8 @@ public class UserService {
    */
   @Transactional(rollbackFor = Exception.class)
   public Map<String, Object> resetPassword(String accountNumber, String cardNumber) {
-    User user = getUserByAccountAndCard(accountNumber, cardNumber);
+    // 读库而非缓存：缓存实体为共享对象，不能在其上修改
+    User user = userMapper.selectByAccountAndCard(accountNumber, cardNumber);
     if (user == null) {
       throw new RuntimeException("用户不存在");
     }
@@ -101,6 +103,7 @@ public class UserService {
     user.setPassword(encryptedPassword);
     user.setUpdateTime(LocalDateTime.now());
     userMapper.updateById(user);
+    userCache.evict(accountNumber, cardNumber);
 
     Map<String, Object> result = new HashMap<>();
     result.put("userName", user.getName());
@@ -135,14 +138,14 @@ public class UserService {
    * 根据账号查询用户
    */
   public User getUserByAccountNumber(String accountNumber) {
-    return userMapper.selectByAccountNumber(accountNumber);
+    return userCache.getByAccountNumber(accountNumber);
   }
   
   /**
    * 根据校园卡号查询用户
    */
   public User getUserByCardNumber(String cardNumber) {
-    return userMapper.selectByCardNumber(cardNumber);
+    return userCache.getByCardNumber(cardNumber);
   }
   
   /**
@@ -0,0 +1,148 @@
+package com.example.library.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 字符串布隆过滤器
+ * 按预计元素数与误判率确定位数和哈希次数，由一次 128 位 Murmur3 哈希经双重哈希派生各位置。
+ * 只会误报不会漏报；位数组按 CAS 置位，可并发写入与读取
+ * 
+ * @author Library Management System
+ */
+public class BloomFilter {
+
+  private final AtomicLongArray bits;
+
+  private final long bitCount;
+
+  private final int hashCount;
+
+  /**
+   * @param expectedInsertions 预计元素数
+   * @param falsePositiveRate  预计元素数下的误判率
+   */
+  public BloomFilter(int expectedInsertions, double falsePositiveRate) {
+    if (expectedInsertions < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+      throw new IllegalArgumentException("invalid bloom filter size");
+    }
+    long optimalBits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+    int words = (int) Math.max(1, (optimalBits + 63) / 64);
+    this.bits = new AtomicLongArray(words);
+    this.bitCount = (long) words * 64;
+    this.hashCount = Math.max(1, (int) Math.round((double) bitCount / expectedInsertions * Math.log(2)));
+  }
+
+  /**
+   * 加入元素
+   */
+  public void put(String value) {
+    long[] hash = hash(value);
+    long combined = hash[0];
+    for (int i = 0; i < hashCount; i++) {
+      long index = (combined & Long.MAX_VALUE) % bitCount;
+      long mask = 1L << index;
+      int word = (int) (index >>> 6);
+      if ((bits.get(word) & mask) == 0) {
+        bits.getAndUpdate(word, current -> current | mask);
+      }
+      combined += hash[1];
+    }
+  }
+
+  /**
+   * 元素是否可能存在（false 表示一定不存在）
+   */
+  public boolean mightContain(String value) {
+    long[] hash = hash(value);
+    long combined = hash[0];
+    for (int i = 0; i < hashCount; i++) {
+      long index = (combined & Long.MAX_VALUE) % bitCount;
+      if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+        return false;
+      }
+      combined += hash[1];
+    }
+    return true;
+  }
+
+  /**
+   * 占用字节数
+   */
+  public long sizeInBytes() {
+    return bitCount / 8;
+  }
+
+  /**
+   * Murmur3 x64 128 位哈希（种子 0）
+   */
+  private static long[] hash(String value) {
+    byte[] data = value.getBytes(StandardCharsets.UTF_8);
+    final long c1 = 0x87c37b91114253d5L;
+    final long c2 = 0x4cf5ad432745937fL;
+    long h1 = 0;
+    long h2 = 0;
+    int blocks = data.length / 16;
+    for (int i = 0; i < blocks; i++) {
+      long k1 = getLong(data, i * 16);
+      long k2 = getLong(data, i * 16 + 8);
+      h1 ^= mixK1(k1, c1, c2);
+      h1 = Long.rotateLeft(h1, 27) + h2;
+      h1 = h1 * 5 + 0x52dce729;
+      h2 ^= mixK2(k2, c1, c2);
+      h2 = Long.rotateLeft(h2, 31) + h1;
+      h2 = h2 * 5 + 0x38495ab5;
+    }
+    long k1 = 0;
+    long k2 = 0;
+    int tail = blocks * 16;
+    for (int i = data.length - 1; i >= tail; i--) {
+      int offset = i - tail;
+      if (offset >= 8) {
+        k2 |= (data[i] & 0xffL) << ((offset - 8) * 8);
+      } else {
+        k1 |= (data[i] & 0xffL) << (offset * 8);
+      }
+    }
+    h1 ^= mixK1(k1, c1, c2);
+    h2 ^= mixK2(k2, c1, c2);
+    h1 ^= data.length;
+    h2 ^= data.length;
+    h1 += h2;
+    h2 += h1;
+    h1 = fmix(h1);
+    h2 = fmix(h2);
+    h1 += h2;
+    h2 += h1;
+    return new long[] {h1, h2};
+  }
+
+  private static long getLong(byte[] data, int offset) {
+    long value = 0;
+    for (int i = 7; i >= 0; i--) {
+      value = (value << 8) | (data[offset + i] & 0xffL);
+    }
+    return value;
+  }
+
+  private static long mixK1(long k1, long c1, long c2) {
+    k1 *= c1;
+    k1 = Long.rotateLeft(k1, 31);
+    return k1 * c2;
+  }
+
+  private static long mixK2(long k2, long c1, long c2) {
+    k2 *= c2;
+    k2 = Long.rotateLeft(k2, 33);
+    return k2 * c1;
+  }
+
+  private static long fmix(long k) {
+    k ^= k >>> 33;
+    k *= 0xff51afd7ed558ccdL;
+    k ^= k >>> 33;
+    k *= 0xc4ceb93fe53a3b87L;
+    k ^= k >>> 33;
+    return k;
+  }
+}
@@ -0,0 +1,33 @@
+package com.example.library.util;
+
+/**
+ * ID 生成器接口
+ * 生成全局唯一、按时间递增的 ID，实现可替换
+ * 
+ * @author Library Management System
+ */
+public interface IdGenerator {
+
+  /**
+   * 生成下一个 ID
+   * 
+   * @return 全局唯一的正整数 ID
+   */
+  long nextId();
+
+  /**
+   * 生成带前缀的业务编号
+   * 数字部分定长补零，保证同前缀编号的字典序与时间顺序一致
+   * 
+   * @param prefix 前缀（如 BR、TS）
+   * @return 业务编号
+   */
+  default String nextId(String prefix) {
+    String digits = Long.toString(nextId());
+    StringBuilder builder = new StringBuilder(prefix.length() + 19).append(prefix);
+    for (int i = digits.length(); i < 19; i++) {
+      builder.append('0');
+    }
+    return builder.append(digits).toString();
+  }
+}
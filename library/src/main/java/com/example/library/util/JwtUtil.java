@@ -1,43 +1,86 @@
 package com.example.library.util;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Serializer;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.ServiceLoader;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
  * JWT 工具类
  * 用于生成和解析 JWT Token
+ * 密钥与解析器启动时构建一次（解析器不可变，线程安全）；验签通过的 Claims 按 Token 摘要缓存到其过期时间，
+ * 同一 Token 的后续请求不再重复验签
  * 
  * @author Library Management System
  */
 @Component
 public class JwtUtil {
 
-  @Value("${jwt.secret}")
-  private String secret;
+  private final Key signingKey;
 
-  @Value("${jwt.expiration}")
-  private Long expiration;
+  private final JwtParser parser;
 
   /**
-   * 生成密钥
+   * JSON 序列化器（未指定时每次签发都会经 ServiceLoader 查找）
    */
-  private Key getSigningKey() {
-    byte[] keyBytes = secret.getBytes(StandardCharsets.UTF_8);
-    return Keys.hmacShaKeyFor(keyBytes);
+  private final Serializer<Map<String, ?>> serializer;
+
+  private final long expiration;
+
+  /**
+   * Token 摘要 -> 已验签的 Claims，条目在 Token 过期时失效
+   */
+  private final Cache<String, Claims> verified;
+
+  public JwtUtil(@Value("${jwt.secret}") String secret,
+      @Value("${jwt.expiration}") Long expiration,
+      @Value("${jwt.cache.maximum-size:10000}") long cacheSize) {
+    this.signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+    this.parser = Jwts.parserBuilder().setSigningKey(signingKey).build();
+    this.serializer = loadSerializer();
+    this.expiration = expiration;
+    this.verified = Caffeine.newBuilder()
+        .maximumSize(cacheSize)
+        .expireAfter(new Expiry<String, Claims>() {
+          @Override
+          public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis(claims), 0));
+          }
+
+          @Override
+          public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+          }
+
+          @Override
+          public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+          }
+        })
+        .build();
   }
 
   /**
-   * 生成 Token
+   * 生成 Token（带唯一编号 jti，供登出吊销）
    * 
    * @param account 账号
    * @param role    角色
@@ -53,10 +96,12 @@ public class JwtUtil {
 
     return Jwts.builder()
         .setClaims(claims)
+        .setId(UUID.randomUUID().toString())
         .setSubject(account)
         .setIssuedAt(now)
         .setExpiration(expiryDate)
-        .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+        .signWith(signingKey, SignatureAlgorithm.HS256)
+        .serializeToJsonWith(serializer)
         .compact();
   }
 
@@ -83,21 +128,30 @@ public class JwtUtil {
   }
 
   /**
-   * 从 Token 中获取 Claims
+   * 从 Token 中获取 Claims（验签且未过期），同一 Token 只验签一次
    * 
    * @param token Token 字符串
-   * @return Claims 对象
+   * @return Claims 对象，无效或已过期时返回 null
    */
-  private Claims getClaimsFromToken(String token) {
-    try {
-      return Jwts.parserBuilder()
-          .setSigningKey(getSigningKey())
-          .build()
-          .parseClaimsJws(token)
-          .getBody();
-    } catch (Exception e) {
+  public Claims getClaimsFromToken(String token) {
+    if (token == null || token.isEmpty()) {
       return null;
     }
+    String digest = digest(token);
+    Claims claims = verified.getIfPresent(digest);
+    if (claims == null) {
+      try {
+        claims = parser.parseClaimsJws(token).getBody();
+      } catch (Exception e) {
+        return null;
+      }
+      if (claims.getExpiration() == null) {
+        return null;
+      }
+      verified.put(digest, claims);
+    }
+    // 缓存按过期时间淘汰存在时钟粒度，读取时再确认一次
+    return remainingMillis(claims) > 0 ? claims : null;
   }
 
   /**
@@ -107,16 +161,28 @@ public class JwtUtil {
    * @return 是否有效
    */
   public boolean validateToken(String token) {
-    try {
-      Claims claims = getClaimsFromToken(token);
-      if (claims == null) {
-        return false;
-      }
+    return getClaimsFromToken(token) != null;
+  }
+
+  /**
+   * 距过期的毫秒数
+   */
+  private static long remainingMillis(Claims claims) {
+    return claims.getExpiration().getTime() - System.currentTimeMillis();
+  }
 
-      Date expiration = claims.getExpiration();
-      return expiration.after(new Date());
-    } catch (Exception e) {
-      return false;
+  @SuppressWarnings("unchecked")
+  private static Serializer<Map<String, ?>> loadSerializer() {
+    return ServiceLoader.load(Serializer.class, JwtUtil.class.getClassLoader()).findFirst()
+        .orElseThrow(() -> new IllegalStateException("未找到 JWT JSON 序列化实现"));
+  }
+
+  private static String digest(String token) {
+    try {
+      byte[] hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+      return Base64.getEncoder().encodeToString(hash);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
     }
   }
 }
@@ -0,0 +1,291 @@
+package com.example.library.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 字符 N-Gram 倒排索引
+ * 对文本建立单字与双字倒排表，支持中文书名、编号片段的子串匹配。
+ * 查询先按双字（单字查询按单字）求交集得到候选，再用 contains 校验去除误命中
+ * 
+ * 文档以递增整数编号存储，倒排表天然有序；文本变更或删除时旧编号置为墓碑，
+ * 墓碑数超过在用文档数（且不少于 MIN_COMPACT_TOMBSTONES）时按原顺序重新编号并重建倒排表，回收墓碑占用
+ * 
+ * @author Library Management System
+ * @param <K> 文档键类型
+ */
+public class NGramIndex<K> {
+
+  /**
+   * 触发压缩的最少墓碑数，避免小索引频繁重建
+   */
+  static final int MIN_COMPACT_TOMBSTONES = 1024;
+
+  private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+  /**
+   * 文档编号 -> 键
+   */
+  private final List<K> keys = new ArrayList<>();
+
+  /**
+   * 文档编号 -> 规范化文本（null 表示已删除）
+   */
+  private final List<String> texts = new ArrayList<>();
+
+  /**
+   * 键 -> 当前文档编号
+   */
+  private final Map<K, Integer> idByKey = new HashMap<>();
+
+  /**
+   * 单字/双字 -> 文档编号列表（升序）
+   */
+  private final Map<String, Postings> postings = new HashMap<>();
+
+  /**
+   * 墓碑数（已变更或删除的文档编号）
+   */
+  private int tombstones;
+
+  /**
+   * 写入或更新文档
+   * 
+   * @param key  文档键
+   * @param text 文档文本
+   */
+  public void put(K key, String text) {
+    String normalized = normalize(text);
+    lock.writeLock().lock();
+    try {
+      Integer current = idByKey.get(key);
+      if (current != null) {
+        if (normalized.equals(texts.get(current))) {
+          return;
+        }
+        tombstone(current);
+      }
+      append(key, normalized);
+      compactIfNeeded();
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * 删除文档
+   * 
+   * @param key 文档键
+   */
+  public void remove(K key) {
+    lock.writeLock().lock();
+    try {
+      Integer current = idByKey.remove(key);
+      if (current != null) {
+        tombstone(current);
+        compactIfNeeded();
+      }
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * 清空索引
+   */
+  public void clear() {
+    lock.writeLock().lock();
+    try {
+      keys.clear();
+      texts.clear();
+      idByKey.clear();
+      postings.clear();
+      tombstones = 0;
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  /**
+   * 子串查询
+   * 
+   * @param query 查询片段
+   * @param limit 最多返回数量，超过时返回 limit + 1 个以便调用方判断是否截断
+   * @return 文本包含查询片段的文档键，按写入顺序
+   */
+  public List<K> search(String query, int limit) {
+    String normalized = normalize(query);
+    if (normalized.isEmpty()) {
+      return Collections.emptyList();
+    }
+
+    lock.readLock().lock();
+    try {
+      // 取出查询片段全部 gram 的倒排表，按长度升序，用最短的表驱动求交
+      Set<String> queryGrams = normalized.length() == 1
+          ? Collections.singleton(normalized)
+          : bigrams(normalized);
+      Postings[] lists = new Postings[queryGrams.size()];
+      int index = 0;
+      for (String gram : queryGrams) {
+        Postings list = postings.get(gram);
+        if (list == null) {
+          return Collections.emptyList();
+        }
+        lists[index++] = list;
+      }
+      Arrays.sort(lists, (a, b) -> Integer.compare(a.size, b.size));
+
+      List<K> result = new ArrayList<>();
+      Postings driver = lists[0];
+      for (int i = 0; i < driver.size && result.size() <= limit; i++) {
+        int id = driver.ids[i];
+        if (containsInAll(lists, id)) {
+          String text = texts.get(id);
+          if (text != null && text.contains(normalized)) {
+            result.add(keys.get(id));
+          }
+        }
+      }
+      return result;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * 读取文档的规范化文本
+   */
+  public String get(K key) {
+    lock.readLock().lock();
+    try {
+      Integer id = idByKey.get(key);
+      return id == null ? null : texts.get(id);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * 当前文档数
+   */
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return idByKey.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * 已分配的文档编号数（含墓碑）
+   */
+  int slots() {
+    lock.readLock().lock();
+    try {
+      return keys.size();
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  /**
+   * 规范化：去除首尾空白并转小写
+   */
+  public static String normalize(String text) {
+    return text == null ? "" : text.trim().toLowerCase(Locale.ROOT);
+  }
+
+  private void append(K key, String normalized) {
+    int id = keys.size();
+    keys.add(key);
+    texts.add(normalized);
+    idByKey.put(key, id);
+    for (String gram : grams(normalized)) {
+      postings.computeIfAbsent(gram, g -> new Postings()).add(id);
+    }
+  }
+
+  private void tombstone(int id) {
+    keys.set(id, null);
+    texts.set(id, null);
+    tombstones++;
+  }
+
+  /**
+   * 墓碑过多时按原顺序重新编号，重建倒排表（调用方持有写锁）
+   */
+  private void compactIfNeeded() {
+    if (tombstones < MIN_COMPACT_TOMBSTONES || tombstones < idByKey.size()) {
+      return;
+    }
+    List<K> liveKeys = new ArrayList<>(idByKey.size());
+    List<String> liveTexts = new ArrayList<>(idByKey.size());
+    for (int id = 0; id < texts.size(); id++) {
+      if (texts.get(id) != null) {
+        liveKeys.add(keys.get(id));
+        liveTexts.add(texts.get(id));
+      }
+    }
+    keys.clear();
+    texts.clear();
+    idByKey.clear();
+    postings.clear();
+    tombstones = 0;
+    for (int i = 0; i < liveKeys.size(); i++) {
+      append(liveKeys.get(i), liveTexts.get(i));
+    }
+  }
+
+  private static boolean containsInAll(Postings[] lists, int id) {
+    for (int i = 1; i < lists.length; i++) {
+      if (Arrays.binarySearch(lists[i].ids, 0, lists[i].size, id) < 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static Set<String> grams(String text) {
+    Set<String> grams = new LinkedHashSet<>();
+    for (int i = 0; i < text.length(); i++) {
+      grams.add(text.substring(i, i + 1));
+    }
+    grams.addAll(bigrams(text));
+    return grams;
+  }
+
+  private static Set<String> bigrams(String text) {
+    Set<String> grams = new LinkedHashSet<>();
+    for (int i = 0; i + 1 < text.length(); i++) {
+      grams.add(text.substring(i, i + 2));
+    }
+    return grams;
+  }
+
+  /**
+   * 有序整数倒排表
+   */
+  private static final class Postings {
+
+    private int[] ids = new int[4];
+
+    private int size;
+
+    void add(int id) {
+      if (size == ids.length) {
+        ids = Arrays.copyOf(ids, size * 2);
+      }
+      ids[size++] = id;
+    }
+  }
+}
@@ -0,0 +1,56 @@
+package com.example.library.util;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 键集分页游标
+ * 由排序时间与主键组成，对外编码为不透明字符串
+ * 
+ * @author Library Management System
+ */
+@Data
+@AllArgsConstructor
+public class SeekCursor {
+
+  /**
+   * 排序时间
+   */
+  private LocalDateTime time;
+
+  /**
+   * 主键ID
+   */
+  private Long id;
+
+  /**
+   * 编码为不透明字符串
+   */
+  public String encode() {
+    String raw = time + "|" + id;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * 解析游标，空字符串表示第一页
+   * 
+   * @param token 游标字符串
+   * @return 游标，第一页返回 null
+   */
+  public static SeekCursor decode(String token) {
+    if (token == null || token.isEmpty()) {
+      return null;
+    }
+    try {
+      String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+      int separator = raw.indexOf('|');
+      return new SeekCursor(LocalDateTime.parse(raw.substring(0, separator)), Long.parseLong(raw.substring(separator + 1)));
+    } catch (RuntimeException e) {
+      throw new RuntimeException("分页游标无效");
+    }
+  }
+}
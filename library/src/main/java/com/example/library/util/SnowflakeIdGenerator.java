@@ -0,0 +1,82 @@
+package com.example.library.util;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * 雪花算法 ID 生成器
+ * 结构：41位毫秒时间戳 + 10位节点ID + 12位毫秒内序列
+ * 
+ * 时间戳与序列打包在一个 AtomicLong 中通过 CAS 推进，无锁；
+ * 同一毫秒序列用尽时自旋等待时钟进入下一毫秒，ID 中的时间戳不会超前于时钟。
+ * 时钟回拨时沿用上次的时间戳继续分配序列，序列用尽则等待时钟追上，不重复
+ * 
+ * @author Library Management System
+ */
+@Component
+public class SnowflakeIdGenerator implements IdGenerator {
+
+  /**
+   * 起始时间 2026-01-01T00:00:00Z
+   */
+  static final long EPOCH = 1767225600000L;
+
+  static final int NODE_BITS = 10;
+
+  static final int SEQUENCE_BITS = 12;
+
+  static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+
+  private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+  private final long nodeId;
+
+  private final LongSupplier clock;
+
+  /**
+   * 最近一次分配的（时间戳 << SEQUENCE_BITS | 序列）
+   */
+  private final AtomicLong state = new AtomicLong();
+
+  public SnowflakeIdGenerator(@Value("${system.id.node-id:0}") long nodeId) {
+    this(nodeId, System::currentTimeMillis);
+  }
+
+  SnowflakeIdGenerator(long nodeId, LongSupplier clock) {
+    if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+      throw new IllegalArgumentException("节点ID应在0-" + MAX_NODE_ID + "之间");
+    }
+    this.nodeId = nodeId;
+    this.clock = clock;
+  }
+
+  @Override
+  public long nextId() {
+    long next;
+    while (true) {
+      long now = clock.getAsLong() - EPOCH;
+      long prev = state.get();
+      if (now > (prev >>> SEQUENCE_BITS)) {
+        // 进入新的毫秒，序列归零
+        next = now << SEQUENCE_BITS;
+      } else if ((prev & SEQUENCE_MASK) < SEQUENCE_MASK) {
+        // 同一毫秒（或时钟回拨）内序列加一
+        next = prev + 1;
+      } else {
+        // 序列用尽，等待下一毫秒
+        Thread.onSpinWait();
+        continue;
+      }
+      if (state.compareAndSet(prev, next)) {
+        break;
+      }
+    }
+
+    long timestamp = next >>> SEQUENCE_BITS;
+    long sequence = next & SEQUENCE_MASK;
+    return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+  }
+}
@@ -0,0 +1,105 @@
+package com.example.library.util;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Space-Saving 频繁项统计
+ * 以固定数量的计数器近似统计数据流中的高频项：未跟踪的新项替换当前最小计数器并继承其计数（记为误差上界）。
+ * 真实频次超过 总量/容量 的项一定被跟踪，且估计值不低于真实值、不超过真实值加误差。非线程安全
+ * 
+ * @author Library Management System
+ * @param <K> 项类型
+ */
+public class SpaceSaving<K> {
+
+  private final int capacity;
+
+  private final Map<K, Counter<K>> counters = new HashMap<>();
+
+  /**
+   * 按 (计数, 序号) 升序，首个即最小计数器
+   */
+  private final TreeSet<Counter<K>> ordered = new TreeSet<>((a, b) -> a.count != b.count
+      ? Long.compare(a.count, b.count) : Long.compare(a.sequence, b.sequence));
+
+  private long total;
+
+  private long sequence;
+
+  public SpaceSaving(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+    this.capacity = capacity;
+  }
+
+  /**
+   * 记录一次出现
+   * 
+   * @param key    项
+   * @param weight 次数
+   */
+  public void offer(K key, long weight) {
+    total += weight;
+    Counter<K> counter = counters.get(key);
+    if (counter == null) {
+      if (counters.size() < capacity) {
+        counter = new Counter<>(key, 0, 0, sequence++);
+      } else {
+        Counter<K> evicted = ordered.pollFirst();
+        counters.remove(evicted.key);
+        counter = new Counter<>(key, evicted.count, evicted.count, sequence++);
+      }
+      counters.put(key, counter);
+    } else {
+      ordered.remove(counter);
+    }
+    counter.count += weight;
+    ordered.add(counter);
+  }
+
+  /**
+   * 计数器已满时的最小计数（未被跟踪项真实频次的上界），未满时为 0
+   */
+  public long floor() {
+    return counters.size() < capacity || ordered.isEmpty() ? 0 : ordered.first().count;
+  }
+
+  /**
+   * 已记录的总次数
+   */
+  public long total() {
+    return total;
+  }
+
+  /**
+   * 当前跟踪项的 [估计次数, 误差上界]
+   */
+  public Map<K, long[]> snapshot() {
+    Map<K, long[]> snapshot = new HashMap<>(counters.size() * 2);
+    for (Counter<K> counter : counters.values()) {
+      snapshot.put(counter.key, new long[] {counter.count, counter.error});
+    }
+    return snapshot;
+  }
+
+  private static final class Counter<K> {
+
+    private final K key;
+
+    private long count;
+
+    private final long error;
+
+    private final long sequence;
+
+    private Counter(K key, long count, long error, long sequence) {
+      this.key = key;
+      this.count = count;
+      this.error = error;
+      this.sequence = sequence;
+    }
+  }
+}
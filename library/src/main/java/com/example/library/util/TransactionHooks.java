@@ -0,0 +1,49 @@
+package com.example.library.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 事务回调工具类
+ * 用于在事务提交后再更新内存中的派生数据，避免回滚导致内存与数据库不一致
+ * 
+ * @author Library Management System
+ */
+public class TransactionHooks {
+
+  /**
+   * 在当前事务提交后执行；没有活动事务时立即执行
+   * 
+   * @param action 回调动作
+   */
+  public static void afterCommit(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        action.run();
+      }
+    });
+  }
+
+  /**
+   * 在当前事务结束（提交或回滚）后执行，晚于全部提交回调；没有活动事务时立即执行
+   * 
+   * @param action 回调动作
+   */
+  public static void afterCompletion(Runnable action) {
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      action.run();
+      return;
+    }
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        action.run();
+      }
+    });
+  }
+}
@@ -14,7 +14,7 @@ USE library_management_system;
 DROP TABLE IF EXISTS `tb_book`;
 CREATE TABLE `tb_book` (
   `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID',
-  `collection_number` varchar(50) NOT NULL COMMENT '馆藏号（TS+时间戳+随机数）',
+  `collection_number` varchar(50) NOT NULL COMMENT '馆藏号（TS+19位有序ID）',
   `isbn` varchar(20) NOT NULL COMMENT 'ISBN号',
   `title` varchar(200) NOT NULL COMMENT '书名',
   `author` varchar(100) NOT NULL COMMENT '作者',
@@ -28,7 +28,8 @@ CREATE TABLE `tb_book` (
   UNIQUE KEY `uk_collection_number` (`collection_number`),
   KEY `idx_isbn` (`isbn`),
   KEY `idx_title` (`title`),
-  KEY `idx_status` (`status`)
+  KEY `idx_status` (`status`),
+  KEY `idx_update_time` (`update_time`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='图书信息表';
 
 -- 3. 创建图书状态历史表
@@ -40,7 +41,7 @@ CREATE TABLE `tb_book_status_history` (
   `operator` varchar(50) NOT NULL COMMENT '操作员账号',
   `operate_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '操作时间',
   PRIMARY KEY (`id`),
-  KEY `idx_collection_number` (`collection_number`)
+  KEY `idx_collection_operate_time_id` (`collection_number`, `operate_time`, `id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='图书状态历史表';
 
 -- 4. 创建用户表
@@ -57,6 +58,7 @@ CREATE TABLE `tb_user` (
   `status` varchar(20) NOT NULL DEFAULT '正常' COMMENT '账号状态（正常/锁定/停用）',
   `lock_time` datetime DEFAULT NULL COMMENT '锁定时间',
   `login_fail_count` int NOT NULL DEFAULT 0 COMMENT '登录失败次数',
+  `borrowing_count` int NOT NULL DEFAULT 0 COMMENT '当前在借数量（借阅额度计数器）',
   `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   `deleted` tinyint NOT NULL DEFAULT 0 COMMENT '逻辑删除标识（0-未删除，1-已删除）',
@@ -71,7 +73,7 @@ CREATE TABLE `tb_user` (
 DROP TABLE IF EXISTS `tb_borrow_record`;
 CREATE TABLE `tb_borrow_record` (
   `id` bigint NOT NULL AUTO_INCREMENT COMMENT '主键ID',
-  `record_id` varchar(50) NOT NULL COMMENT '借阅记录ID（BR+时间戳）',
+  `record_id` varchar(50) NOT NULL COMMENT '借阅记录ID（BR+19位有序ID）',
   `card_number` varchar(50) NOT NULL COMMENT '校园卡号',
   `user_name` varchar(100) NOT NULL COMMENT '用户姓名',
   `user_identity` varchar(20) NOT NULL COMMENT '用户身份',
@@ -90,10 +92,11 @@ CREATE TABLE `tb_borrow_record` (
   PRIMARY KEY (`id`),
   UNIQUE KEY `uk_record_id` (`record_id`),
   KEY `idx_card_number` (`card_number`),
-  KEY `idx_account_number` (`account_number`),
+  KEY `idx_account_borrow_date_id` (`account_number`, `borrow_date`, `id`),
   KEY `idx_collection_number` (`collection_number`),
   KEY `idx_status` (`status`),
-  KEY `idx_borrow_date` (`borrow_date`)
+  KEY `idx_borrow_date_id` (`borrow_date`, `id`),
+  KEY `idx_update_time` (`update_time`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='借阅记录表';
 
 -- 6. 创建系统配置表
@@ -103,13 +106,49 @@ CREATE TABLE `tb_system_config` (
   `config_key` varchar(50) NOT NULL COMMENT '配置键',
   `config_value` varchar(200) NOT NULL COMMENT '配置值',
   `description` varchar(200) DEFAULT NULL COMMENT '配置描述',
+  `version` bigint NOT NULL DEFAULT 0 COMMENT '版本号（每次修改加一）',
   `create_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   PRIMARY KEY (`id`),
   UNIQUE KEY `uk_config_key` (`config_key`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='系统配置表';
 
--- 7. 插入初始数据
+-- 7. 创建借阅流通日汇总表
+DROP TABLE IF EXISTS `tb_circulation_daily`;
+CREATE TABLE `tb_circulation_daily` (
+  `stat_date` date NOT NULL COMMENT '统计日期',
+  `borrow_count` int NOT NULL DEFAULT 0 COMMENT '当日借出册数',
+  `return_count` int NOT NULL DEFAULT 0 COMMENT '当日归还册数',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`stat_date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='借阅流通日汇总表';
+
+-- 8. 创建借阅流通多维汇总表
+DROP TABLE IF EXISTS `tb_circulation_cube`;
+CREATE TABLE `tb_circulation_cube` (
+  `stat_date` date NOT NULL COMMENT '统计日期',
+  `user_identity` varchar(20) NOT NULL COMMENT '读者身份（教师/学生）',
+  `zone` varchar(20) NOT NULL COMMENT '馆藏区域（由馆藏位置解析，如：A区）',
+  `operator` varchar(50) NOT NULL COMMENT '操作员账号',
+  `borrow_count` int NOT NULL DEFAULT 0 COMMENT '借出册数',
+  `return_count` int NOT NULL DEFAULT 0 COMMENT '归还册数',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`stat_date`, `user_identity`, `zone`, `operator`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='借阅流通多维汇总表';
+
+-- 9. 创建 Token 吊销记录表
+DROP TABLE IF EXISTS `tb_token_revocation`;
+CREATE TABLE `tb_token_revocation` (
+  `jti` varchar(64) NOT NULL COMMENT 'Token 编号',
+  `account_number` varchar(50) DEFAULT NULL COMMENT '账号',
+  `expire_time` datetime NOT NULL COMMENT 'Token 过期时间',
+  `revoke_time` datetime NOT NULL COMMENT '吊销时间',
+  PRIMARY KEY (`jti`),
+  KEY `idx_expire_time` (`expire_time`),
+  KEY `idx_revoke_time` (`revoke_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Token 吊销记录表';
+
+-- 10. 插入初始数据
 
 -- 插入管理员账号（密码：admin，SHA256加密后的值）
 INSERT INTO `tb_user` (`account_number`, `name`, `identity`, `card_number`, `password`, `initial_password`, `role`, `status`) 
@@ -123,7 +162,7 @@ INSERT INTO `tb_system_config` (`config_key`, `config_value`, `description`) VAL
 ('student_borrow_days', '60', '学生借阅期限（天）'),
 ('max_borrow_count', '5', '单次最大借阅数量（本）');
 
--- 8. 插入测试数据（可选）
+-- 11. 插入测试数据（可选）
 
 -- 插入测试学生用户
 INSERT INTO `tb_user` (`account_number`, `name`, `identity`, `card_number`, `password`, `initial_password`, `role`, `status`) 
@@ -0,0 +1,76 @@
+-- ====================================
+-- 图书馆管理系统数据库升级脚本
+-- 适用于已按 schema.sql v1.0 初始化的数据库，按顺序执行
+-- 新建库直接执行 schema.sql 即可，无需执行本脚本
+-- ====================================
+
+USE library_management_system;
+
+-- 1. 借阅额度计数器
+ALTER TABLE `tb_user`
+  ADD COLUMN `borrowing_count` int NOT NULL DEFAULT 0 COMMENT '当前在借数量（借阅额度计数器）' AFTER `login_fail_count`;
+
+UPDATE `tb_user` u
+SET u.`borrowing_count` = (
+  SELECT COUNT(*) FROM `tb_borrow_record` r
+  WHERE r.`card_number` = u.`card_number` AND r.`status` = '借阅中'
+);
+
+-- 2. 借阅记录键集分页索引
+ALTER TABLE `tb_borrow_record`
+  DROP INDEX `idx_borrow_date`,
+  ADD INDEX `idx_borrow_date_id` (`borrow_date`, `id`);
+
+-- 3. 个人借阅记录键集分页索引
+ALTER TABLE `tb_borrow_record`
+  DROP INDEX `idx_account_number`,
+  ADD INDEX `idx_account_borrow_date_id` (`account_number`, `borrow_date`, `id`);
+
+-- 4. 图书状态历史键集分页索引
+ALTER TABLE `tb_book_status_history`
+  DROP INDEX `idx_collection_number`,
+  ADD INDEX `idx_collection_operate_time_id` (`collection_number`, `operate_time`, `id`);
+
+-- 5. 借阅流通日汇总表（建表后调用 POST /api/statistics/borrow-trend/backfill 回填历史数据）
+CREATE TABLE `tb_circulation_daily` (
+  `stat_date` date NOT NULL COMMENT '统计日期',
+  `borrow_count` int NOT NULL DEFAULT 0 COMMENT '当日借出册数',
+  `return_count` int NOT NULL DEFAULT 0 COMMENT '当日归还册数',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`stat_date`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='借阅流通日汇总表';
+
+-- 6. 借阅流通多维汇总表（建表后调用 POST /api/statistics/circulation/backfill 回填历史数据）
+CREATE TABLE `tb_circulation_cube` (
+  `stat_date` date NOT NULL COMMENT '统计日期',
+  `user_identity` varchar(20) NOT NULL COMMENT '读者身份（教师/学生）',
+  `zone` varchar(20) NOT NULL COMMENT '馆藏区域（由馆藏位置解析，如：A区）',
+  `operator` varchar(50) NOT NULL COMMENT '操作员账号',
+  `borrow_count` int NOT NULL DEFAULT 0 COMMENT '借出册数',
+  `return_count` int NOT NULL DEFAULT 0 COMMENT '归还册数',
+  `update_time` datetime NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`stat_date`, `user_identity`, `zone`, `operator`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='借阅流通多维汇总表';
+
+-- 7. Token 吊销记录表（登出后吊销 Token）
+CREATE TABLE `tb_token_revocation` (
+  `jti` varchar(64) NOT NULL COMMENT 'Token 编号',
+  `account_number` varchar(50) DEFAULT NULL COMMENT '账号',
+  `expire_time` datetime NOT NULL COMMENT 'Token 过期时间',
+  `revoke_time` datetime NOT NULL COMMENT '吊销时间',
+  PRIMARY KEY (`jti`),
+  KEY `idx_expire_time` (`expire_time`),
+  KEY `idx_revoke_time` (`revoke_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='Token 吊销记录表';
+
+-- 8. 系统配置版本号（各实例轮询版本发现配置变更）
+ALTER TABLE `tb_system_config`
+  ADD COLUMN `version` bigint NOT NULL DEFAULT 0 COMMENT '版本号（每次修改加一）' AFTER `description`;
+
+-- 9. 图书更新时间索引（各实例按更新时间增量同步馆藏检索索引）
+ALTER TABLE `tb_book`
+  ADD INDEX `idx_update_time` (`update_time`);
+
+-- 10. 借阅记录更新时间索引（各实例按更新时间增量同步在借投影）
+ALTER TABLE `tb_borrow_record`
+  ADD INDEX `idx_update_time` (`update_time`);
@@ -0,0 +1,142 @@
+package com.example.library.benchmark;
+
+import com.example.library.mapper.TokenRevocationMapper;
+import com.example.library.security.AuthInterceptor;
+import com.example.library.security.TokenRevocationList;
+import com.example.library.util.JwtUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.server.PathContainer;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.lang.reflect.Proxy;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 认证拦截器单次请求耗时基准（目标 50µs 以内）
+ * authenticate 为携带已验签缓存命中 Token 的请求，firstSeen 为每次都是新 Token（完整验签），
+ * publicPathMatch 为公开接口路径匹配的开销，revocationCheck 为吊销表有 10 万条记录时单次吊销校验的开销
+ * 运行：mvn test-compile 后执行本类 main 方法
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class AuthInterceptorBenchmark {
+
+  private static final String SECRET = "library-management-system-jwt-secret-key-2026";
+
+  private static final int TOKENS = 500;
+
+  /**
+   * 吊销表中已登出的 Token 数（分布在 2 小时有效期内）
+   */
+  private static final int REVOKED = 100_000;
+
+  private JwtUtil jwtUtil;
+
+  private JwtUtil uncachedJwtUtil;
+
+  private AuthInterceptor interceptor;
+
+  private AuthInterceptor uncachedInterceptor;
+
+  private TokenRevocationList revocationList;
+
+  private MockHttpServletRequest[] requests;
+
+  private Claims[] claims;
+
+  private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+  private final List<PathPattern> publicPatterns = List.of(
+      PathPatternParser.defaultInstance.parse("/api/auth/login"),
+      PathPatternParser.defaultInstance.parse("/api/auth/logout"));
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    jwtUtil = new JwtUtil(SECRET, 7_200_000L, 10_000);
+    uncachedJwtUtil = new JwtUtil(SECRET, 7_200_000L, 0);
+    revocationList = new TokenRevocationList(stubMapper(), 10, 10_000);
+    long now = System.currentTimeMillis();
+    for (int i = 0; i < REVOKED; i++) {
+      revocationList.revoke(UUID.randomUUID().toString(), "logged-out", new Date(now + 7_200_000L * i / REVOKED));
+    }
+    interceptor = new AuthInterceptor(jwtUtil, revocationList, new ObjectMapper());
+    uncachedInterceptor = new AuthInterceptor(uncachedJwtUtil, revocationList, new ObjectMapper());
+    requests = new MockHttpServletRequest[TOKENS];
+    claims = new Claims[TOKENS];
+    for (int i = 0; i < TOKENS; i++) {
+      String token = jwtUtil.generateToken(String.format("2021%04d", i), "user");
+      MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books");
+      request.addHeader("Authorization", "Bearer " + token);
+      requests[i] = request;
+      claims[i] = jwtUtil.getClaimsFromToken(token);
+    }
+  }
+
+  @Benchmark
+  public boolean authenticate() throws Exception {
+    return interceptor.preHandle(pick(), response, this);
+  }
+
+  @Benchmark
+  public boolean firstSeen() throws Exception {
+    return uncachedInterceptor.preHandle(pick(), response, this);
+  }
+
+  @Benchmark
+  public boolean revocationCheck() {
+    return revocationList.isRevoked(claims[ThreadLocalRandom.current().nextInt(TOKENS)]);
+  }
+
+  @Benchmark
+  public boolean publicPathMatch() {
+    PathContainer path = PathContainer.parsePath(pick().getRequestURI());
+    for (PathPattern pattern : publicPatterns) {
+      if (pattern.matches(path)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private MockHttpServletRequest pick() {
+    return requests[ThreadLocalRandom.current().nextInt(TOKENS)];
+  }
+
+  /**
+   * 吊销记录表桩，写入不落库
+   */
+  private static TokenRevocationMapper stubMapper() {
+    return (TokenRevocationMapper) Proxy.newProxyInstance(TokenRevocationMapper.class.getClassLoader(),
+        new Class<?>[] {TokenRevocationMapper.class}, (proxy, method, args) -> 1);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(AuthInterceptorBenchmark.class.getSimpleName()).build()).run();
+  }
+}
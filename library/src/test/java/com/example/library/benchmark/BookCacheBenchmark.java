@@ -0,0 +1,148 @@
+package com.example.library.benchmark;
+
+import com.example.library.entity.Book;
+import com.example.library.mapper.BookMapper;
+import com.example.library.service.BookCache;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 图书缓存数据库查询削减基准
+ * 模拟流通台操作组合：详情 40%、借阅验证 20%、借阅 15%（读取后失效）、归还 15%（失效）、存在性检查 10%；
+ * 10 万册馆藏中 10% 的热门图书承担 80% 的访问。mapper 以计数桩代替，dbQueries 与 ops 的比值即每次操作的查询数
+ * 运行：mvn test-compile 后执行本类 main 方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class BookCacheBenchmark {
+
+  private static final int BOOKS = 100_000;
+
+  private static final int HOT_BOOKS = BOOKS / 10;
+
+  @Param({"true", "false"})
+  private boolean enabled;
+
+  private final LongAdder queries = new LongAdder();
+
+  private BookCache cache;
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    Map<String, Book> table = new HashMap<>();
+    for (int i = 0; i < BOOKS; i++) {
+      Book book = new Book();
+      book.setCollectionNumber(collectionNumber(i));
+      book.setTitle("图书" + i);
+      book.setStatus("可借阅");
+      table.put(book.getCollectionNumber(), book);
+    }
+
+    BookMapper mapper = (BookMapper) Proxy.newProxyInstance(BookMapper.class.getClassLoader(),
+        new Class<?>[] {BookMapper.class}, (proxy, method, args) -> {
+          switch (method.getName()) {
+            case "selectByCollectionNumber":
+              queries.increment();
+              return table.get((String) args[0]);
+            case "selectByCollectionNumbers":
+              queries.increment();
+              List<Book> books = new ArrayList<>();
+              for (Object collectionNumber : (Collection<?>) args[0]) {
+                Book book = table.get((String) collectionNumber);
+                if (book != null) {
+                  books.add(book);
+                }
+              }
+              return books;
+            default:
+              throw new UnsupportedOperationException(method.getName());
+          }
+        });
+    cache = new BookCache(mapper, enabled, 50_000, 300);
+  }
+
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Counters {
+
+    public long ops;
+
+    public long dbQueries;
+  }
+
+  @Benchmark
+  public Object circulationMix(Counters counters) {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    long before = queries.sum();
+    Object result;
+    int op = random.nextInt(100);
+    if (op < 40) {
+      result = cache.get(pick(random));
+    } else if (op < 60) {
+      result = cache.getAll(pickCart(random));
+    } else if (op < 75) {
+      List<String> cart = pickCart(random);
+      result = cache.getAll(cart);
+      cache.evict(cart);
+    } else if (op < 90) {
+      List<String> returned = List.of(pick(random));
+      cache.evict(returned);
+      result = returned;
+    } else {
+      result = cache.get(pick(random)) != null;
+    }
+    counters.ops++;
+    counters.dbQueries += queries.sum() - before;
+    return result;
+  }
+
+  private static List<String> pickCart(ThreadLocalRandom random) {
+    int size = 1 + random.nextInt(3);
+    List<String> cart = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      cart.add(pick(random));
+    }
+    return cart;
+  }
+
+  private static String pick(ThreadLocalRandom random) {
+    int book = random.nextInt(10) < 8 ? random.nextInt(HOT_BOOKS) : HOT_BOOKS + random.nextInt(BOOKS - HOT_BOOKS);
+    return collectionNumber(book);
+  }
+
+  private static String collectionNumber(int book) {
+    return String.format("TS%019d", book);
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(BookCacheBenchmark.class.getSimpleName()).build()).run();
+  }
+}
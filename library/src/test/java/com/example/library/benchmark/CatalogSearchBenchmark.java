@@ -0,0 +1,113 @@
+package com.example.library.benchmark;
+
+import com.example.library.entity.Book;
+import com.example.library.service.CatalogSearchIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Field;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 馆藏检索延迟基准（50 万册，采样模式输出 p99）
+ * 书名由 2 万种书名各若干复本组成，查询取自书名片段与 ISBN 前缀
+ * 运行：mvn test-compile 后执行本类 main 方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class CatalogSearchBenchmark {
+
+  private static final int COPIES = 500_000;
+
+  private static final int TITLES = 20_000;
+
+  private static final String CHARS = "数据结构算法导论程序设计计算机网络操作系统原理编译方法实践基础高等数学线性代数概率统计"
+      + "中国近代史纲要马克思主义哲学经济学管理学市场营销会计财务英语听说读写物理化学生物医学文学历史地理"
+      + "艺术音乐美术心理教育法律社会人工智能机器学习深入理解核心技术入门精通实战指南教程研究分析应用";
+
+  private CatalogSearchIndex index;
+
+  private String[] titleQueries;
+
+  private String[] isbnQueries;
+
+  private int next;
+
+  @Setup(Level.Trial)
+  public void setUp() throws Exception {
+    Random random = new Random(42);
+    index = new CatalogSearchIndex(null);
+    Field ready = CatalogSearchIndex.class.getDeclaredField("ready");
+    ready.setAccessible(true);
+    ready.set(index, true);
+
+    String[] titles = new String[TITLES];
+    String[] isbns = new String[TITLES];
+    for (int i = 0; i < TITLES; i++) {
+      StringBuilder title = new StringBuilder();
+      int length = 4 + random.nextInt(9);
+      for (int j = 0; j < length; j++) {
+        title.append(CHARS.charAt(random.nextInt(CHARS.length())));
+      }
+      titles[i] = title.toString();
+      isbns[i] = String.format("978-7-%03d-%05d-%d", random.nextInt(1000), random.nextInt(100_000), i % 10);
+    }
+
+    LocalDateTime now = LocalDateTime.now();
+    for (int i = 0; i < COPIES; i++) {
+      int title = random.nextInt(TITLES);
+      Book book = new Book();
+      book.setCollectionNumber(String.format("TS%019d", i));
+      book.setIsbn(isbns[title]);
+      book.setTitle(titles[title]);
+      book.setStatus(random.nextInt(4) == 0 ? "已借出" : "可借阅");
+      book.setCreateTime(now.minusMinutes(i));
+      index.put(book);
+    }
+
+    titleQueries = new String[64];
+    isbnQueries = new String[64];
+    for (int i = 0; i < titleQueries.length; i++) {
+      String title = titles[random.nextInt(TITLES)];
+      int length = Math.min(title.length(), 2 + random.nextInt(3));
+      int start = random.nextInt(title.length() - length + 1);
+      titleQueries[i] = title.substring(start, start + length);
+      String isbn = isbns[random.nextInt(TITLES)];
+      isbnQueries[i] = isbn.substring(0, 9 + random.nextInt(isbn.length() - 8));
+    }
+  }
+
+  @Benchmark
+  public int searchTitle() {
+    next = (next + 1) & (titleQueries.length - 1);
+    return index.search(null, titleQueries[next], 20).getTotal();
+  }
+
+  @Benchmark
+  public int searchIsbnPrefix() {
+    next = (next + 1) & (isbnQueries.length - 1);
+    return index.search(isbnQueries[next], null, 20).getTotal();
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(CatalogSearchBenchmark.class.getSimpleName()).build()).run();
+  }
+}
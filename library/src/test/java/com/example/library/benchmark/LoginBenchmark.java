@@ -0,0 +1,193 @@
+package com.example.library.benchmark;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.conditions.Wrapper;
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.example.library.entity.User;
+import com.example.library.mapper.UserMapper;
+import com.example.library.security.TokenRevocationList;
+import com.example.library.service.AuthService;
+import com.example.library.service.LoginThrottle;
+import com.example.library.service.UserCache;
+import com.example.library.util.JwtUtil;
+import com.example.library.util.PasswordUtil;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 登录吞吐基准
+ * 1000 个账号随机登录，5% 密码错误。用户表以内存桩代替，查询无延迟，每次写入按账号行锁串行并模拟 200µs 写库耗时：
+ * legacy 复现原实现（每次登录都 updateById 写失败次数），throttled 为内存失败计数、仅锁定/解锁写库。
+ * 辅助计数 writes 为测量期间的写库次数
+ * 运行：mvn test-compile 后执行本类 main 方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+@Threads(8)
+public class LoginBenchmark {
+
+  private static final int ACCOUNTS = 1000;
+
+  private static final long WRITE_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+
+  private static final String PASSWORD = "client-sha256";
+
+  private final Map<String, User> users = new HashMap<>();
+
+  private final Map<String, Object> rowLocks = new HashMap<>();
+
+  private UserMapper userMapper;
+
+  private JwtUtil jwtUtil;
+
+  private AuthService authService;
+
+  private String[] accounts;
+
+  /**
+   * 每线程写库计数
+   */
+  @State(Scope.Thread)
+  @AuxCounters(AuxCounters.Type.EVENTS)
+  public static class Writes {
+
+    public long writes;
+  }
+
+  private static final ThreadLocal<Writes> CURRENT = new ThreadLocal<>();
+
+  @Setup(Level.Trial)
+  public void setUp() {
+    TableInfoHelper.initTableInfo(new MapperBuilderAssistant(new MybatisConfiguration(), ""), User.class);
+    accounts = new String[ACCOUNTS];
+    for (int i = 0; i < ACCOUNTS; i++) {
+      accounts[i] = String.format("2021%04d", i);
+      User user = new User();
+      user.setAccountNumber(accounts[i]);
+      user.setPassword(PasswordUtil.sha256(PASSWORD));
+      user.setRole("user");
+      user.setStatus("正常");
+      user.setLoginFailCount(0);
+      users.put(accounts[i], user);
+      rowLocks.put(accounts[i], new Object());
+    }
+    userMapper = stubMapper();
+    jwtUtil = new JwtUtil("library-management-system-jwt-secret-key-2026", 7_200_000L, 10_000);
+    authService = new AuthService(userMapper, jwtUtil, new LoginThrottle(3, 15), new TokenRevocationList(null, 10, 100),
+        new UserCache(userMapper, true, 100, 300, 30));
+  }
+
+  @Benchmark
+  public Object legacy(Writes writes) {
+    CURRENT.set(writes);
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    try {
+      return legacyLogin(accounts[random.nextInt(ACCOUNTS)], random.nextInt(20) == 0 ? "wrong" : PASSWORD);
+    } catch (RuntimeException e) {
+      return e;
+    }
+  }
+
+  @Benchmark
+  public Object throttled(Writes writes) {
+    CURRENT.set(writes);
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    try {
+      return authService.login(accounts[random.nextInt(ACCOUNTS)], random.nextInt(20) == 0 ? "wrong" : PASSWORD);
+    } catch (RuntimeException e) {
+      return e;
+    }
+  }
+
+  /**
+   * 原登录实现：成功与失败都写回失败次数
+   */
+  private Object legacyLogin(String account, String password) {
+    LambdaQueryWrapper<User> wrapper = new LambdaQueryWrapper<>();
+    wrapper.eq(User::getAccountNumber, account);
+    User user = userMapper.selectOne(wrapper);
+    if (!PasswordUtil.sha256(password).equals(user.getPassword())) {
+      user.setLoginFailCount(user.getLoginFailCount() + 1);
+      if (user.getLoginFailCount() >= 3) {
+        user.setStatus("锁定");
+        user.setLockTime(LocalDateTime.now());
+        userMapper.updateById(user);
+        throw new RuntimeException("密码错误次数过多，账号已被锁定30分钟");
+      }
+      userMapper.updateById(user);
+      throw new RuntimeException("密码错误");
+    }
+    user.setLoginFailCount(0);
+    userMapper.updateById(user);
+    return jwtUtil.generateToken(user.getAccountNumber(), user.getRole());
+  }
+
+  /**
+   * 用户表桩：查询返回账号的副本（状态保持正常），写入按账号串行并计入当前线程的写库次数
+   */
+  private UserMapper stubMapper() {
+    return (UserMapper) Proxy.newProxyInstance(UserMapper.class.getClassLoader(), new Class<?>[] {UserMapper.class},
+        (proxy, method, args) -> switch (method.getName()) {
+          case "selectOne" -> copy(users.get(accountOf((Wrapper<?>) args[0])));
+          case "updateById" -> write(((User) args[0]).getAccountNumber());
+          case "lockAccount", "unlockAccount" -> write((String) args[0]);
+          default -> throw new UnsupportedOperationException(method.getName());
+        });
+  }
+
+  private int write(String account) {
+    synchronized (rowLocks.get(account)) {
+      LockSupport.parkNanos(WRITE_NANOS);
+    }
+    CURRENT.get().writes++;
+    return 1;
+  }
+
+  private static String accountOf(Wrapper<?> wrapper) {
+    // 与执行查询时相同，先生成条件 SQL 再取参数值
+    wrapper.getSqlSegment();
+    return (String) ((LambdaQueryWrapper<?>) wrapper).getParamNameValuePairs().values().iterator().next();
+  }
+
+  private static User copy(User source) {
+    User user = new User();
+    user.setAccountNumber(source.getAccountNumber());
+    user.setPassword(source.getPassword());
+    user.setRole(source.getRole());
+    user.setStatus(source.getStatus());
+    user.setLoginFailCount(source.getLoginFailCount());
+    return user;
+  }
+
+  public static void main(String[] args) throws RunnerException {
+    new Runner(new OptionsBuilder().include(LoginBenchmark.class.getSimpleName()).build()).run();
+  }
+}
@@ -0,0 +1,51 @@
+package com.example.library.dto;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 批量归还请求校验测试
+ */
+class BatchReturnRequestTest {
+
+  private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
+  @Test
+  void acceptsUpToLimit() {
+    assertTrue(validate(Collections.nCopies(BatchReturnRequest.MAX_COLLECTION_NUMBERS, "TS0001")).isEmpty());
+  }
+
+  @Test
+  void rejectsOversizedList() {
+    Set<ConstraintViolation<BatchReturnRequest>> violations =
+        validate(Collections.nCopies(BatchReturnRequest.MAX_COLLECTION_NUMBERS + 1, "TS0001"));
+    assertEquals(1, violations.size());
+    assertEquals("单次最多归还1000本", violations.iterator().next().getMessage());
+  }
+
+  @Test
+  void rejectsBlankCollectionNumbers() {
+    List<String> numbers = new ArrayList<>(List.of("TS0001", " "));
+    numbers.add(null);
+    Set<ConstraintViolation<BatchReturnRequest>> violations = validate(numbers);
+    assertEquals(2, violations.size());
+    violations.forEach(violation -> assertEquals("馆藏号不能为空", violation.getMessage()));
+  }
+
+  private Set<ConstraintViolation<BatchReturnRequest>> validate(List<String> collectionNumbers) {
+    BatchReturnRequest request = new BatchReturnRequest();
+    request.setCollectionNumbers(collectionNumbers);
+    request.setOperator("admin");
+    return validator.validate(request);
+  }
+}
@@ -0,0 +1,109 @@
+package com.example.library.mapper;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.MybatisSqlSessionFactoryBuilder;
+import org.apache.ibatis.mapping.Environment;
+import org.apache.ibatis.session.SqlSession;
+import org.apache.ibatis.session.SqlSessionFactory;
+import org.apache.ibatis.transaction.jdbc.JdbcTransactionFactory;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 借阅额度条件更新测试
+ * 在 H2（MySQL 模式）上执行 UserMapper 中的真实 SQL，验证并发预占不会超出额度
+ */
+class UserMapperQuotaTest {
+
+  private JdbcDataSource dataSource;
+
+  private SqlSessionFactory sessionFactory;
+
+  @BeforeEach
+  void setUp() throws Exception {
+    dataSource = new JdbcDataSource();
+    dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+    try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+      statement.execute("CREATE TABLE tb_user (id bigint AUTO_INCREMENT PRIMARY KEY, "
+          + "card_number varchar(50) NOT NULL UNIQUE, borrowing_count int NOT NULL DEFAULT 0, "
+          + "deleted tinyint NOT NULL DEFAULT 0)");
+      statement.execute("INSERT INTO tb_user (card_number) VALUES ('C2021001')");
+      statement.execute("INSERT INTO tb_user (card_number, deleted) VALUES ('C2021002', 1)");
+    }
+
+    MybatisConfiguration configuration = new MybatisConfiguration(
+        new Environment("test", new JdbcTransactionFactory(), dataSource));
+    configuration.addMapper(UserMapper.class);
+    sessionFactory = new MybatisSqlSessionFactoryBuilder().build(configuration);
+  }
+
+  @Test
+  void parallelReservationsNeverExceedLimit() throws Exception {
+    int maxBorrowCount = 5;
+    int carts = 16;
+    int cartSize = 2;
+
+    ExecutorService pool = Executors.newFixedThreadPool(carts);
+    CountDownLatch ready = new CountDownLatch(1);
+    List<Future<Integer>> results = new ArrayList<>();
+    try {
+      for (int cart = 0; cart < carts; cart++) {
+        results.add(pool.submit(() -> {
+          ready.await();
+          try (SqlSession session = sessionFactory.openSession(true)) {
+            return session.getMapper(UserMapper.class).reserveBorrowQuota("C2021001", cartSize, maxBorrowCount);
+          }
+        }));
+      }
+      ready.countDown();
+
+      int reserved = 0;
+      for (Future<Integer> result : results) {
+        reserved += result.get();
+      }
+      assertEquals(maxBorrowCount / cartSize, reserved);
+      assertEquals(reserved * cartSize, borrowingCount("C2021001"));
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  void releaseAndDeletedUsers() throws Exception {
+    try (SqlSession session = sessionFactory.openSession(true)) {
+      UserMapper mapper = session.getMapper(UserMapper.class);
+      assertEquals(1, mapper.reserveBorrowQuota("C2021001", 3, 5));
+      assertEquals(0, mapper.reserveBorrowQuota("C2021001", 3, 5));
+      // 已删除的用户不能借阅
+      assertEquals(0, mapper.reserveBorrowQuota("C2021002", 1, 5));
+
+      mapper.releaseBorrowQuota(Map.of("C2021001", 2));
+      assertEquals(1, borrowingCount("C2021001"));
+      assertEquals(1, mapper.reserveBorrowQuota("C2021001", 4, 5));
+    }
+  }
+
+  private int borrowingCount(String cardNumber) throws Exception {
+    try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery(
+            "SELECT borrowing_count FROM tb_user WHERE card_number = '" + cardNumber + "'")) {
+      resultSet.next();
+      return resultSet.getInt(1);
+    }
+  }
+}
@@ -0,0 +1,92 @@
+package com.example.library.security;
+
+import com.example.library.mapper.TokenRevocationMapper;
+import com.example.library.util.JwtUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 认证拦截器测试
+ */
+class AuthInterceptorTest {
+
+  private final JwtUtil jwtUtil = new JwtUtil("library-management-system-jwt-secret-key-2026", 7_200_000L, 100);
+
+  private final TokenRevocationList revocationList = new TokenRevocationList(mock(TokenRevocationMapper.class), 10, 100);
+
+  private final AuthInterceptor interceptor = new AuthInterceptor(jwtUtil, revocationList, new ObjectMapper());
+
+  @AfterEach
+  void tearDown() {
+    RequestContextHolder.resetRequestAttributes();
+  }
+
+  @Test
+  void validTokenExposesPrincipal() throws Exception {
+    MockHttpServletRequest request = request("Bearer " + jwtUtil.generateToken("admin", "admin"));
+    RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+    assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), new Object()));
+
+    AuthPrincipal principal = AuthContext.current();
+    assertEquals("admin", principal.account());
+    assertTrue(principal.isAdmin());
+    assertEquals("admin", AuthContext.operatorOr("someone-else"));
+  }
+
+  @Test
+  void missingOrInvalidTokenRejected() throws Exception {
+    MockHttpServletResponse missing = new MockHttpServletResponse();
+    assertFalse(interceptor.preHandle(request(null), missing, new Object()));
+    assertEquals(401, missing.getStatus());
+    assertTrue(missing.getContentAsString().contains("\"code\":401"));
+
+    MockHttpServletResponse invalid = new MockHttpServletResponse();
+    assertFalse(interceptor.preHandle(request("Bearer not-a-token"), invalid, new Object()));
+    assertEquals(401, invalid.getStatus());
+    assertTrue(invalid.getContentAsString().contains("\"code\":1006"));
+  }
+
+  @Test
+  void revokedTokenRejected() throws Exception {
+    String token = jwtUtil.generateToken("20210001", "user");
+    String other = jwtUtil.generateToken("20210001", "user");
+    Claims claims = jwtUtil.getClaimsFromToken(token);
+    revocationList.revoke(claims.getId(), "20210001", claims.getExpiration());
+
+    MockHttpServletResponse revoked = new MockHttpServletResponse();
+    assertFalse(interceptor.preHandle(request("Bearer " + token), revoked, new Object()));
+    assertTrue(revoked.getContentAsString().contains("\"code\":1006"));
+    assertTrue(interceptor.preHandle(request("Bearer " + other), new MockHttpServletResponse(), new Object()));
+  }
+
+  @Test
+  void preflightPassesWithoutToken() throws Exception {
+    MockHttpServletRequest request = request(null);
+    request.setMethod("OPTIONS");
+
+    assertTrue(interceptor.preHandle(request, new MockHttpServletResponse(), new Object()));
+    assertNull(AuthContext.current());
+    assertEquals("desk", AuthContext.operatorOr("desk"));
+  }
+
+  private static MockHttpServletRequest request(String authorization) {
+    MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/books");
+    if (authorization != null) {
+      request.addHeader("Authorization", authorization);
+    }
+    return request;
+  }
+}
@@ -0,0 +1,116 @@
+package com.example.library.security;
+
+import com.example.library.entity.TokenRevocation;
+import com.example.library.mapper.TokenRevocationMapper;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.impl.DefaultClaims;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Token 吊销表测试
+ */
+class TokenRevocationListTest {
+
+  private final TokenRevocationMapper mapper = mock(TokenRevocationMapper.class);
+
+  private final TokenRevocationList revocationList = new TokenRevocationList(mapper, 1, 100);
+
+  @Test
+  void revokedTokensAreExact() {
+    Date expiration = new Date(System.currentTimeMillis() + 3_600_000);
+    for (int i = 0; i < 1000; i++) {
+      revocationList.revoke("revoked-" + i, "20210001", expiration);
+    }
+
+    for (int i = 0; i < 1000; i++) {
+      assertTrue(revocationList.isRevoked(claims("revoked-" + i, expiration)));
+    }
+    // 超出预计数量后布隆过滤器误判增多，精确集合保证不误拒
+    for (int i = 0; i < 1000; i++) {
+      assertFalse(revocationList.isRevoked(claims("live-" + i, expiration)));
+    }
+    verify(mapper, times(1000)).insertIgnore(any());
+  }
+
+  @Test
+  void tokensWithoutIdOrInOtherBucketsPass() {
+    Date expiration = new Date(System.currentTimeMillis() + 3_600_000);
+    revocationList.revoke("revoked", "20210001", expiration);
+
+    assertFalse(revocationList.isRevoked(claims(null, expiration)));
+    assertFalse(revocationList.isRevoked(claims("revoked", new Date(expiration.getTime() + 600_000))));
+  }
+
+  @Test
+  void expiredBucketsAreDropped() {
+    Date soon = new Date(System.currentTimeMillis() + 1_000);
+    revocationList.revoke("short-lived", "20210001", soon);
+    Date past = new Date(System.currentTimeMillis() - 120_000);
+    revocationList.revoke("already-expired", "20210001", past);
+
+    revocationList.evictExpired();
+    assertTrue(revocationList.isRevoked(claims("short-lived", soon)));
+    assertFalse(revocationList.isRevoked(claims("already-expired", past)));
+    verify(mapper).deleteExpired(any());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void rebuiltFromLogAndSynced() {
+    LocalDateTime expireTime = LocalDateTime.now().plusHours(1);
+    doAnswer(invocation -> {
+      feed(invocation.getArgument(1), List.of(revocation("from-log", expireTime)));
+      return null;
+    }).when(mapper).selectActive(any(), any(ResultHandler.class));
+    doAnswer(invocation -> {
+      feed(invocation.getArgument(2), List.of(revocation("from-peer", expireTime)));
+      return null;
+    }).when(mapper).selectRevokedSince(any(), any(), any(ResultHandler.class));
+
+    revocationList.load();
+    revocationList.sync();
+
+    Date expiration = Date.from(expireTime.atZone(ZoneId.systemDefault()).toInstant());
+    assertTrue(revocationList.isRevoked(claims("from-log", expiration)));
+    assertTrue(revocationList.isRevoked(claims("from-peer", expiration)));
+  }
+
+  private static Claims claims(String jti, Date expiration) {
+    Claims claims = new DefaultClaims();
+    claims.setId(jti);
+    claims.setExpiration(expiration);
+    return claims;
+  }
+
+  private static TokenRevocation revocation(String jti, LocalDateTime expireTime) {
+    TokenRevocation revocation = new TokenRevocation();
+    revocation.setJti(jti);
+    revocation.setExpireTime(expireTime);
+    return revocation;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static void feed(ResultHandler<TokenRevocation> handler, List<TokenRevocation> rows) {
+    for (TokenRevocation row : rows) {
+      ResultContext<TokenRevocation> context = mock(ResultContext.class);
+      when(context.getResultObject()).thenReturn(row);
+      handler.handleResult(context);
+    }
+  }
+}
@@ -0,0 +1,103 @@
+package com.example.library.service;
+
+import com.example.library.entity.BorrowRecord;
+import com.example.library.mapper.BorrowRecordMapper;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 在借投影测试
+ */
+class ActiveLoanProjectionTest {
+
+  private BorrowRecordMapper mapper;
+
+  private ActiveLoanProjection projection;
+
+  @BeforeEach
+  void setUp() {
+    mapper = mock(BorrowRecordMapper.class);
+    projection = new ActiveLoanProjection(mapper);
+    projection.rebuild();
+  }
+
+  @Test
+  void returnMatchesLoanReadBackAtSecondPrecision() {
+    LocalDateTime dueDate = LocalDateTime.now().plusDays(30).withNano(987_654_321);
+    projection.onBorrowed(List.of(loan("BR1", dueDate, "借阅中"), loan("BR2", dueDate, "借阅中")));
+    assertEquals(2, projection.countBorrowing("C2021001"));
+
+    // 归还时的借阅记录从数据库读出，datetime 已舍入到秒
+    projection.onReturned(loan("BR1", dueDate.truncatedTo(ChronoUnit.SECONDS), "借阅中"));
+    assertEquals(1, projection.countBorrowing("C2021001"));
+    projection.onReturned(loan("BR2", dueDate.plusSeconds(1).truncatedTo(ChronoUnit.SECONDS), "借阅中"));
+    assertEquals(0, projection.countBorrowing("C2021001"));
+  }
+
+  @Test
+  void overdueTracksEarliestDueDate() {
+    projection.onBorrowed(List.of(loan("BR1", LocalDateTime.now().plusDays(30), "借阅中"),
+        loan("BR2", LocalDateTime.now().minusDays(1), "借阅中")));
+
+    assertTrue(projection.hasOverdue("C2021001"));
+    assertEquals(1, projection.countOverdue("C2021001"));
+
+    projection.onReturned(loan("BR2", null, "已归还"));
+    assertFalse(projection.hasOverdue("C2021001"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void syncAppliesBorrowsAndReturnsFromOtherNodes() {
+    LocalDateTime dueDate = LocalDateTime.now().minusDays(1);
+    projection.onBorrowed(List.of(loan("BR1", dueDate, "借阅中")));
+    feedChanged(loan("BR1", dueDate, "已归还"), loan("BR2", dueDate, "借阅中"), loan("BR2", dueDate, "借阅中"));
+
+    projection.sync();
+
+    assertEquals(1, projection.countBorrowing("C2021001"));
+    assertTrue(projection.hasOverdue("C2021001"));
+
+    feedChanged(loan("BR2", dueDate, "已归还"));
+    projection.sync();
+
+    assertEquals(0, projection.countBorrowing("C2021001"));
+    assertFalse(projection.hasOverdue("C2021001"));
+  }
+
+  @SuppressWarnings("unchecked")
+  private void feedChanged(BorrowRecord... records) {
+    doAnswer(invocation -> {
+      ResultHandler<BorrowRecord> handler = invocation.getArgument(1);
+      for (BorrowRecord record : records) {
+        ResultContext<BorrowRecord> context = mock(ResultContext.class);
+        when(context.getResultObject()).thenReturn(record);
+        handler.handleResult(context);
+      }
+      return null;
+    }).when(mapper).selectLoansChangedSince(any(), any(ResultHandler.class));
+  }
+
+  private static BorrowRecord loan(String recordId, LocalDateTime dueDate, String status) {
+    BorrowRecord record = new BorrowRecord();
+    record.setRecordId(recordId);
+    record.setCardNumber("C2021001");
+    record.setDueDate(dueDate);
+    record.setStatus(status);
+    return record;
+  }
+}
@@ -0,0 +1,139 @@
+package com.example.library.service;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.example.library.entity.User;
+import com.example.library.mapper.TokenRevocationMapper;
+import com.example.library.mapper.UserMapper;
+import com.example.library.security.TokenRevocationList;
+import com.example.library.util.JwtUtil;
+import com.example.library.util.PasswordUtil;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 登录失败计数与锁定测试
+ */
+class AuthServiceTest {
+
+  private static final String ACCOUNT = "20210001";
+
+  private static final String PASSWORD = "client-sha256";
+
+  private UserMapper userMapper;
+
+  private LoginThrottle loginThrottle;
+
+  private AuthService authService;
+
+  private User user;
+
+  @BeforeAll
+  static void initTableInfo() {
+    MapperBuilderAssistant assistant = new MapperBuilderAssistant(new MybatisConfiguration(), "");
+    TableInfoHelper.initTableInfo(assistant, User.class);
+  }
+
+  @BeforeEach
+  void setUp() {
+    userMapper = mock(UserMapper.class);
+    loginThrottle = new LoginThrottle(3, 15);
+    authService = new AuthService(userMapper,
+        new JwtUtil("library-management-system-jwt-secret-key-2026", 7_200_000L, 100), loginThrottle,
+        new TokenRevocationList(mock(TokenRevocationMapper.class), 10, 100), new UserCache(userMapper, true, 100, 300, 30));
+
+    user = new User();
+    user.setAccountNumber(ACCOUNT);
+    user.setPassword(PasswordUtil.sha256(PASSWORD));
+    user.setRole("user");
+    user.setStatus("正常");
+    when(userMapper.selectOne(any())).thenReturn(user);
+  }
+
+  @Test
+  void successfulLoginDoesNotWrite() {
+    assertNotNull(authService.login(ACCOUNT, PASSWORD).get("token"));
+
+    verify(userMapper, never()).updateById(any(User.class));
+    verify(userMapper, never()).lockAccount(anyString(), anyInt(), any());
+  }
+
+  @Test
+  void failuresBelowLimitStayInMemory() {
+    RuntimeException e = assertThrows(RuntimeException.class, () -> authService.login(ACCOUNT, "wrong"));
+    assertEquals("密码错误", e.getMessage());
+    assertThrows(RuntimeException.class, () -> authService.login(ACCOUNT, "wrong"));
+
+    assertEquals(2, loginThrottle.failureCount(ACCOUNT));
+    verify(userMapper, never()).updateById(any(User.class));
+    verify(userMapper, never()).lockAccount(anyString(), anyInt(), any());
+  }
+
+  @Test
+  void successClearsFailures() {
+    assertThrows(RuntimeException.class, () -> authService.login(ACCOUNT, "wrong"));
+    assertThrows(RuntimeException.class, () -> authService.login(ACCOUNT, "wrong"));
+    authService.login(ACCOUNT, PASSWORD);
+    assertThrows(RuntimeException.class, () -> authService.login(ACCOUNT, "wrong"));
+
+    assertEquals(1, loginThrottle.failureCount(ACCOUNT));
+    verify(userMapper, never()).lockAccount(anyString(), anyInt(), any());
+  }
+
+  @Test
+  void reachingLimitLocksOnce() {
+    assertThrows(RuntimeException.class, () -> authService.login(ACCOUNT, "wrong"));
+    assertThrows(RuntimeException.class, () -> authService.login(ACCOUNT, "wrong"));
+    RuntimeException e = assertThrows(RuntimeException.class, () -> authService.login(ACCOUNT, "wrong"));
+
+    assertEquals("密码错误次数过多，账号已被锁定30分钟", e.getMessage());
+    verify(userMapper).lockAccount(eq(ACCOUNT), eq(3), any(LocalDateTime.class));
+    assertEquals(0, loginThrottle.failureCount(ACCOUNT));
+  }
+
+  @Test
+  void lockedAccountRejectedWithoutWrite() {
+    user.setStatus("锁定");
+    user.setLockTime(LocalDateTime.now().minusMinutes(10));
+
+    RuntimeException e = assertThrows(RuntimeException.class, () -> authService.login(ACCOUNT, PASSWORD));
+    assertEquals("账号已被锁定，剩余20分钟", e.getMessage());
+    verify(userMapper, never()).unlockAccount(anyString());
+  }
+
+  @Test
+  void expiredLockIsReleased() {
+    user.setStatus("锁定");
+    user.setLockTime(LocalDateTime.now().minusMinutes(31));
+
+    assertNotNull(authService.login(ACCOUNT, PASSWORD).get("token"));
+    verify(userMapper).unlockAccount(ACCOUNT);
+  }
+
+  @Test
+  void failuresOutsideWindowAreDropped() {
+    LoginThrottle throttle = new LoginThrottle(3, 0);
+    throttle.recordFailure(ACCOUNT);
+    throttle.recordFailure(ACCOUNT);
+
+    assertEquals(0, throttle.failureCount(ACCOUNT));
+    throttle.evictExpired();
+    assertEquals(1, throttle.recordFailure(ACCOUNT));
+  }
+}
@@ -0,0 +1,49 @@
+package com.example.library.service;
+
+import com.example.library.entity.Book;
+import com.example.library.mapper.BookMapper;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 图书缓存测试
+ */
+class BookCacheTest {
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void syncInvalidatesBooksChangedOnOtherNodes() {
+    BookMapper mapper = mock(BookMapper.class);
+    BookCache cache = new BookCache(mapper, true, 100, 300);
+    when(mapper.selectByCollectionNumber("TS0001")).thenReturn(book("可借阅"), book("维修"));
+    assertEquals("可借阅", cache.get("TS0001").getStatus());
+
+    // 其他实例把图书改为维修
+    doAnswer(invocation -> {
+      ResultHandler<Book> handler = invocation.getArgument(1);
+      ResultContext<Book> context = mock(ResultContext.class);
+      when(context.getResultObject()).thenReturn(book("维修"));
+      handler.handleResult(context);
+      return null;
+    }).when(mapper).selectChangedSince(any(), any(ResultHandler.class));
+    assertEquals("可借阅", cache.get("TS0001").getStatus());
+
+    cache.sync();
+
+    assertEquals("维修", cache.get("TS0001").getStatus());
+  }
+
+  private static Book book(String status) {
+    Book book = new Book();
+    book.setCollectionNumber("TS0001");
+    book.setStatus(status);
+    return book;
+  }
+}
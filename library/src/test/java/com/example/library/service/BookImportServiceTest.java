@@ -0,0 +1,158 @@
+package com.example.library.service;
+
+import com.example.library.entity.Book;
+import com.example.library.mapper.BookMapper;
+import com.example.library.util.SnowflakeIdGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 图书批量导入测试
+ */
+class BookImportServiceTest {
+
+  private BookMapper bookMapper;
+
+  private List<Integer> batchSizes;
+
+  @BeforeEach
+  void setUp() {
+    bookMapper = mock(BookMapper.class);
+    batchSizes = new ArrayList<>();
+    when(bookMapper.insertBatch(anyList())).thenAnswer(invocation -> {
+      List<Book> books = invocation.getArgument(0);
+      batchSizes.add(books.size());
+      return books.size();
+    });
+  }
+
+  @Test
+  void importsCsvInBatchesAndReportsRowErrors() throws Exception {
+    String csv = "\uFEFFtitle,isbn,author,publisher,location\n"
+        + "\"数据结构（C语言版）\",978-7-302-14751-0,严蔚敏,清华大学出版社,A区-1架-1层\n"
+        + "\n"
+        + "\"Effective Java, 3rd\",978-7-111-61272-8,Joshua Bloch,机械工业出版社,B区-2架-3层\n"
+        + ",978-7-111-00000-0,佚名,机械工业出版社,B区-2架-3层\n"
+        + "\"说 \"\"引号\"\" 的书\",978-7-115-00000-1,张三,人民邮电出版社,C区-1架-1层\n"
+        + "\"未闭合,978-7-115-00000-2,李四,人民邮电出版社,C区-1架-1层\n";
+
+    Map<String, Object> result = service(2).importBooks(stream(csv), "text/csv; charset=UTF-8");
+
+    assertEquals(5L, result.get("total"));
+    assertEquals(3L, result.get("successCount"));
+    assertEquals(2L, result.get("failCount"));
+    assertEquals(List.of(2, 1), batchSizes);
+    @SuppressWarnings("unchecked")
+    List<Map<String, Object>> errors = (List<Map<String, Object>>) result.get("errors");
+    assertEquals(5, errors.get(0).get("line"));
+    assertEquals("书名不能为空", errors.get(0).get("message"));
+    assertEquals(7, errors.get(1).get("line"));
+    assertEquals("引号未闭合", errors.get(1).get("message"));
+  }
+
+  @Test
+  void importsNdjson() throws Exception {
+    String ndjson = "{\"isbn\":\"978-7-111-40701-0\",\"title\":\"算法导论\",\"author\":\"Cormen\","
+        + "\"publisher\":\"机械工业出版社\",\"location\":\"A区-2架-1层\"}\n"
+        + "{\"isbn\":\"978-7-111-40701-0\",\"title\":\n";
+
+    Map<String, Object> result = service(1000).importBooks(stream(ndjson), "application/x-ndjson");
+
+    assertEquals(1L, result.get("successCount"));
+    assertEquals(1L, result.get("failCount"));
+    assertEquals(List.of(1), batchSizes);
+  }
+
+  @Test
+  void failedBatchIsRetriedRowByRow() throws Exception {
+    when(bookMapper.insertBatch(anyList())).thenThrow(new RuntimeException("Data truncation"));
+    doAnswer(invocation -> {
+      Book book = invocation.getArgument(0);
+      if (book.getTitle().equals("坏数据")) {
+        throw new RuntimeException("Data truncation");
+      }
+      return 1;
+    }).when(bookMapper).insert(any(Book.class));
+
+    String csv = "isbn,title,author,publisher,location\n"
+        + "9787111407010,算法导论,Cormen,机械工业出版社,A区\n"
+        + "9787111407011,坏数据,Cormen,机械工业出版社,A区\n"
+        + "9787111407012,编译原理,Aho,机械工业出版社,A区\n";
+
+    Map<String, Object> result = service(10).importBooks(stream(csv), "text/csv");
+
+    assertEquals(2L, result.get("successCount"));
+    assertEquals(1L, result.get("failCount"));
+    @SuppressWarnings("unchecked")
+    List<Map<String, Object>> errors = (List<Map<String, Object>>) result.get("errors");
+    assertEquals(3, errors.get(0).get("line"));
+  }
+
+  @Test
+  void streamsHundredThousandRows() throws Exception {
+    int rows = 100_000;
+    byte[] header = "isbn,title,author,publisher,location\n".getBytes(StandardCharsets.UTF_8);
+    Enumeration<InputStream> chunks = new Enumeration<>() {
+      private int next = -1;
+
+      @Override
+      public boolean hasMoreElements() {
+        return next < rows;
+      }
+
+      @Override
+      public InputStream nextElement() {
+        int row = next++;
+        return row < 0 ? new ByteArrayInputStream(header)
+            : stream("97871114" + String.format("%05d", row) + ",新书" + row + ",作者,出版社,A区-1架\n");
+      }
+    };
+
+    Map<String, Object> result = service(1000).importBooks(new SequenceInputStream(chunks), "text/csv");
+
+    assertEquals((long) rows, result.get("successCount"));
+    assertEquals(Collections.nCopies(rows / 1000, 1000), batchSizes);
+    assertTrue((Long) result.get("elapsedMillis") >= 0);
+  }
+
+  @Test
+  void missingHeaderColumnsRejected() {
+    IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+        () -> service(10).importBooks(stream("isbn,title\n9787111547426,深入理解计算机系统\n"), "text/csv"));
+    assertTrue(e.getMessage().contains("author"));
+  }
+
+  private BookImportService service(int batchSize) {
+    return new BookImportService(bookMapper, new SnowflakeIdGenerator(0),
+        new TransactionTemplate(mock(PlatformTransactionManager.class)), new CatalogSearchIndex(bookMapper),
+        new BookStatusCounters(bookMapper), Validation.buildDefaultValidatorFactory().getValidator(),
+        new ObjectMapper(), batchSize);
+  }
+
+  private static InputStream stream(String content) {
+    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+  }
+}
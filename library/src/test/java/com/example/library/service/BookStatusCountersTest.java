@@ -0,0 +1,111 @@
+package com.example.library.service;
+
+import com.example.library.mapper.BookMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 图书状态计数器测试
+ */
+class BookStatusCountersTest {
+
+  private BookMapper bookMapper;
+
+  private BookStatusCounters counters;
+
+  @BeforeEach
+  void setUp() {
+    bookMapper = mock(BookMapper.class);
+    when(bookMapper.selectStatusStatistics()).thenReturn(rows(Map.of("可借阅", 10L, "已借出", 3L)));
+    counters = new BookStatusCounters(bookMapper);
+    counters.load();
+  }
+
+  @Test
+  void appliesAddsAndTransitions() {
+    counters.onAdded("可借阅", 5);
+    counters.onTransition("可借阅", "已借出", 2);
+    counters.onTransition("已借出", "已借出", 1);
+    counters.onTransition("已借出", "遗失", 1);
+
+    assertEquals(Map.of("可借阅", 13L, "已借出", 4L, "遗失", 1L), counts());
+  }
+
+  @Test
+  void correctsDriftFromOtherNodes() {
+    // 其他实例借出一册并新增一册维护中的图书
+    when(bookMapper.selectStatusStatistics()).thenReturn(rows(Map.of("可借阅", 9L, "已借出", 4L, "维护中", 1L)));
+
+    assertTrue(counters.reconcile());
+    assertEquals(Map.of("可借阅", 9L, "已借出", 4L, "维护中", 1L), counts());
+
+    assertFalse(counters.reconcile());
+  }
+
+  @Test
+  void inFlightUpdateIsNotTreatedAsDrift() {
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      counters.onTransition("可借阅", "已借出", 1);
+      // 事务已提交、计数回调尚未执行
+      when(bookMapper.selectStatusStatistics()).thenReturn(rows(Map.of("可借阅", 9L, "已借出", 4L)));
+      assertFalse(counters.reconcile());
+      assertEquals(Map.of("可借阅", 10L, "已借出", 3L), counts());
+
+      for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+        synchronization.afterCommit();
+      }
+      for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+        synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED);
+      }
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    assertFalse(counters.reconcile());
+    assertEquals(Map.of("可借阅", 9L, "已借出", 4L), counts());
+  }
+
+  @Test
+  void rolledBackUpdateDoesNotBlockReconcile() {
+    TransactionSynchronizationManager.initSynchronization();
+    try {
+      counters.onAdded("可借阅", 1);
+      for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+        synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+      }
+    } finally {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    when(bookMapper.selectStatusStatistics()).thenReturn(rows(Map.of("可借阅", 11L, "已借出", 3L)));
+    assertTrue(counters.reconcile());
+    assertEquals(Map.of("可借阅", 11L, "已借出", 3L), counts());
+  }
+
+  private Map<String, Long> counts() {
+    Map<String, Long> counts = new HashMap<>();
+    for (Map<String, Object> row : counters.snapshot()) {
+      counts.put((String) row.get("status"), (Long) row.get("count"));
+    }
+    return counts;
+  }
+
+  private static List<Map<String, Object>> rows(Map<String, Long> counts) {
+    return counts.entrySet().stream()
+        .map(entry -> Map.<String, Object>of("status", entry.getKey(), "count", entry.getValue()))
+        .toList();
+  }
+}
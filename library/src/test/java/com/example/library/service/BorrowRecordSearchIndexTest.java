@@ -0,0 +1,48 @@
+package com.example.library.service;
+
+import com.example.library.entity.BorrowRecord;
+import com.example.library.mapper.BorrowRecordMapper;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 借阅记录检索索引测试
+ */
+class BorrowRecordSearchIndexTest {
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void syncPicksUpBorrowsFromOtherNodes() {
+    BorrowRecordMapper mapper = mock(BorrowRecordMapper.class);
+    BorrowRecordSearchIndex index = new BorrowRecordSearchIndex(mapper);
+    index.rebuild();
+    assertEquals(List.of(), index.matchAccountNumbers("2021"));
+
+    // 其他实例借出的记录
+    BorrowRecord record = new BorrowRecord();
+    record.setCollectionNumber("TS0001");
+    record.setBookTitle("算法导论");
+    record.setAccountNumber("2021001");
+    doAnswer(invocation -> {
+      ResultHandler<BorrowRecord> handler = invocation.getArgument(1);
+      ResultContext<BorrowRecord> context = mock(ResultContext.class);
+      when(context.getResultObject()).thenReturn(record);
+      handler.handleResult(context);
+      return null;
+    }).when(mapper).selectBorrowedSince(any(), any(ResultHandler.class));
+
+    index.sync();
+
+    assertEquals(List.of("2021001"), index.matchAccountNumbers("2021"));
+    assertEquals(List.of("TS0001"), index.matchCollectionNumbers("导论"));
+  }
+}
@@ -0,0 +1,375 @@
+package com.example.library.service;
+
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import com.example.library.common.BusinessException;
+import com.example.library.common.ResultCode;
+import com.example.library.dto.BorrowRequest;
+import com.example.library.entity.Book;
+import com.example.library.entity.BookStatusHistory;
+import com.example.library.entity.BorrowRecord;
+import com.example.library.entity.SystemConfig;
+import com.example.library.entity.User;
+import com.example.library.mapper.BookMapper;
+import com.example.library.mapper.BookStatusHistoryMapper;
+import com.example.library.mapper.BorrowRecordMapper;
+import com.example.library.mapper.CirculationCubeMapper;
+import com.example.library.mapper.CirculationDailyMapper;
+import com.example.library.mapper.SystemConfigMapper;
+import com.example.library.mapper.UserMapper;
+import com.example.library.util.IdGenerator;
+import com.example.library.util.SnowflakeIdGenerator;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.mockingDetails;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 借阅服务测试
+ * 使用 Mock Mapper 统计每次借阅的数据库往返次数
+ */
+class BorrowServiceTest {
+
+  private BorrowRecordMapper borrowRecordMapper;
+  private UserMapper userMapper;
+  private SystemConfigMapper systemConfigMapper;
+  private BookMapper bookMapper;
+  private BookStatusHistoryMapper bookStatusHistoryMapper;
+  private CirculationDailyMapper circulationDailyMapper;
+  private CirculationCubeMapper circulationCubeMapper;
+  private BookCache bookCache;
+  private BorrowService borrowService;
+
+  @BeforeAll
+  static void initTableInfo() {
+    MapperBuilderAssistant assistant = new MapperBuilderAssistant(new MybatisConfiguration(), "");
+    TableInfoHelper.initTableInfo(assistant, BorrowRecord.class);
+    TableInfoHelper.initTableInfo(assistant, SystemConfig.class);
+  }
+
+  @BeforeEach
+  void setUp() {
+    borrowRecordMapper = mock(BorrowRecordMapper.class);
+    userMapper = mock(UserMapper.class);
+    systemConfigMapper = mock(SystemConfigMapper.class);
+    bookMapper = mock(BookMapper.class);
+    bookStatusHistoryMapper = mock(BookStatusHistoryMapper.class);
+    circulationDailyMapper = mock(CirculationDailyMapper.class);
+    circulationCubeMapper = mock(CirculationCubeMapper.class);
+
+    IdGenerator idGenerator = new SnowflakeIdGenerator(0);
+    bookCache = new BookCache(bookMapper, true, 1000, 300);
+    BookService bookService = new BookService(bookMapper, bookStatusHistoryMapper, idGenerator,
+        new CatalogSearchIndex(bookMapper), bookCache, new BookStatusHistoryService(bookStatusHistoryMapper),
+        new BookStatusCounters(bookMapper));
+    TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+    borrowService = new BorrowService(borrowRecordMapper, userMapper,
+        new UserCache(userMapper, true, 1000, 300, 30), new SystemConfigCache(systemConfigMapper),
+        bookService, idGenerator, transactionTemplate, new ActiveLoanProjection(borrowRecordMapper),
+        new BorrowRecordSearchIndex(borrowRecordMapper),
+        new CirculationRollup(circulationDailyMapper, borrowRecordMapper),
+        new TopBooksTracker(borrowRecordMapper, 1000, 30),
+        new CirculationCube(circulationCubeMapper, borrowRecordMapper, bookCache));
+
+    User user = new User();
+    user.setAccountNumber("2021001");
+    user.setName("张三");
+    user.setIdentity("学生");
+    user.setCardNumber("C2021001");
+    when(userMapper.selectByCardNumber("C2021001")).thenReturn(user);
+    when(userMapper.reserveBorrowQuota(anyString(), anyInt(), anyInt())).thenReturn(1);
+    when(bookMapper.selectByCollectionNumbers(anyCollection())).thenAnswer(invocation -> {
+      Collection<String> numbers = invocation.getArgument(0);
+      List<Book> books = new ArrayList<>();
+      for (String number : numbers) {
+        books.add(availableBook(number));
+      }
+      return books;
+    });
+    when(bookMapper.compareAndSetStatusBatch(anyCollection(), anyString(), anyString(), any()))
+        .thenAnswer(invocation -> ((Collection<?>) invocation.getArgument(0)).size());
+  }
+
+  @ParameterizedTest
+  @ValueSource(ints = {1, 2, 5, 10, 20})
+  void borrowBooksUsesConstantRoundTrips(int cartSize) {
+    BorrowRequest request = new BorrowRequest();
+    request.setCardNumber("C2021001");
+    request.setOperator("admin");
+    request.setCollectionNumbers(collectionNumbers(cartSize));
+
+    borrowService.borrowBooks(request);
+
+    // 改造前为 3 + 6n 次；改造后用户、图书、额度预占、记录批插、状态批改、历史批插共 6 次，与册数无关
+    // （超期检查读在借投影，配置读内存快照，流通汇总只在内存累加、由定时任务写入）
+    assertEquals(6, roundTrips());
+  }
+
+  @Test
+  void concurrentCheckoutsLendEachHotCopyOnce() throws Exception {
+    int hotCopies = 4;
+    int desks = 64;
+    int rounds = 200;
+
+    // 以并发 Map 模拟 tb_book.status，比较并交换语义与 UPDATE ... WHERE status = ? 一致
+    Map<String, String> statuses = new ConcurrentHashMap<>();
+    when(bookMapper.selectByCollectionNumbers(anyCollection())).thenAnswer(invocation -> {
+      Collection<String> numbers = invocation.getArgument(0);
+      List<Book> books = new ArrayList<>();
+      for (String number : numbers) {
+        Book book = availableBook(number);
+        book.setStatus(statuses.get(number));
+        books.add(book);
+      }
+      return books;
+    });
+    when(bookMapper.compareAndSetStatusBatch(anyCollection(), anyString(), anyString(), any()))
+        .thenAnswer(invocation -> {
+          Collection<String> numbers = invocation.getArgument(0);
+          int updated = 0;
+          for (String number : numbers) {
+            if (statuses.replace(number, invocation.getArgument(1), invocation.getArgument(2))) {
+              updated++;
+            }
+          }
+          return updated;
+        });
+
+    List<String> copies = collectionNumbers(hotCopies);
+    ExecutorService pool = Executors.newFixedThreadPool(desks);
+    AtomicInteger conflicts = new AtomicInteger();
+    AtomicInteger unavailable = new AtomicInteger();
+    try {
+      for (int round = 0; round < rounds; round++) {
+        // 每轮重新上架，等同归还时失效缓存
+        copies.forEach(copy -> statuses.put(copy, "可借阅"));
+        bookCache.evict(copies);
+        CountDownLatch ready = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int desk = 0; desk < desks; desk++) {
+          BorrowRequest request = new BorrowRequest();
+          request.setCardNumber("C2021001");
+          request.setOperator("desk" + desk);
+          request.setCollectionNumbers(List.of(copies.get(desk % hotCopies)));
+          results.add(pool.submit(() -> {
+            ready.await();
+            try {
+              borrowService.borrowBooks(request);
+              return true;
+            } catch (BusinessException e) {
+              assertEquals(ResultCode.BOOK_STATUS_CONFLICT, e.getResultCode());
+              conflicts.incrementAndGet();
+              return false;
+            } catch (RuntimeException e) {
+              unavailable.incrementAndGet();
+              return false;
+            }
+          }));
+        }
+        ready.countDown();
+
+        int lent = 0;
+        for (Future<Boolean> result : results) {
+          if (result.get()) {
+            lent++;
+          }
+        }
+        assertEquals(hotCopies, lent);
+      }
+    } finally {
+      pool.shutdown();
+    }
+
+    // 每轮未借到的请求要么在状态翻转时冲突，要么在预检时看到已借出
+    assertEquals((desks - hotCopies) * rounds, conflicts.get() + unavailable.get());
+  }
+
+  /**
+   * 预占返回 0 行时整车拒绝且不再写入；条件更新语句本身的并发语义见 UserMapperQuotaTest
+   */
+  @Test
+  void parallelCartsRejectedWhenReservationFails() throws Exception {
+    int maxBorrowCount = 5;
+    int carts = 16;
+    int cartSize = 2;
+
+    // 桩：按条件更新的返回值约定（超额时 0 行）模拟预占结果
+    AtomicInteger borrowingCount = new AtomicInteger();
+    when(userMapper.reserveBorrowQuota(anyString(), anyInt(), anyInt())).thenAnswer(invocation -> {
+      int count = invocation.getArgument(1);
+      while (true) {
+        int current = borrowingCount.get();
+        if (current + count > maxBorrowCount) {
+          return 0;
+        }
+        if (borrowingCount.compareAndSet(current, current + count)) {
+          return 1;
+        }
+      }
+    });
+
+    ExecutorService pool = Executors.newFixedThreadPool(carts);
+    CountDownLatch ready = new CountDownLatch(1);
+    List<Future<Boolean>> results = new ArrayList<>();
+    for (int cart = 0; cart < carts; cart++) {
+      BorrowRequest request = new BorrowRequest();
+      request.setCardNumber("C2021001");
+      request.setOperator("desk" + cart);
+      request.setCollectionNumbers(List.of("TS-A-" + cart, "TS-B-" + cart));
+      results.add(pool.submit(() -> {
+        ready.await();
+        try {
+          borrowService.borrowBooks(request);
+          return true;
+        } catch (BusinessException e) {
+          assertEquals(ResultCode.EXCEED_MAX_BORROW_COUNT, e.getResultCode());
+          return false;
+        }
+      }));
+    }
+    ready.countDown();
+
+    int succeeded = 0;
+    for (Future<Boolean> result : results) {
+      if (result.get()) {
+        succeeded++;
+      }
+    }
+    pool.shutdown();
+
+    assertEquals(maxBorrowCount / cartSize, succeeded);
+    assertEquals(succeeded * cartSize, borrowingCount.get());
+  }
+
+  @Test
+  void returnBooksReportsPerItemResults() {
+    List<String> numbers = collectionNumbers(3);
+    when(borrowRecordMapper.selectBorrowingByCollectionNumbers(anyCollection())).thenReturn(List.of(
+        openLoan(1L, numbers.get(0), LocalDateTime.now().plusDays(10)),
+        openLoan(2L, numbers.get(1), LocalDateTime.now().minusDays(3).minusHours(1))));
+    when(borrowRecordMapper.markReturnedBatch(anyCollection(), any()))
+        .thenAnswer(invocation -> ((Collection<?>) invocation.getArgument(0)).size());
+
+    Map<String, Object> result = borrowService.returnBooks(numbers, "admin");
+
+    assertEquals(2, result.get("successCount"));
+    assertEquals(1, result.get("failCount"));
+    assertEquals(1, result.get("overdueCount"));
+    // 查询在借、批量归还、释放额度、状态批改、历史批插
+    assertEquals(5, roundTrips());
+  }
+
+  @Test
+  void returnClosesLoanOfBookChangedDuringLoan() {
+    List<String> numbers = collectionNumbers(2);
+    BorrowRecord first = openLoan(1L, numbers.get(0), LocalDateTime.now().plusDays(10));
+    BorrowRecord second = openLoan(2L, numbers.get(1), LocalDateTime.now().plusDays(10));
+    when(borrowRecordMapper.selectBorrowingByCollectionNumbers(anyCollection())).thenReturn(List.of(first, second));
+    when(borrowRecordMapper.markReturnedBatch(anyCollection(), any()))
+        .thenAnswer(invocation -> ((Collection<?>) invocation.getArgument(0)).size());
+    // 第二册借出期间被馆员改为维修，整批状态翻转落空后逐本归还
+    when(bookMapper.compareAndSetStatusBatch(anyCollection(), anyString(), anyString(), any())).thenReturn(1);
+    when(borrowRecordMapper.selectOne(any())).thenReturn(first, second);
+    when(borrowRecordMapper.markReturned(any(), any(), anyInt())).thenReturn(1);
+    when(bookMapper.compareAndSetStatus(eq(numbers.get(0)), eq("已借出"), eq("可借阅"), any())).thenReturn(1);
+    when(bookMapper.compareAndSetStatus(eq(numbers.get(1)), eq("已借出"), eq("可借阅"), any())).thenReturn(0);
+
+    Map<String, Object> result = borrowService.returnBooks(numbers, "admin");
+
+    assertEquals(2, result.get("successCount"));
+    verify(borrowRecordMapper).markReturned(eq(2L), any(), anyInt());
+    // 维修中的图书保持原状态，不写状态历史
+    verify(bookStatusHistoryMapper, times(1)).insert(any(BookStatusHistory.class));
+  }
+
+  @Test
+  void myRecordsWithoutPagingReturnsFullList() {
+    when(borrowRecordMapper.selectStatisticsByAccountNumber("2021001"))
+        .thenReturn(Map.of("currentBorrowing", 1L, "totalBorrowed", 30L, "overdueCount", 0L));
+    List<BorrowRecord> history = new ArrayList<>();
+    for (long id = 1; id <= 30; id++) {
+      history.add(openLoan(id, "TS" + id, LocalDateTime.now()));
+    }
+    when(borrowRecordMapper.selectByAccountNumber("2021001")).thenReturn(history);
+    when(borrowRecordMapper.selectList(any())).thenReturn(history.subList(0, 3));
+
+    Map<String, Object> full = borrowService.getMyRecords("2021001", null, null);
+    assertEquals(30, ((List<?>) full.get("records")).size());
+    assertFalse(full.containsKey("nextCursor"));
+
+    Map<String, Object> page = borrowService.getMyRecords("2021001", null, 2);
+    assertEquals(2, ((List<?>) page.get("records")).size());
+    assertTrue((Boolean) page.get("hasMore"));
+  }
+
+  /**
+   * 全部 Mapper 的调用次数
+   */
+  private int roundTrips() {
+    return mockingDetails(borrowRecordMapper).getInvocations().size()
+        + mockingDetails(userMapper).getInvocations().size()
+        + mockingDetails(systemConfigMapper).getInvocations().size()
+        + mockingDetails(bookMapper).getInvocations().size()
+        + mockingDetails(bookStatusHistoryMapper).getInvocations().size()
+        + mockingDetails(circulationDailyMapper).getInvocations().size()
+        + mockingDetails(circulationCubeMapper).getInvocations().size();
+  }
+
+  private static List<String> collectionNumbers(int count) {
+    List<String> numbers = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      numbers.add(String.format("TS20260101120000%03d", i));
+    }
+    return numbers;
+  }
+
+  private static BorrowRecord openLoan(Long id, String collectionNumber, LocalDateTime dueDate) {
+    BorrowRecord record = new BorrowRecord();
+    record.setId(id);
+    record.setRecordId("BR" + id);
+    record.setCardNumber("C2021001");
+    record.setCollectionNumber(collectionNumber);
+    record.setDueDate(dueDate);
+    record.setStatus("借阅中");
+    return record;
+  }
+
+  private static Book availableBook(String collectionNumber) {
+    Book book = new Book();
+    book.setCollectionNumber(collectionNumber);
+    book.setTitle("算法导论");
+    book.setAuthor("Thomas H.Cormen");
+    book.setStatus("可借阅");
+    return book;
+  }
+}
@@ -0,0 +1,137 @@
+package com.example.library.service;
+
+import com.example.library.entity.Book;
+import com.example.library.mapper.BookMapper;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CatalogSearchIndexTest {
+
+  private final BookMapper bookMapper = mock(BookMapper.class);
+
+  private CatalogSearchIndex index;
+
+  @BeforeEach
+  @SuppressWarnings("unchecked")
+  void setUp() {
+    LocalDateTime now = LocalDateTime.now();
+    List<Book> catalog = List.of(
+        book("TS01", "978-7-111-54742-6", "深入理解计算机系统", "可借阅", now.minusDays(3)),
+        book("TS02", "978-7-111-40701-0", "算法导论", "已借出", now.minusDays(2)),
+        book("TS03", "978-7-111-40701-0", "算法导论", "可借阅", now.minusDays(5)),
+        book("TS04", "9787115428028", "算法", "可借阅", now.minusDays(1)),
+        book("TS05", "978-7-302-33064-6", "数据结构与算法分析", "可借阅", now));
+    doAnswer(invocation -> {
+      ResultHandler<Book> handler = invocation.getArgument(0);
+      for (Book book : catalog) {
+        ResultContext<Book> context = mock(ResultContext.class);
+        when(context.getResultObject()).thenReturn(book);
+        handler.handleResult(context);
+      }
+      return null;
+    }).when(bookMapper).selectCatalog(any());
+
+    index = new CatalogSearchIndex(bookMapper);
+  }
+
+  @Test
+  void notReadyBeforeRebuild() {
+    assertNull(index.search(null, "算法", 20));
+  }
+
+  @Test
+  void ranksExactThenPrefixThenContainsAvailableFirst() {
+    index.rebuild();
+    assertEquals(List.of("TS04", "TS03", "TS02", "TS05"),
+        index.search(null, "算法", 20).getCollectionNumbers());
+  }
+
+  @Test
+  void keepsOnlyTopRankedWithinLimit() {
+    index.rebuild();
+    CatalogSearchIndex.Hits hits = index.search(null, "算法", 2);
+    assertEquals(List.of("TS04", "TS03"), hits.getCollectionNumbers());
+    assertEquals(4, hits.getTotal());
+  }
+
+  @Test
+  void matchesNormalizedIsbnPrefix() {
+    index.rebuild();
+    assertEquals(List.of("TS01", "TS03", "TS02"), index.search("978-7-111", null, 20).getCollectionNumbers());
+    assertEquals(List.of("TS04"), index.search("9787115", null, 20).getCollectionNumbers());
+    assertEquals(List.of("TS03", "TS02"), index.search("97871114", "导论", 20).getCollectionNumbers());
+  }
+
+  @Test
+  void statusChangesReorderResults() {
+    index.rebuild();
+    index.onStatusChanged(List.of("TS02"), "可借阅");
+    index.onStatusChanged(List.of("TS03"), "已借出");
+    assertEquals(List.of("TS02", "TS03"), index.search(null, "导论", 20).getCollectionNumbers());
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void syncAppliesChangesFromOtherNodes() {
+    index.rebuild();
+    LocalDateTime now = LocalDateTime.now();
+    Book borrowed = book("TS03", "978-7-111-40701-0", "算法导论", "已借出", now.minusDays(5));
+    Book added = book("TS06", "978-7-111-40701-0", "算法导论", "可借阅", now);
+    Book deleted = book("TS02", "978-7-111-40701-0", "算法导论", "已借出", now.minusDays(2));
+    deleted.setDeleted(1);
+    doAnswer(invocation -> {
+      ResultHandler<Book> handler = invocation.getArgument(1);
+      for (Book book : List.of(borrowed, added, deleted)) {
+        ResultContext<Book> context = mock(ResultContext.class);
+        when(context.getResultObject()).thenReturn(book);
+        handler.handleResult(context);
+      }
+      return null;
+    }).when(bookMapper).selectCatalogChangedSince(any(), any());
+
+    index.sync();
+
+    assertEquals(List.of("TS06", "TS03"), index.search(null, "导论", 20).getCollectionNumbers());
+    assertEquals(5, index.size());
+  }
+
+  @Test
+  void removingLastCopyOrRetitlingPrunesTitle() {
+    index.rebuild();
+    assertEquals(4, index.titleCount());
+
+    // 复本仍在，书名保留
+    index.remove("TS02");
+    assertEquals(4, index.titleCount());
+    index.remove("TS04");
+    assertEquals(3, index.titleCount());
+
+    index.put(book("TS01", "978-7-111-54742-6", "计算机系统基础", "可借阅", LocalDateTime.now()));
+    assertEquals(3, index.titleCount());
+    assertEquals(List.of(), index.search(null, "深入理解", 20).getCollectionNumbers());
+    assertEquals(List.of("TS01"), index.search(null, "系统基础", 20).getCollectionNumbers());
+  }
+
+  private static Book book(String collectionNumber, String isbn, String title, String status,
+      LocalDateTime createTime) {
+    Book book = new Book();
+    book.setCollectionNumber(collectionNumber);
+    book.setIsbn(isbn);
+    book.setTitle(title);
+    book.setStatus(status);
+    book.setCreateTime(createTime);
+    return book;
+  }
+}
@@ -0,0 +1,195 @@
+package com.example.library.service;
+
+import com.example.library.entity.Book;
+import com.example.library.entity.BorrowRecord;
+import com.example.library.entity.CirculationCubeCell;
+import com.example.library.mapper.BorrowRecordMapper;
+import com.example.library.mapper.CirculationCubeMapper;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 借阅流通多维汇总测试
+ */
+class CirculationCubeTest {
+
+  private CirculationCubeMapper circulationCubeMapper;
+
+  private BorrowRecordMapper borrowRecordMapper;
+
+  private BookCache bookCache;
+
+  private CirculationCube cube;
+
+  private final LocalDate today = LocalDate.now();
+
+  @BeforeEach
+  void setUp() {
+    circulationCubeMapper = mock(CirculationCubeMapper.class);
+    borrowRecordMapper = mock(BorrowRecordMapper.class);
+    bookCache = mock(BookCache.class);
+    cube = new CirculationCube(circulationCubeMapper, borrowRecordMapper, bookCache);
+  }
+
+  @Test
+  void zoneParsedFromLocation() {
+    assertEquals("A区", CirculationCube.zoneOf("A区-3架-2层"));
+    assertEquals("B区", CirculationCube.zoneOf(" B区 "));
+    assertEquals("期刊室", CirculationCube.zoneOf("期刊室-1架"));
+    assertEquals(CirculationCube.UNKNOWN_ZONE, CirculationCube.zoneOf(null));
+    assertEquals(CirculationCube.UNKNOWN_ZONE, CirculationCube.zoneOf(" "));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void flushAggregatesEventsPerCell() {
+    when(bookCache.getAll(anyCollection())).thenReturn(Map.of("TS1", book("TS1", "A区-1架"),
+        "TS2", book("TS2", "A区-2架"), "TS3", book("TS3", "B区-1架")));
+    cube.onBorrowed(today, "admin", List.of(record("TS1", "学生"), record("TS2", "学生"), record("TS3", "教师")));
+    // 归还由 desk 办理，计入借出操作员 admin
+    BorrowRecord returned = record("TS1", "学生");
+    returned.setOperator("admin");
+    cube.onReturned(today, List.of(returned));
+
+    cube.flush();
+    cube.flush();
+
+    ArgumentCaptor<List<CirculationCubeCell>> captor = ArgumentCaptor.forClass(List.class);
+    verify(circulationCubeMapper, times(1)).incrementBatch(captor.capture());
+    List<CirculationCubeCell> cells = captor.getValue().stream()
+        .sorted(Comparator.comparing(CirculationCubeCell::getOperator).thenComparing(CirculationCubeCell::getZone))
+        .toList();
+    assertEquals(2, cells.size());
+    assertCell(cells.get(0), "学生", "A区", "admin", 2, 1);
+    assertCell(cells.get(1), "教师", "B区", "admin", 1, 0);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void failedFlushKeepsDeltas() {
+    cube.onBorrowed(today, "admin", List.of(record("TS1", "学生")));
+    when(bookCache.getAll(anyCollection())).thenReturn(Map.of());
+    when(circulationCubeMapper.incrementBatch(anyList())).thenThrow(new RuntimeException("down")).thenReturn(1);
+
+    cube.flush();
+    cube.flush();
+    cube.flush();
+
+    // 图书不存在时计入未知区域，失败的一轮在下一轮重写
+    ArgumentCaptor<List<CirculationCubeCell>> captor = ArgumentCaptor.forClass(List.class);
+    verify(circulationCubeMapper, times(2)).incrementBatch(captor.capture());
+    assertCell(captor.getValue().get(0), "学生", CirculationCube.UNKNOWN_ZONE, "admin", 1, 0);
+  }
+
+  @Test
+  void sliceValidatesAndMapsRows() {
+    assertThrows(RuntimeException.class,
+        () -> cube.slice("hour", today, today, List.of(), null, null, null));
+    assertThrows(RuntimeException.class,
+        () -> cube.slice("day", today, today, List.of("publisher"), null, null, null));
+    assertThrows(RuntimeException.class,
+        () -> cube.slice("day", today, today.minusDays(1), List.of(), null, null, null));
+
+    Map<String, Object> row = new HashMap<>();
+    row.put("period", today);
+    row.put("zone", "A区");
+    row.put("borrow_count", 3L);
+    row.put("return_count", 1L);
+    when(circulationCubeMapper.selectSlice(eq("month"), any(), any(), eq(List.of("zone")), eq("学生"), isNull(),
+        isNull())).thenReturn(List.of(row));
+
+    Map<String, Object> result = cube.slice("month", today.minusDays(60), today, List.of("zone", "zone"), "学生", "",
+        null);
+
+    @SuppressWarnings("unchecked")
+    List<Map<String, Object>> list = (List<Map<String, Object>>) result.get("list");
+    assertEquals(1, list.size());
+    assertEquals("A区", list.get(0).get("zone"));
+    assertEquals(3L, list.get(0).get("borrowCount"));
+    assertEquals(1L, list.get(0).get("returnCount"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void backfillCountsBorrowAndReturnDays() {
+    LocalDateTime borrowed = today.minusDays(3).atTime(9, 0);
+    Map<String, Object> returned = new HashMap<>();
+    returned.put("borrow_date", Timestamp.valueOf(borrowed));
+    returned.put("return_date", today.atTime(10, 0));
+    returned.put("user_identity", "学生");
+    returned.put("operator", "admin");
+    returned.put("location", "A区-3架-2层");
+    Map<String, Object> open = new HashMap<>(returned);
+    open.put("return_date", null);
+    doAnswer(invocation -> {
+      ResultHandler<Map<String, Object>> handler = invocation.getArgument(0);
+      for (Map<String, Object> row : List.of(returned, open)) {
+        ResultContext<Map<String, Object>> context = mock(ResultContext.class);
+        when(context.getResultObject()).thenReturn(row);
+        handler.handleResult(context);
+      }
+      return null;
+    }).when(borrowRecordMapper).selectCubeEvents(any());
+
+    Map<String, Object> result = cube.backfill();
+
+    assertEquals(2L, result.get("scannedRecords"));
+    assertEquals(2, result.get("cells"));
+    ArgumentCaptor<List<CirculationCubeCell>> captor = ArgumentCaptor.forClass(List.class);
+    verify(circulationCubeMapper).mergeBatch(captor.capture());
+    List<CirculationCubeCell> cells = captor.getValue().stream()
+        .sorted(Comparator.comparing(CirculationCubeCell::getStatDate))
+        .toList();
+    assertEquals(borrowed.toLocalDate(), cells.get(0).getStatDate());
+    assertCell(cells.get(0), "学生", "A区", "admin", 2, 0);
+    assertEquals(today, cells.get(1).getStatDate());
+    assertCell(cells.get(1), "学生", "A区", "admin", 0, 1);
+  }
+
+  private static void assertCell(CirculationCubeCell cell, String identity, String zone, String operator,
+      int borrows, int returns) {
+    assertEquals(identity, cell.getUserIdentity());
+    assertEquals(zone, cell.getZone());
+    assertEquals(operator, cell.getOperator());
+    assertEquals(borrows, cell.getBorrowCount());
+    assertEquals(returns, cell.getReturnCount());
+  }
+
+  private static Book book(String collectionNumber, String location) {
+    Book book = new Book();
+    book.setCollectionNumber(collectionNumber);
+    book.setLocation(location);
+    return book;
+  }
+
+  private static BorrowRecord record(String collectionNumber, String identity) {
+    BorrowRecord record = new BorrowRecord();
+    record.setCollectionNumber(collectionNumber);
+    record.setUserIdentity(identity);
+    return record;
+  }
+}
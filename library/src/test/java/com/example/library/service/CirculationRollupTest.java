@@ -0,0 +1,142 @@
+package com.example.library.service;
+
+import com.example.library.entity.BorrowRecord;
+import com.example.library.entity.CirculationDaily;
+import com.example.library.mapper.BorrowRecordMapper;
+import com.example.library.mapper.CirculationDailyMapper;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 借阅流通日汇总测试
+ */
+class CirculationRollupTest {
+
+  private CirculationDailyMapper circulationDailyMapper;
+
+  private BorrowRecordMapper borrowRecordMapper;
+
+  private CirculationRollup rollup;
+
+  private final LocalDate today = LocalDate.now();
+
+  @BeforeEach
+  void setUp() {
+    circulationDailyMapper = mock(CirculationDailyMapper.class);
+    borrowRecordMapper = mock(BorrowRecordMapper.class);
+    rollup = new CirculationRollup(circulationDailyMapper, borrowRecordMapper);
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void flushWritesDeltasOnce() {
+    rollup.onBorrowed(today, 3);
+    rollup.onReturned(today, 2);
+    rollup.onBorrowed(today, 1);
+
+    rollup.flush();
+    rollup.flush();
+
+    ArgumentCaptor<List<CirculationDaily>> captor = ArgumentCaptor.forClass(List.class);
+    verify(circulationDailyMapper, times(1)).incrementBatch(captor.capture());
+    CirculationDaily daily = captor.getValue().get(0);
+    assertEquals(today, daily.getStatDate());
+    assertEquals(4, daily.getBorrowCount());
+    assertEquals(2, daily.getReturnCount());
+  }
+
+  @Test
+  void failedFlushKeepsDeltas() {
+    when(circulationDailyMapper.incrementBatch(anyList())).thenThrow(new RuntimeException("down"));
+    rollup.onBorrowed(today, 5);
+    rollup.flush();
+
+    assertEquals(5L, rollup.trend(1).get("totalBorrow"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void trendAddsPendingDeltasToRollupRows() {
+    when(circulationDailyMapper.selectRange(today.minusDays(6), today)).thenReturn(List.of(
+        daily(today.minusDays(6), 10, 4), daily(today, 2, 1)));
+    rollup.onBorrowed(today, 3);
+    rollup.onReturned(today.minusDays(1), 1);
+
+    Map<String, Object> trend = rollup.trend(7);
+
+    List<Map<String, Object>> list = (List<Map<String, Object>>) trend.get("list");
+    assertEquals(7, list.size());
+    assertEquals(today.minusDays(6), list.get(0).get("date"));
+    assertEquals(10L, list.get(0).get("borrowCount"));
+    assertEquals(0L, list.get(1).get("borrowCount"));
+    assertEquals(1L, list.get(5).get("returnCount"));
+    assertEquals(5L, list.get(6).get("borrowCount"));
+    assertEquals(15L, trend.get("totalBorrow"));
+    assertEquals(6L, trend.get("totalReturn"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void backfillCountsBorrowsAndReturnsPerDay() {
+    LocalDateTime morning = today.minusDays(3).atTime(9, 0);
+    List<BorrowRecord> records = List.of(
+        record(morning, morning.plusDays(3)),
+        record(morning.plusHours(2), null),
+        record(morning.plusDays(1), morning.plusDays(3).plusHours(1)));
+    doAnswer(invocation -> {
+      ResultHandler<BorrowRecord> handler = invocation.getArgument(0);
+      for (BorrowRecord record : records) {
+        ResultContext<BorrowRecord> context = mock(ResultContext.class);
+        when(context.getResultObject()).thenReturn(record);
+        handler.handleResult(context);
+      }
+      return null;
+    }).when(borrowRecordMapper).selectCirculationEvents(any());
+
+    Map<String, Object> result = rollup.backfill();
+
+    assertEquals(3L, result.get("scannedRecords"));
+    ArgumentCaptor<List<CirculationDaily>> captor = ArgumentCaptor.forClass(List.class);
+    verify(circulationDailyMapper).mergeBatch(captor.capture());
+    verify(circulationDailyMapper, never()).incrementBatch(anyList());
+    List<CirculationDaily> totals = captor.getValue();
+    assertEquals(3, totals.size());
+    assertEquals(2, totals.get(0).getBorrowCount());
+    assertEquals(1, totals.get(1).getBorrowCount());
+    assertEquals(today, totals.get(2).getStatDate());
+    assertEquals(2, totals.get(2).getReturnCount());
+  }
+
+  private static CirculationDaily daily(LocalDate date, int borrows, int returns) {
+    CirculationDaily daily = new CirculationDaily();
+    daily.setStatDate(date);
+    daily.setBorrowCount(borrows);
+    daily.setReturnCount(returns);
+    return daily;
+  }
+
+  private static BorrowRecord record(LocalDateTime borrowDate, LocalDateTime returnDate) {
+    BorrowRecord record = new BorrowRecord();
+    record.setBorrowDate(borrowDate);
+    record.setReturnDate(returnDate);
+    return record;
+  }
+}
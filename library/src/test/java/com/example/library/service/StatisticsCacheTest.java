@@ -0,0 +1,123 @@
+package com.example.library.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 统计结果缓存测试
+ */
+class StatisticsCacheTest {
+
+  private final StatisticsCache cache = new StatisticsCache(600, 1, 1000);
+
+  @AfterEach
+  void tearDown() {
+    cache.shutdown();
+  }
+
+  @Test
+  void concurrentMissesShareOneComputation() throws Exception {
+    AtomicInteger computations = new AtomicInteger();
+    CountDownLatch release = new CountDownLatch(1);
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<Integer>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        futures.add(pool.submit(() -> cache.get("top-books", Duration.ofMinutes(1), () -> {
+          computations.incrementAndGet();
+          await(release);
+          return 42;
+        })));
+      }
+      // 等待其余请求进入等待后放行计算
+      Thread.sleep(200);
+      release.countDown();
+      for (Future<Integer> future : futures) {
+        assertEquals(42, future.get(5, TimeUnit.SECONDS));
+      }
+    } finally {
+      pool.shutdownNow();
+    }
+    assertEquals(1, computations.get());
+    assertEquals(1L, cache.stats().get("loads"));
+  }
+
+  @Test
+  void staleValueServedWhileRefreshing() throws Exception {
+    AtomicInteger version = new AtomicInteger();
+    CountDownLatch refreshed = new CountDownLatch(1);
+    assertEquals(0, (int) cache.get("book-status", Duration.ZERO, version::getAndIncrement));
+
+    int stale = cache.get("book-status", Duration.ZERO, () -> {
+      int value = version.getAndIncrement();
+      refreshed.countDown();
+      return value;
+    });
+    assertEquals(0, stale);
+    assertTrue(refreshed.await(5, TimeUnit.SECONDS));
+
+    // 后台重算完成后读到新值
+    int fresh = 0;
+    for (int i = 0; i < 50 && fresh == 0; i++) {
+      fresh = cache.get("book-status", Duration.ofMinutes(1), () -> -1);
+      Thread.sleep(10);
+    }
+    assertEquals(1, fresh);
+  }
+
+  @Test
+  void failuresAreNotCached() {
+    assertThrows(IllegalStateException.class, () -> cache.get("borrow-trend:7", Duration.ofMinutes(1), () -> {
+      throw new IllegalStateException("数据库不可用");
+    }));
+    assertEquals(0L, cache.stats().get("keys"));
+    assertEquals(7, (int) cache.get("borrow-trend:7", Duration.ofMinutes(1), () -> 7));
+  }
+
+  @Test
+  void invalidateDropsPrefix() {
+    cache.get("borrow-trend:7", Duration.ofMinutes(1), () -> 1);
+    cache.get("borrow-trend:30", Duration.ofMinutes(1), () -> 1);
+    cache.get("book-status", Duration.ofMinutes(1), () -> 1);
+
+    cache.invalidate("borrow-trend:");
+
+    assertEquals(2, (int) cache.get("borrow-trend:7", Duration.ofMinutes(1), () -> 2));
+    assertEquals(1, (int) cache.get("book-status", Duration.ofMinutes(1), () -> 2));
+  }
+
+  @Test
+  void keysFromRequestParametersAreBounded() {
+    StatisticsCache bounded = new StatisticsCache(600, 1, 100);
+    try {
+      for (int days = 0; days < 5000; days++) {
+        bounded.get("borrow-trend:" + days, Duration.ofMinutes(1), () -> 1);
+      }
+      assertTrue((long) bounded.stats().get("keys") <= 100);
+    } finally {
+      bounded.shutdown();
+    }
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
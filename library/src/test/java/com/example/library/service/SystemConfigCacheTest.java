@@ -0,0 +1,98 @@
+package com.example.library.service;
+
+import com.example.library.entity.SystemConfig;
+import com.example.library.mapper.SystemConfigMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 系统配置快照测试
+ */
+class SystemConfigCacheTest {
+
+  private SystemConfigMapper mapper;
+
+  private SystemConfigCache cache;
+
+  @BeforeEach
+  void setUp() {
+    mapper = mock(SystemConfigMapper.class);
+    cache = new SystemConfigCache(mapper);
+    when(mapper.selectList(any())).thenReturn(List.of(
+        config(SystemConfigCache.TEACHER_BORROW_DAYS, "120", 2L),
+        config(SystemConfigCache.STUDENT_BORROW_DAYS, "45", 1L),
+        config(SystemConfigCache.MAX_BORROW_COUNT, "8", 3L)));
+  }
+
+  @Test
+  void reloadParsesTypedSnapshot() {
+    cache.reload();
+
+    SystemConfigCache.Snapshot snapshot = cache.current();
+    assertEquals(6L, snapshot.version());
+    assertEquals(120, snapshot.borrowDays("教师"));
+    assertEquals(45, snapshot.borrowDays("学生"));
+    assertEquals(8, snapshot.maxBorrowCount());
+  }
+
+  @Test
+  void missingOrInvalidValuesFallBackToDefaults() {
+    when(mapper.selectList(any())).thenReturn(List.of(config(SystemConfigCache.MAX_BORROW_COUNT, "many", 0L)));
+
+    cache.reload();
+
+    assertEquals(SystemConfigCache.DEFAULTS.teacherBorrowDays(), cache.current().teacherBorrowDays());
+    assertEquals(SystemConfigCache.DEFAULTS.maxBorrowCount(), cache.current().maxBorrowCount());
+  }
+
+  @Test
+  void pollReloadsOnlyWhenVersionChanges() {
+    cache.reload();
+    when(mapper.selectVersion()).thenReturn(6L);
+    cache.poll();
+    verify(mapper, times(1)).selectList(any());
+
+    when(mapper.selectVersion()).thenReturn(7L);
+    cache.poll();
+    verify(mapper, times(2)).selectList(any());
+  }
+
+  @Test
+  void updateReplacesSnapshotAfterWrite() {
+    SystemConfigService service = new SystemConfigService(mapper, cache);
+    cache.reload();
+    when(mapper.selectList(any())).thenReturn(List.of(
+        config(SystemConfigCache.TEACHER_BORROW_DAYS, "100", 3L),
+        config(SystemConfigCache.STUDENT_BORROW_DAYS, "50", 2L),
+        config(SystemConfigCache.MAX_BORROW_COUNT, "6", 4L)));
+
+    service.updateConfig(100, 50, 6);
+
+    verify(mapper).updateValueByKey(SystemConfigCache.TEACHER_BORROW_DAYS, "100");
+    verify(mapper).updateValueByKey(SystemConfigCache.MAX_BORROW_COUNT, "6");
+    verify(mapper, never()).selectOne(any());
+    Map<String, Object> config = service.getConfig();
+    assertEquals(100, config.get("teacherBorrowDays"));
+    assertEquals(6, config.get("maxBorrowCount"));
+    assertEquals(9L, cache.current().version());
+  }
+
+  private static SystemConfig config(String key, String value, Long version) {
+    SystemConfig config = new SystemConfig();
+    config.setConfigKey(key);
+    config.setConfigValue(value);
+    config.setVersion(version);
+    return config;
+  }
+}
@@ -0,0 +1,195 @@
+package com.example.library.service;
+
+import com.example.library.entity.BorrowRecord;
+import com.example.library.mapper.BorrowRecordMapper;
+import org.apache.ibatis.session.ResultContext;
+import org.apache.ibatis.session.ResultHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 借阅排行跟踪测试（合成数据与精确分组计数对比）
+ */
+class TopBooksTrackerTest {
+
+  private static final int BOOKS = 20_000;
+
+  private BorrowRecordMapper borrowRecordMapper;
+
+  /**
+   * 合成借阅流，精确统计 Mock 在其上分组计数
+   */
+  private final List<BorrowRecord> borrows = new ArrayList<>();
+
+  @BeforeEach
+  void setUp() {
+    borrowRecordMapper = mock(BorrowRecordMapper.class);
+    when(borrowRecordMapper.selectTopBooksSince(any(), anyInt())).thenAnswer(invocation -> {
+      LocalDateTime since = invocation.getArgument(0);
+      int limit = invocation.getArgument(1);
+      Map<String, Long> counts = new HashMap<>();
+      for (BorrowRecord record : borrows) {
+        if (!record.getBorrowDate().isBefore(since)) {
+          counts.merge(record.getCollectionNumber(), 1L, Long::sum);
+        }
+      }
+      List<Map<String, Object>> rows = new ArrayList<>();
+      counts.entrySet().stream()
+          .sorted(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+          .limit(limit)
+          .forEach(entry -> {
+            Map<String, Object> row = new HashMap<>();
+            row.put("collection_number", entry.getKey());
+            row.put("borrow_count", entry.getValue());
+            rows.add(row);
+          });
+      return rows;
+    });
+  }
+
+  @Test
+  void matchesExactTopKOnZipfStream() {
+    TopBooksTracker tracker = new TopBooksTracker(borrowRecordMapper, 500, 30);
+    generate(30, 3000, 1.1, new Random(42));
+    tracker.onBorrowed(borrows);
+
+    for (int[] query : new int[][] {{5, 7}, {10, 30}, {20, 30}}) {
+      Map<String, Object> result = tracker.validate(query[0], query[1]);
+      assertEquals(1.0, (Double) result.get("recall"), "k=" + query[0] + " days=" + query[1]);
+    }
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void errorBoundCoversTrueCount() {
+    TopBooksTracker tracker = new TopBooksTracker(borrowRecordMapper, 50, 30);
+    generate(10, 2000, 0.8, new Random(7));
+    tracker.onBorrowed(borrows);
+
+    Map<String, Object> result = tracker.validate(10, 10);
+    Map<String, Long> exact = new HashMap<>();
+    for (Map<String, Object> row : (List<Map<String, Object>>) result.get("exact")) {
+      exact.put((String) row.get("collection_number"), ((Number) row.get("borrow_count")).longValue());
+    }
+    for (Map<String, Object> book : (List<Map<String, Object>>) result.get("approximate")) {
+      Long actual = exact.get((String) book.get("collection_number"));
+      if (actual == null) {
+        continue;
+      }
+      long count = (Long) book.get("borrow_count");
+      long error = (Long) book.get("error");
+      assertTrue(Math.abs(count - actual) <= error, book + " actual=" + actual);
+    }
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void loadRebuildsFromRecentBorrows() {
+    BorrowRecord record = borrow("TS1", LocalDateTime.now());
+    doAnswer(invocation -> {
+      ResultHandler<BorrowRecord> handler = invocation.getArgument(1);
+      ResultContext<BorrowRecord> context = mock(ResultContext.class);
+      when(context.getResultObject()).thenReturn(record);
+      handler.handleResult(context);
+      handler.handleResult(context);
+      return null;
+    }).when(borrowRecordMapper).selectBorrowsSince(any(), any());
+
+    TopBooksTracker tracker = new TopBooksTracker(borrowRecordMapper, 10, 30);
+    tracker.load();
+    tracker.onBorrowed(List.of(borrow("TS2", LocalDateTime.now()), borrow("TS3", LocalDateTime.now().minusDays(40))));
+
+    List<Map<String, Object>> top = tracker.top(5, 7);
+    assertEquals(2, top.size());
+    assertEquals("TS1", top.get(0).get("collection_number"));
+    assertEquals(2L, top.get(0).get("borrow_count"));
+    assertEquals(0L, top.get(0).get("error"));
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void syncCountsBorrowsFromOtherNodesOnce() {
+    TopBooksTracker tracker = new TopBooksTracker(borrowRecordMapper, 10, 30);
+    tracker.load();
+    BorrowRecord local = borrow("TS1", LocalDateTime.now());
+    local.setRecordId("BR1");
+    tracker.onBorrowed(List.of(local));
+
+    // 其他实例的借阅，连同本实例已计入的借阅在两次同步的重叠区间内各出现一次
+    BorrowRecord remote = borrow("TS2", LocalDateTime.now());
+    remote.setRecordId("BR2");
+    doAnswer(invocation -> {
+      ResultHandler<BorrowRecord> handler = invocation.getArgument(1);
+      for (BorrowRecord record : List.of(local, remote)) {
+        ResultContext<BorrowRecord> context = mock(ResultContext.class);
+        when(context.getResultObject()).thenReturn(record);
+        handler.handleResult(context);
+      }
+      return null;
+    }).when(borrowRecordMapper).selectBorrowsSince(any(), any());
+
+    tracker.sync();
+    tracker.sync();
+
+    List<Map<String, Object>> top = tracker.top(5, 1);
+    assertEquals(2, top.size());
+    assertEquals(1L, top.get(0).get("borrow_count"));
+    assertEquals(1L, top.get(1).get("borrow_count"));
+  }
+
+  @Test
+  void rejectsWindowBeyondRetention() {
+    TopBooksTracker tracker = new TopBooksTracker(borrowRecordMapper, 10, 30);
+    assertThrows(RuntimeException.class, () -> tracker.top(5, 31));
+    assertThrows(RuntimeException.class, () -> tracker.top(0, 7));
+  }
+
+  /**
+   * 按 Zipf 分布生成每天的借阅，每天的热门图书略有轮换
+   */
+  private void generate(int days, int perDay, double exponent, Random random) {
+    double[] cumulative = new double[BOOKS];
+    double sum = 0;
+    for (int i = 0; i < BOOKS; i++) {
+      sum += 1 / Math.pow(i + 1, exponent);
+      cumulative[i] = sum;
+    }
+    LocalDate today = LocalDate.now();
+    for (int day = 0; day < days; day++) {
+      LocalDateTime time = today.minusDays(day).atTime(10, 0);
+      for (int i = 0; i < perDay; i++) {
+        int rank = Arrays.binarySearch(cumulative, random.nextDouble() * sum);
+        rank = rank < 0 ? -rank - 1 : rank;
+        int book = (rank + day * 3) % BOOKS;
+        borrows.add(borrow(String.format("TS%05d", book), time));
+      }
+    }
+  }
+
+  private static BorrowRecord borrow(String collectionNumber, LocalDateTime borrowDate) {
+    BorrowRecord record = new BorrowRecord();
+    record.setCollectionNumber(collectionNumber);
+    record.setBookTitle("书名" + collectionNumber);
+    record.setBookAuthor("作者");
+    record.setBorrowDate(borrowDate);
+    return record;
+  }
+}
@@ -0,0 +1,95 @@
+package com.example.library.service;
+
+import com.example.library.entity.User;
+import com.example.library.mapper.UserMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 用户缓存测试
+ */
+class UserCacheTest {
+
+  private UserMapper mapper;
+
+  private UserCache cache;
+
+  private User user;
+
+  @BeforeEach
+  void setUp() {
+    mapper = mock(UserMapper.class);
+    cache = new UserCache(mapper, true, 100, 300, 30);
+    user = new User();
+    user.setAccountNumber("2021001");
+    user.setCardNumber("C2021001");
+    when(mapper.selectByCardNumber("C2021001")).thenReturn(user);
+    when(mapper.selectByAccountNumber("2021001")).thenReturn(user);
+  }
+
+  @Test
+  void repeatedSwipesHitCache() {
+    for (int i = 0; i < 3; i++) {
+      assertSame(user, cache.getByCardNumber("C2021001"));
+      assertSame(user, cache.getByAccountNumber("2021001"));
+    }
+
+    verify(mapper, times(1)).selectByCardNumber("C2021001");
+    verify(mapper, times(1)).selectByAccountNumber("2021001");
+    @SuppressWarnings("unchecked")
+    Map<String, Object> byCard = (Map<String, Object>) cache.stats().get("cardNumber");
+    assertEquals(2L, byCard.get("hitCount"));
+    assertEquals(1L, byCard.get("missCount"));
+  }
+
+  @Test
+  void unknownCardCachedUntilEvicted() {
+    assertNull(cache.getByCardNumber("C404"));
+    assertNull(cache.getByCardNumber("C404"));
+    verify(mapper, times(1)).selectByCardNumber("C404");
+    @SuppressWarnings("unchecked")
+    Map<String, Object> byCard = (Map<String, Object>) cache.stats().get("cardNumber");
+    assertEquals(1L, byCard.get("negativeSize"));
+
+    // 录入新卡后清除“不存在”
+    User added = new User();
+    added.setCardNumber("C404");
+    when(mapper.selectByCardNumber("C404")).thenReturn(added);
+    cache.evict("2021404", "C404");
+
+    assertSame(added, cache.getByCardNumber("C404"));
+  }
+
+  @Test
+  void evictDropsBothIndexes() {
+    cache.getByCardNumber("C2021001");
+    cache.getByAccountNumber("2021001");
+
+    cache.evict("2021001", "C2021001");
+    cache.getByCardNumber("C2021001");
+    cache.getByAccountNumber("2021001");
+
+    verify(mapper, times(2)).selectByCardNumber("C2021001");
+    verify(mapper, times(2)).selectByAccountNumber("2021001");
+  }
+
+  @Test
+  void disabledCacheReadsThrough() {
+    UserCache disabled = new UserCache(mapper, false, 100, 300, 30);
+
+    disabled.getByCardNumber("C2021001");
+    disabled.getByCardNumber("C2021001");
+
+    verify(mapper, times(2)).selectByCardNumber("C2021001");
+  }
+}
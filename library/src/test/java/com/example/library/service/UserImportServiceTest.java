@@ -0,0 +1,214 @@
+package com.example.library.service;
+
+import com.example.library.common.BusinessException;
+import com.example.library.common.ResultCode;
+import com.example.library.entity.User;
+import com.example.library.mapper.UserMapper;
+import com.example.library.util.PasswordUtil;
+import com.example.library.util.SnowflakeIdGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 用户批量录入测试
+ */
+class UserImportServiceTest {
+
+  private UserMapper userMapper;
+
+  private List<List<User>> batches;
+
+  private int keyQueries;
+
+  private UserImportService service;
+
+  @BeforeEach
+  void setUp() {
+    userMapper = mock(UserMapper.class);
+    batches = new ArrayList<>();
+    when(userMapper.insertBatch(anyList())).thenAnswer(invocation -> {
+      List<User> users = invocation.getArgument(0);
+      batches.add(users);
+      return users.size();
+    });
+    // 已存在账号 2021000 与校园卡 C9999
+    when(userMapper.selectExistingKeys(anyCollection(), anyCollection())).thenAnswer(invocation -> {
+      keyQueries++;
+      Collection<String> accounts = invocation.getArgument(0);
+      Collection<String> cards = invocation.getArgument(1);
+      List<User> existing = new ArrayList<>();
+      if (accounts.contains("2021000") || cards.contains("C9999")) {
+        existing.add(user("2021000", "C9999"));
+      }
+      return existing;
+    });
+    service = new UserImportService(userMapper, new UserCache(userMapper, true, 100, 300, 30),
+        new SnowflakeIdGenerator(0),
+        new TransactionTemplate(mock(PlatformTransactionManager.class)),
+        Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), 2, 60);
+  }
+
+  @AfterEach
+  void tearDown() {
+    service.deleteReports();
+  }
+
+  @Test
+  void importsRosterWithOneKeyQueryPerBatch() throws Exception {
+    String csv = "\uFEFFname,accountNumber,cardNumber,identity\n"
+        + "张三,2021001,C0001,学生\n"
+        + "李四,2021002,C0002,学生\n"
+        + "王五,2021000,C0003,学生\n"
+        + "赵六,2021004,C9999,教师\n"
+        + "张三,2021001,C0005,学生\n"
+        + "钱七,2021006,C0002,学生\n"
+        + "孙八,2021007,C0007,职工\n"
+        + ",2021008,C0008,学生\n"
+        + "周九,T1009,C0009,教师\n";
+
+    Map<String, Object> result = service.importUsers(stream(csv), "text/csv", "admin");
+
+    assertEquals(9L, result.get("total"));
+    assertEquals(3L, result.get("successCount"));
+    assertEquals(6L, result.get("failCount"));
+    assertEquals(3, keyQueries);
+    assertEquals(List.of(2, 1), batches.stream().map(List::size).toList());
+
+    User first = batches.get(0).get(0);
+    assertEquals("021001", first.getInitialPassword());
+    assertEquals(PasswordUtil.sha256("021001"), first.getPassword());
+    assertEquals("T1009", batches.get(1).get(0).getInitialPassword());
+
+    @SuppressWarnings("unchecked")
+    List<Map<String, Object>> errors = (List<Map<String, Object>>) result.get("errors");
+    assertEquals(List.of("账号已存在", "校园卡号已存在", "文件内学号/工号重复", "文件内校园卡号重复", "身份须为教师或学生",
+        "姓名不能为空"), errors.stream().map(error -> error.get("message")).toList());
+  }
+
+  @Test
+  void reportListsEveryRow() throws Exception {
+    String ndjson = "{\"accountNumber\":\"2021001\",\"name\":\"张三\",\"identity\":\"学生\",\"cardNumber\":\"C0001\"}\n"
+        + "{\"accountNumber\":\"2021000\",\"name\":\"李, 四\",\"identity\":\"学生\",\"cardNumber\":\"C0002\"}\n"
+        + "{\"accountNumber\":\n";
+
+    Map<String, Object> result = service.importUsers(stream(ndjson), "application/x-ndjson", "operator1");
+    String reportId = reportId(result);
+    assertEquals(22, reportId.length());
+
+    BusinessException forbidden = assertThrows(BusinessException.class,
+        () -> service.takeReport(reportId, "operator2", false));
+    assertEquals(ResultCode.FORBIDDEN, forbidden.getResultCode());
+
+    List<String> lines;
+    try (InputStream report = service.takeReport(reportId, "operator1", false)) {
+      lines = new String(report.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+    }
+    assertEquals(4, lines.size());
+    assertTrue(lines.get(0).startsWith("\uFEFF行号,"));
+    assertTrue(lines.contains("1,2021001,张三,学生,C0001,021001,成功,"));
+    assertTrue(lines.contains("2,2021000,\"李, 四\",学生,C0002,,失败,账号已存在"));
+    assertTrue(lines.stream().anyMatch(line -> line.startsWith("3,,,,,,失败,JSON 格式错误")));
+
+    // 下载一次后删除
+    assertFalse(reportExists(result));
+    BusinessException gone = assertThrows(BusinessException.class,
+        () -> service.takeReport(reportId, "operator1", false));
+    assertEquals(ResultCode.NOT_FOUND, gone.getResultCode());
+  }
+
+  @Test
+  void reportIdsAreRandomAndAdminMayDownload() throws Exception {
+    String csv = "accountNumber,name,identity,cardNumber\n2021001,张三,学生,C0001\n";
+    Map<String, Object> first = service.importUsers(stream(csv), "text/csv", "operator1");
+    Map<String, Object> second = service.importUsers(stream(csv), "text/csv", "operator1");
+
+    assertNotEquals(reportId(first), reportId(second));
+    assertFalse(reportId(first).contains((String) first.get("importId")));
+    try (InputStream report = service.takeReport(reportId(first), "admin", true)) {
+      assertTrue(report.readAllBytes().length > 0);
+    }
+  }
+
+  @Test
+  void failedBatchIsRetriedRowByRowAndReportsExpire() throws Exception {
+    when(userMapper.insertBatch(anyList())).thenThrow(new RuntimeException("Duplicate entry"));
+    doAnswer(invocation -> {
+      User user = invocation.getArgument(0);
+      if (user.getAccountNumber().equals("2021002")) {
+        throw new RuntimeException("Duplicate entry '2021002'");
+      }
+      return 1;
+    }).when(userMapper).insert(any(User.class));
+
+    String csv = "accountNumber,name,identity,cardNumber\n2021001,张三,学生,C0001\n2021002,李四,学生,C0002\n";
+    Map<String, Object> result = service.importUsers(stream(csv), "text/csv", null);
+
+    assertEquals(1L, result.get("successCount"));
+    assertEquals(1L, result.get("failCount"));
+
+    UserImportService expiring = new UserImportService(userMapper, new UserCache(userMapper, true, 100, 300, 30),
+        new SnowflakeIdGenerator(1),
+        new TransactionTemplate(mock(PlatformTransactionManager.class)),
+        Validation.buildDefaultValidatorFactory().getValidator(), new ObjectMapper(), 2, 0);
+    Map<String, Object> expired = expiring.importUsers(stream(csv), "text/csv", null);
+    expiring.evictExpiredReports();
+    assertFalse(reportExists(expired));
+    assertThrows(BusinessException.class, () -> expiring.takeReport(reportId(expired), null, false));
+    assertTrue(reportExists(result));
+  }
+
+  private static String reportId(Map<String, Object> result) {
+    String url = (String) result.get("reportUrl");
+    return url.substring("/api/users/import/".length(), url.length() - "/report".length());
+  }
+
+  /**
+   * 报告临时文件是否仍存在（文件名含导入编号）
+   */
+  private static boolean reportExists(Map<String, Object> result) throws IOException {
+    String prefix = "user-import-" + result.get("importId") + "-";
+    try (Stream<Path> files = Files.list(Path.of(System.getProperty("java.io.tmpdir")))) {
+      return files.anyMatch(file -> file.getFileName().toString().startsWith(prefix));
+    }
+  }
+
+  private static User user(String accountNumber, String cardNumber) {
+    User user = new User();
+    user.setAccountNumber(accountNumber);
+    user.setCardNumber(cardNumber);
+    return user;
+  }
+
+  private static ByteArrayInputStream stream(String content) {
+    return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+  }
+}
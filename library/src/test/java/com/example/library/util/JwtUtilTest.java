@@ -0,0 +1,60 @@
+package com.example.library.util;
+
+import io.jsonwebtoken.Claims;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * JWT 工具类测试
+ */
+class JwtUtilTest {
+
+  private static final String SECRET = "library-management-system-jwt-secret-key-2026";
+
+  private final JwtUtil jwtUtil = new JwtUtil(SECRET, 7_200_000L, 100);
+
+  @Test
+  void tokenRoundTrip() {
+    String token = jwtUtil.generateToken("2021001", "user");
+
+    assertTrue(jwtUtil.validateToken(token));
+    assertEquals("2021001", jwtUtil.getAccountFromToken(token));
+    assertEquals("user", jwtUtil.getRoleFromToken(token));
+  }
+
+  @Test
+  void verifiedClaimsAreReused() {
+    String token = jwtUtil.generateToken("admin", "admin");
+
+    Claims first = jwtUtil.getClaimsFromToken(token);
+    Claims second = jwtUtil.getClaimsFromToken(token);
+
+    assertSame(first, second);
+  }
+
+  @Test
+  void tamperedTokenRejected() {
+    String token = jwtUtil.generateToken("2021001", "user");
+    String forged = new JwtUtil("another-secret-key-with-enough-length-2026", 7_200_000L, 100)
+        .generateToken("2021001", "admin");
+
+    assertFalse(jwtUtil.validateToken(forged));
+    assertFalse(jwtUtil.validateToken(token.substring(0, token.length() - 2) + "xx"));
+    assertFalse(jwtUtil.validateToken(""));
+    assertNull(jwtUtil.getRoleFromToken(null));
+  }
+
+  @Test
+  void expiredTokenRejected() {
+    JwtUtil shortLived = new JwtUtil(SECRET, -1_000L, 100);
+    String token = shortLived.generateToken("2021001", "user");
+
+    assertFalse(shortLived.validateToken(token));
+    assertFalse(jwtUtil.validateToken(token));
+  }
+}
@@ -0,0 +1,65 @@
+package com.example.library.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NGramIndexTest {
+
+  @Test
+  void matchesChineseAndIdFragments() {
+    NGramIndex<String> index = new NGramIndex<>();
+    index.put("a", "Java核心技术");
+    index.put("b", "深入理解Java虚拟机");
+    index.put("c", "TS0000000000000012345");
+
+    assertEquals(List.of("a", "b"), index.search("java", 10));
+    assertEquals(List.of("a"), index.search("核心技术", 10));
+    assertEquals(List.of("b"), index.search("虚", 10));
+    assertEquals(List.of("c"), index.search("12345", 10));
+    assertTrue(index.search("技核", 10).isEmpty());
+    assertTrue(index.search("", 10).isEmpty());
+  }
+
+  @Test
+  void updateAndRemoveDropStaleText() {
+    NGramIndex<String> index = new NGramIndex<>();
+    index.put("a", "数据结构");
+    index.put("a", "算法导论");
+    assertTrue(index.search("结构", 10).isEmpty());
+    assertEquals(List.of("a"), index.search("算法", 10));
+
+    index.remove("a");
+    assertTrue(index.search("算法", 10).isEmpty());
+    assertEquals(0, index.size());
+  }
+
+  @Test
+  void repeatedUpdatesAreCompacted() {
+    NGramIndex<String> index = new NGramIndex<>();
+    index.put("first", "算法导论");
+    for (int i = 0; i < 10 * NGramIndex.MIN_COMPACT_TOMBSTONES; i++) {
+      index.put("hot", "编辑" + i);
+    }
+    index.put("last", "算法分析");
+
+    assertTrue(index.slots() <= NGramIndex.MIN_COMPACT_TOMBSTONES + 3);
+    assertEquals(List.of("hot"), index.search("编辑" + (10 * NGramIndex.MIN_COMPACT_TOMBSTONES - 1), 10));
+    assertTrue(index.search("编辑0", 10).isEmpty());
+    // 压缩保持写入顺序
+    assertEquals(List.of("first", "last"), index.search("算法", 10));
+    assertEquals(3, index.size());
+  }
+
+  @Test
+  void stopsAfterLimitPlusOne() {
+    NGramIndex<Integer> index = new NGramIndex<>();
+    for (int i = 0; i < 50; i++) {
+      index.put(i, "程序设计" + i);
+    }
+    assertEquals(4, index.search("设计", 3).size());
+  }
+}
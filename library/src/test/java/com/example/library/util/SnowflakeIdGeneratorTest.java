@@ -0,0 +1,140 @@
+package com.example.library.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 雪花 ID 生成器测试
+ */
+class SnowflakeIdGeneratorTest {
+
+  private static final long SEQUENCE_MASK = (1L << SnowflakeIdGenerator.SEQUENCE_BITS) - 1;
+
+  @Test
+  void idsAreUniqueAcrossThreadsAndNodes() throws Exception {
+    int nodes = 4;
+    int threadsPerNode = 4;
+    int idsPerThread = 250_000;
+
+    List<SnowflakeIdGenerator> generators = new ArrayList<>();
+    for (int node = 0; node < nodes; node++) {
+      generators.add(new SnowflakeIdGenerator(node));
+    }
+
+    ExecutorService pool = Executors.newFixedThreadPool(nodes * threadsPerNode);
+    CountDownLatch ready = new CountDownLatch(1);
+    List<Future<long[]>> futures = new ArrayList<>();
+    for (SnowflakeIdGenerator generator : generators) {
+      for (int t = 0; t < threadsPerNode; t++) {
+        futures.add(pool.submit(() -> {
+          ready.await();
+          long[] ids = new long[idsPerThread];
+          for (int i = 0; i < idsPerThread; i++) {
+            ids[i] = generator.nextId();
+          }
+          return ids;
+        }));
+      }
+    }
+
+    ready.countDown();
+    long[] all = new long[nodes * threadsPerNode * idsPerThread];
+    int offset = 0;
+    for (Future<long[]> future : futures) {
+      long[] ids = future.get();
+      // 单线程内严格递增
+      for (int i = 1; i < ids.length; i++) {
+        assertTrue(ids[i] > ids[i - 1]);
+      }
+      System.arraycopy(ids, 0, all, offset, ids.length);
+      offset += ids.length;
+    }
+    pool.shutdown();
+
+    Arrays.sort(all);
+    for (int i = 1; i < all.length; i++) {
+      assertTrue(all[i] != all[i - 1], "重复ID: " + all[i]);
+    }
+  }
+
+  @Test
+  void sequenceOverflowWaitsForNextMillisecond() throws Exception {
+    AtomicLong now = new AtomicLong(SnowflakeIdGenerator.EPOCH + 1_000);
+    SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7, now::get);
+
+    // 同一毫秒内用尽 4096 个序列
+    long last = 0;
+    for (int i = 0; i <= SEQUENCE_MASK; i++) {
+      last = generator.nextId();
+      assertEquals(1_000, timestamp(last));
+    }
+
+    ExecutorService pool = Executors.newSingleThreadExecutor();
+    try {
+      Future<Long> overflow = pool.submit(() -> generator.nextId());
+      assertThrows(TimeoutException.class, () -> overflow.get(50, TimeUnit.MILLISECONDS));
+
+      now.incrementAndGet();
+      long id = overflow.get(1, TimeUnit.SECONDS);
+      assertTrue(id > last);
+      assertEquals(1_001, timestamp(id));
+      assertEquals(0, id & SEQUENCE_MASK);
+    } finally {
+      pool.shutdownNow();
+    }
+  }
+
+  @Test
+  void clockRollbackStaysMonotonic() {
+    AtomicLong now = new AtomicLong(SnowflakeIdGenerator.EPOCH + 1_000);
+    SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7, now::get);
+
+    long previous = generator.nextId();
+    for (int i = 0; i < 3_000; i++) {
+      if (i == 1_000) {
+        now.addAndGet(-500);
+      }
+      if (i == 2_000) {
+        now.addAndGet(501);
+      }
+      long id = generator.nextId();
+      assertTrue(id > previous);
+      assertTrue(timestamp(id) <= Math.max(1_000, now.get() - SnowflakeIdGenerator.EPOCH));
+      assertEquals(7, (id >>> SnowflakeIdGenerator.SEQUENCE_BITS) & SnowflakeIdGenerator.MAX_NODE_ID);
+      previous = id;
+    }
+  }
+
+  @Test
+  void prefixedIdsKeepLexicalOrder() {
+    SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1);
+    String first = generator.nextId("BR");
+    String second = generator.nextId("BR");
+    assertEquals(21, first.length());
+    assertTrue(first.startsWith("BR"));
+    assertTrue(first.compareTo(second) < 0);
+  }
+
+  @Test
+  void rejectsOutOfRangeNodeId() {
+    assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(1024));
+  }
+
+  private static long timestamp(long id) {
+    return id >>> (SnowflakeIdGenerator.NODE_BITS + SnowflakeIdGenerator.SEQUENCE_BITS);
+  }
+}